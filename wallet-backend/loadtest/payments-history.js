@@ -0,0 +1,82 @@
+// k6 load test for the two JDBC-bound hot paths, /payment/by-mobile and /transactions/history,
+// on the platform-thread server with the connection pool as the bulkhead.
+//
+//   java -jar target/wallet-backend-0.0.1-SNAPSHOT.jar
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e TOKEN=<jwt> -e PAYEE_MOBILE=<mobile> \
+//          loadtest/payments-history.js
+//
+// History ramps past the Tomcat thread count while payments arrive at a constant rate.
+// Compare http_reqs/s and the p(99) of each endpoint (tagged by name) in the summary. Rerun
+// with --spring.datasource.hikari.maximum-pool-size=<n> or --server.tomcat.threads.max=<n>
+// to size the bulkhead. Requests shed by the pool come back as 503 and are counted
+// separately from real failures. The payer behind TOKEN needs enough balance for the run;
+// payments are 1 rupee each.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOKEN = __ENV.TOKEN;
+const PAYEE_MOBILE = __ENV.PAYEE_MOBILE;
+const RATE = parseInt(__ENV.RATE || '100', 10);
+const MAX_VUS = parseInt(__ENV.MAX_VUS || '800', 10);
+
+const shed = new Counter('shed_503');
+const serverErrors = new Counter('server_errors');
+
+export const options = {
+  scenarios: {
+    history: {
+      executor: 'ramping-vus',
+      exec: 'history',
+      stages: [
+        { duration: '30s', target: MAX_VUS / 4 },
+        { duration: '2m', target: MAX_VUS },
+        { duration: '30s', target: 0 },
+      ],
+    },
+    payments: {
+      executor: 'constant-arrival-rate',
+      exec: 'payment',
+      rate: RATE,
+      timeUnit: '1s',
+      duration: '3m',
+      preAllocatedVUs: 200,
+      maxVUs: 1000,
+    },
+  },
+  thresholds: {
+    server_errors: ['count==0'],
+    'http_req_duration{name:history}': ['p(99)<1000'],
+    'http_req_duration{name:by-mobile}': ['p(99)<1500'],
+    'checks{check:payment ok}': ['rate>0.99'],
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+const headers = {
+  'Content-Type': 'application/json',
+  Authorization: `Bearer ${TOKEN}`,
+};
+
+function count(res) {
+  if (res.status === 503) {
+    shed.add(1);
+  } else if (res.status >= 500) {
+    serverErrors.add(1);
+  }
+}
+
+export function history() {
+  const res = http.get(`${BASE_URL}/api/transactions/history`, { headers, tags: { name: 'history' } });
+  count(res);
+  check(res, { 'history 200': (r) => r.status === 200 });
+}
+
+export function payment() {
+  const body = JSON.stringify({ mobile: PAYEE_MOBILE, amount: 1, reference: 'k6-payments-history' });
+  const res = http.post(`${BASE_URL}/api/payment/by-mobile`, body, { headers, tags: { name: 'by-mobile' } });
+  count(res);
+  check(res, { 'payment ok': (r) => r.status === 200 });
+}
@@ -0,0 +1,62 @@
+package com.wallet.wallet_backend.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: full signature and claims check
+ * (what every request paid before the cache) against a TokenVerifier cache hit.
+ * A pool of distinct users' tokens is cycled so the cache sees realistic key spread.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="TokenVerifierBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenVerifierBenchmark {
+
+    @Param({"1000"})
+    public int users;
+
+    private String[] tokens;
+    private TokenVerifier verifier;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            tokens[i] = JwtUtil.generateToken((long) i + 1, "USER");
+        }
+        verifier = new TokenVerifier(users * 2, 300);
+        for (String token : tokens) {
+            verifier.verify(token);
+        }
+    }
+
+    @Benchmark
+    public AuthPrincipal uncached(Cursor cursor) {
+        Claims claims = JwtUtil.validateToken(next(cursor));
+        return new AuthPrincipal(Long.parseLong(claims.getSubject()), (String) claims.get("role"));
+    }
+
+    @Benchmark
+    public AuthPrincipal cached(Cursor cursor) {
+        return verifier.verify(next(cursor));
+    }
+
+    private String next(Cursor cursor) {
+        String token = tokens[cursor.next];
+        cursor.next = (cursor.next + 1) % tokens.length;
+        return token;
+    }
+}
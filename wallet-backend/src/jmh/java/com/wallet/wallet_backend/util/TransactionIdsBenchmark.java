@@ -0,0 +1,39 @@
+package com.wallet.wallet_backend.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation throughput, uncontended and with 8 threads sharing the CAS on the
+ * last id. The generator's ceiling is 4096 ids per millisecond per node; past that
+ * it borrows the next millisecond, so the contended score also shows how close a
+ * burst gets to the clock.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="TransactionIdsBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionIdsBenchmark {
+
+    @Benchmark
+    @Threads(1)
+    public long nextLong() {
+        return TransactionIds.nextLong();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextLongContended() {
+        return TransactionIds.nextLong();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String nextRendered() {
+        return TransactionIds.next(TransactionIds.WALLET);
+    }
+}
@@ -0,0 +1,74 @@
+package com.wallet.wallet_backend.config;
+
+import com.wallet.wallet_backend.service.EndpointMetrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every request, security filters included, and records it in EndpointMetrics under
+ * "METHOD /route/{pattern}". Async requests (streamed exports) are recorded when they complete.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EndpointMetricsFilter extends OncePerRequestFilter {
+
+    private final EndpointMetrics endpointMetrics;
+
+    public EndpointMetricsFilter(EndpointMetrics endpointMetrics) {
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response.getStatus(), started);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                // An exception escaping the chain becomes a 500 once it reaches the container
+                record(request, failed ? 500 : response.getStatus(), started);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long started) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED");
+        endpointMetrics.record(endpoint, (System.nanoTime() - started) / 1000, status);
+    }
+}
@@ -0,0 +1,105 @@
+package com.wallet.wallet_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Bounded pool for the admin dashboard's parallel section queries
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${wallet.dashboard.executor.threads:4}") int threads,
+            @Value("${wallet.dashboard.executor.queue:32}") int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("dashboard-");
+        // Run on the caller instead of failing when the pool is saturated
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs admin bulk wallet jobs one or two at a time; further submissions queue
+    @Bean
+    public ThreadPoolTaskExecutor bulkJobExecutor(
+            @Value("${wallet.bulk.executor.threads:2}") int threads,
+            @Value("${wallet.bulk.executor.queue:100}") int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("bulk-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Background CSV/NDJSON exports. Each one holds a streaming JDBC connection for its
+    // whole run, so only a couple run at once; the rest wait in the queue.
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${wallet.export.executor.threads:2}") int threads,
+            @Value("${wallet.export.executor.queue:20}") int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // BCrypt for MPIN checks; kept off request threads and bounded so a login spike
+    // cannot take every core. A full queue rejects instead of queueing without limit.
+    @Bean
+    public ThreadPoolTaskExecutor mpinHashExecutor(
+            @Value("${wallet.mpin.executor.threads:0}") int threads,
+            @Value("${wallet.mpin.executor.queue:64}") int queue) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("mpin-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Notification deliveries; per-channel limits are enforced by NotificationDispatcher.
+    // A full queue runs the batch on the dispatcher thread, which slows draining.
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor(
+            @Value("${wallet.notification.executor.threads:8}") int threads,
+            @Value("${wallet.notification.executor.queue:200}") int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("notify-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Raises users' riskLevel off the payment path. One thread is plenty; a full queue drops
+    // the update and RiskScoringService tries again on the user's next flagged posting.
+    @Bean
+    public ThreadPoolTaskExecutor riskExecutor(
+            @Value("${wallet.risk.executor.queue:1000}") int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("risk-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallet.wallet_backend.config;
+
+import com.wallet.wallet_backend.util.TransactionIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+public class TransactionIdConfig {
+
+    // Every node must have its own id; without one it is derived from the host name,
+    // which is only safe while host names hash to different values
+    public TransactionIdConfig(@Value("${wallet.id.node-id:-1}") int nodeId) {
+        int node = nodeId >= 0 ? nodeId : derivedNodeId();
+        TransactionIds.configure(node);
+        if (nodeId < 0) {
+            System.err.println("wallet.id.node-id is not set; using " + node + " derived from the host name");
+        }
+    }
+
+    private static int derivedNodeId() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & 0x7fffffff) % (TransactionIds.MAX_NODE_ID + 1);
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package com.wallet.wallet_backend.config;
 
+import com.wallet.wallet_backend.security.AuthPrincipalArgumentResolver;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AuthPrincipalArgumentResolver authPrincipalArgumentResolver;
+
+    public WebConfig(AuthPrincipalArgumentResolver authPrincipalArgumentResolver) {
+        this.authPrincipalArgumentResolver = authPrincipalArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authPrincipalArgumentResolver);
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         // Admin root - bilkul waise jaise tere working app mein "/" ke liye hai
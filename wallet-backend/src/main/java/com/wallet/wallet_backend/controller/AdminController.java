@@ -4,23 +4,31 @@ import com.wallet.wallet_backend.dto.LoginResponseDto;
 import com.wallet.wallet_backend.dto.UserResponseDto;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.UserRepository;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.service.MpinHashService;
+import com.wallet.wallet_backend.service.UserService;
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/admin")
 public class AdminController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final MpinHashService mpinHashService;
+    private final UserService userService;
 
     public AdminController(UserRepository userRepository,
-                           PasswordEncoder passwordEncoder) {
+                           MpinHashService mpinHashService,
+                           UserService userService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.mpinHashService = mpinHashService;
+        this.userService = userService;
     }
 
     @PostMapping("/login")
@@ -32,26 +40,39 @@ public class AdminController {
             throw new RuntimeException("Not an admin");
         }
 
-        if (!passwordEncoder.matches(request.getMpin(), admin.getMpinHash())) {
+        if (!mpinHashService.matches(request.getMpin(), admin.getMpinHash())) {
             throw new RuntimeException("Invalid MPIN");
         }
 
         String token = JwtUtil.generateToken(admin.getId(), "ADMIN");
-        String permanentToken = admin.getPermanentToken();
-        
-        // If admin doesn't have permanent token, generate one
-        if (permanentToken == null) {
-            permanentToken = "ADMIN_PERM_" + System.currentTimeMillis();
-            admin.setPermanentToken(permanentToken);
-            admin.setPermanentTokenExpiry(java.time.LocalDateTime.now().plusDays(30));
-            userRepository.save(admin);
-        }
+        String permanentToken = userService.issuePermanentToken(admin);
 
         // Create LoginResponseDto with permanent token
         UserResponseDto userDto = mapToDto(admin);
         return new LoginResponseDto(token, permanentToken, userDto, "DASHBOARD", "Admin login successful");
     }
 
+    @GetMapping("/mpin-hashing/metrics")
+    public Map<String, Object> getMpinHashingMetrics(AuthPrincipal principal) {
+        requireAdmin(principal);
+        return mpinHashService.getStats();
+    }
+
+    // e.g. /admin/mpin-hashing/benchmark?strengths=8,10,12&samples=5 (strengths up to 12, samples up to 10)
+    @GetMapping("/mpin-hashing/benchmark")
+    public Map<String, Object> benchmarkMpinHashing(@RequestParam(defaultValue = "8,10,12") List<Integer> strengths,
+                                                    @RequestParam(defaultValue = "5") int samples,
+                                                    AuthPrincipal principal) {
+        requireAdmin(principal);
+        return mpinHashService.benchmark(strengths, samples);
+    }
+
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
+
     private UserResponseDto mapToDto(User user) {
         UserResponseDto dto = new UserResponseDto();
         dto.setId(user.getId());
@@ -0,0 +1,48 @@
+package com.wallet.wallet_backend.controller;
+
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.OutboxRelay;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Tail of the wallet event log for consumers that cannot read the segment files directly
+@RestController
+@RequestMapping("/admin/events")
+public class AdminEventLogController {
+
+    private final OutboxRelay outboxRelay;
+
+    public AdminEventLogController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats(AuthPrincipal principal) {
+        requireAdmin(principal);
+        return outboxRelay.getStats();
+    }
+
+    @GetMapping("/{consumer}")
+    public Map<String, Object> poll(@PathVariable String consumer,
+                                    @RequestParam(defaultValue = "100") int max,
+                                    AuthPrincipal principal) {
+        requireAdmin(principal);
+        return outboxRelay.poll(consumer, Math.max(1, Math.min(max, 1000)));
+    }
+
+    @PostMapping("/{consumer}/commit")
+    public Map<String, Object> commit(@PathVariable String consumer,
+                                      @RequestParam long offset,
+                                      AuthPrincipal principal) {
+        requireAdmin(principal);
+        outboxRelay.commit(consumer, offset);
+        return Map.of("consumer", consumer, "committedOffset", offset);
+    }
+
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.wallet.wallet_backend.controller;
+
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.ExportService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Background export jobs started from the transaction and report export endpoints
+@RestController
+@RequestMapping("/admin/exports")
+public class AdminExportController {
+
+    private final ExportService exportService;
+
+    public AdminExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> listJobs(AuthPrincipal principal) {
+        requireAdmin(principal);
+        return exportService.listJobs();
+    }
+
+    @GetMapping("/{jobId}")
+    public Map<String, Object> getJob(@PathVariable String jobId, AuthPrincipal principal) {
+        requireAdmin(principal);
+        return exportService.getJob(jobId);
+    }
+
+    // Returning the file as a Resource lets Spring answer Range / If-Range requests,
+    // so a client can resume an interrupted download
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> download(@PathVariable String jobId, AuthPrincipal principal) {
+        requireAdmin(principal);
+        ExportService.Download download = exportService.download(jobId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(download.getFileName()).build().toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(download.getEtag())
+                .contentType(MediaType.parseMediaType(download.getContentType()))
+                .body(download.getResource());
+    }
+
+    @DeleteMapping("/{jobId}")
+    public Map<String, Object> cancel(@PathVariable String jobId, AuthPrincipal principal) {
+        requireAdmin(principal);
+        exportService.cancel(jobId);
+        return Map.of("jobId", jobId, "cancelled", true);
+    }
+
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.KycAdminDto;
 import com.wallet.wallet_backend.dto.PagedResponse;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.AdminKycService;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -28,8 +29,8 @@ public class AdminKycController {
     @PostMapping("/{documentId}/approve")
     public Map<String, String> approveKyc(
             @PathVariable Long documentId,
-            @RequestHeader("Authorization") String authHeader) {
-        Long adminId = extractAdminIdFromToken(authHeader);
+            AuthPrincipal principal) {
+        Long adminId = principal.getUserId();
         kycService.approveKyc(documentId, adminId);
         return Map.of("message", "KYC approved successfully");
     }
@@ -37,9 +38,9 @@ public class AdminKycController {
     @PostMapping("/{documentId}/reject")
     public Map<String, String> rejectKyc(
             @PathVariable Long documentId,
-            @RequestHeader("Authorization") String authHeader,
+            AuthPrincipal principal,
             @RequestBody Map<String, String> request) {
-        Long adminId = extractAdminIdFromToken(authHeader);
+        Long adminId = principal.getUserId();
         kycService.rejectKyc(documentId, adminId, request.get("reason"));
         return Map.of("message", "KYC rejected successfully");
     }
@@ -48,13 +49,4 @@ public class AdminKycController {
     public Map<String, Object> getKycStats() {
         return kycService.getKycStats();
     }
-    
-    private Long extractAdminIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        io.jsonwebtoken.Claims claims = com.wallet.wallet_backend.security.JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
 }
\ No newline at end of file
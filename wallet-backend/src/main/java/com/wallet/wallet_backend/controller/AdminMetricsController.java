@@ -0,0 +1,38 @@
+package com.wallet.wallet_backend.controller;
+
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.EndpointMetrics;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Endpoint latency and error rates; /scrape is Prometheus text format for a scraper holding an admin token
+@RestController
+@RequestMapping("/admin/metrics")
+public class AdminMetricsController {
+
+    private final EndpointMetrics endpointMetrics;
+
+    public AdminMetricsController(EndpointMetrics endpointMetrics) {
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    @GetMapping("/endpoints")
+    public Map<String, Object> getEndpoints(@RequestParam(defaultValue = "5") int minutes,
+                                            AuthPrincipal principal) {
+        requireAdmin(principal);
+        return endpointMetrics.summary(minutes);
+    }
+
+    @GetMapping(value = "/scrape", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String scrape(AuthPrincipal principal) {
+        requireAdmin(principal);
+        return endpointMetrics.scrape();
+    }
+
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
+}
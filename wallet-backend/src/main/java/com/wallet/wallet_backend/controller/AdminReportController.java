@@ -1,6 +1,7 @@
 package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.ReportRequestDto;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.AdminReportService;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -21,7 +22,10 @@ public class AdminReportController {
     }
     
     @PostMapping("/export")
-    public Map<String, String> exportReport(@RequestBody ReportRequestDto request) {
+    public Map<String, Object> exportReport(@RequestBody ReportRequestDto request, AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
         return reportService.exportReport(request);
     }
 }
\ No newline at end of file
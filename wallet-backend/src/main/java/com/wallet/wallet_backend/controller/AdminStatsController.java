@@ -0,0 +1,47 @@
+package com.wallet.wallet_backend.controller;
+
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.StatsProvider;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Operational counters of every StatsProvider, all at once or one subsystem by name
+@RestController
+@RequestMapping("/admin/stats")
+public class AdminStatsController {
+
+    private final List<StatsProvider> providers;
+
+    public AdminStatsController(List<StatsProvider> providers) {
+        this.providers = providers;
+    }
+
+    @GetMapping
+    public Map<String, Object> getAll(AuthPrincipal principal) {
+        requireAdmin(principal);
+        Map<String, Object> stats = new TreeMap<>();
+        for (StatsProvider provider : providers) {
+            stats.put(provider.getStatsName(), provider.getStats());
+        }
+        return stats;
+    }
+
+    @GetMapping("/{name}")
+    public Map<String, Object> get(@PathVariable String name, AuthPrincipal principal) {
+        requireAdmin(principal);
+        return providers.stream()
+                .filter(provider -> provider.getStatsName().equals(name))
+                .findFirst()
+                .map(StatsProvider::getStats)
+                .orElseThrow(() -> new RuntimeException("Unknown stats: " + name));
+    }
+
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
+}
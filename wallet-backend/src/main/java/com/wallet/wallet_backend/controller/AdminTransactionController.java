@@ -2,8 +2,16 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.PagedResponse;
 import com.wallet.wallet_backend.dto.TransactionAdminDto;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.AdminTransactionService;
+import com.wallet.wallet_backend.service.ExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -12,9 +20,11 @@ import java.util.Map;
 public class AdminTransactionController {
     
     private final AdminTransactionService transactionService;
+    private final ExportService exportService;
     
-    public AdminTransactionController(AdminTransactionService transactionService) {
+    public AdminTransactionController(AdminTransactionService transactionService, ExportService exportService) {
         this.transactionService = transactionService;
+        this.exportService = exportService;
     }
     
     @GetMapping
@@ -35,7 +45,36 @@ public class AdminTransactionController {
     @PostMapping("/export")
     public Map<String, Object> exportTransactions(
             @RequestParam String format,
-            @RequestBody List<String> columns) {
+            @RequestBody List<String> columns,
+            AuthPrincipal principal) {
+        requireAdmin(principal);
         return transactionService.exportTransactions(format, columns);
     }
+    
+    // Streams straight into the response; use POST /export for exports too large to wait on
+    @GetMapping("/export/stream")
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            AuthPrincipal principal) {
+        requireAdmin(principal);
+        ExportService.ExportRequest request = transactionService.exportRequest(format, columns, type, status,
+                fromDate != null ? fromDate.atStartOfDay() : null,
+                toDate != null ? toDate.plusDays(1).atStartOfDay() : null);
+        StreamingResponseBody body = out -> exportService.write(request, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportService.fileName(request) + "\"")
+                .contentType(MediaType.parseMediaType(exportService.contentType(request)))
+                .body(body);
+    }
+    
+    private static void requireAdmin(AuthPrincipal principal) {
+        if (!"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Admin access required");
+        }
+    }
 }
\ No newline at end of file
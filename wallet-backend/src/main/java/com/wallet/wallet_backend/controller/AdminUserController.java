@@ -51,4 +51,9 @@ public class AdminUserController {
     public Map<String, Object> getUserStats() {
         return userService.getUserStats();
     }
+    
+    @PostMapping("/aggregates/rebuild")
+    public Map<String, Object> rebuildTransactionAggregates() {
+        return userService.rebuildTransactionAggregates();
+    }
 }
\ No newline at end of file
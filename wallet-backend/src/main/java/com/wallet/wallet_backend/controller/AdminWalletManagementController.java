@@ -2,7 +2,9 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.WalletAdminDto;
 import com.wallet.wallet_backend.service.AdminWalletService;
+import com.wallet.wallet_backend.util.Money;
 import org.springframework.web.bind.annotation.*;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -35,7 +37,7 @@ public class AdminWalletManagementController {
     @PostMapping("/adjust")
     public Map<String, String> adjustWallet(@RequestBody Map<String, Object> request) {
         Long userId = Long.parseLong(request.get("userId").toString());
-        Double amount = Double.parseDouble(request.get("amount").toString());
+        long amount = Money.paise(request.get("amount").toString());
         String type = (String) request.get("type");
         String reason = (String) request.get("reason");
         
@@ -44,28 +46,40 @@ public class AdminWalletManagementController {
     }
     
     @PostMapping("/bulk-credit")
-    public Map<String, String> bulkCredit(@RequestBody Map<String, Object> request) {
+    public Map<String, Object> bulkCredit(@RequestBody Map<String, Object> request) {
         // FIX: Convert Integer to Long properly
         List<Integer> userIdsInt = (List<Integer>) request.get("userIds");
         List<Long> userIds = userIdsInt.stream()
                 .map(Integer::longValue)
                 .collect(Collectors.toList());
         
-        Double amount = Double.parseDouble(request.get("amount").toString());
+        long amount = Money.paise(request.get("amount").toString());
         String reason = (String) request.get("reason");
         
-        walletService.bulkCredit(userIds, amount, reason);
-        return Map.of("message", "Bulk credit completed");
+        Map<String, Object> job = new HashMap<>(walletService.bulkCredit(userIds, amount, reason));
+        job.put("message", "Bulk credit started");
+        return job;
     }
     
     @PostMapping("/bulk-freeze")
-    public Map<String, String> bulkFreeze(@RequestBody List<Integer> userIdsInt) {
+    public Map<String, Object> bulkFreeze(@RequestBody List<Integer> userIdsInt) {
         // FIX: Convert Integer to Long properly
         List<Long> userIds = userIdsInt.stream()
                 .map(Integer::longValue)
                 .collect(Collectors.toList());
         
-        walletService.bulkFreeze(userIds);
-        return Map.of("message", "Bulk freeze completed");
+        Map<String, Object> job = new HashMap<>(walletService.bulkFreeze(userIds));
+        job.put("message", "Bulk freeze started");
+        return job;
+    }
+    
+    @GetMapping("/bulk-jobs")
+    public List<Map<String, Object>> getBulkJobs() {
+        return walletService.getBulkJobs();
+    }
+    
+    @GetMapping("/bulk-jobs/{jobId}")
+    public Map<String, Object> getBulkJob(@PathVariable String jobId) {
+        return walletService.getBulkJob(jobId);
     }
 }
\ No newline at end of file
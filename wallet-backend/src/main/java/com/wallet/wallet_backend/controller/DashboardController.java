@@ -4,14 +4,16 @@ import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.entity.WalletTransaction;
 import com.wallet.wallet_backend.repository.UserRepository;
 import com.wallet.wallet_backend.repository.WalletTransactionRepository;
-import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.QRCodeService;
-import io.jsonwebtoken.Claims;
+import com.wallet.wallet_backend.service.TransactionAggregateService;
+import com.wallet.wallet_backend.service.WalletService;
+import com.wallet.wallet_backend.util.Money;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/dashboard")
@@ -19,30 +21,25 @@ public class DashboardController {
     
     private final UserRepository userRepository;
     private final WalletTransactionRepository transactionRepository;
-    private final QRCodeService qrCodeService;
+    private final WalletService walletService;
+    private final TransactionAggregateService aggregateService;
     
     public DashboardController(UserRepository userRepository, 
                               WalletTransactionRepository transactionRepository,
-                              QRCodeService qrCodeService) {
+                              WalletService walletService,
+                              TransactionAggregateService aggregateService) {
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
-        this.qrCodeService = qrCodeService;
+        this.walletService = walletService;
+        this.aggregateService = aggregateService;
     }
     
     @GetMapping
-    public Map<String, Object> getDashboard(@RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+    public Map<String, Object> getDashboard(AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Generate QR code if not exists
-        if (user.getQrCodeData() == null) {
-            String qrCode = qrCodeService.generateStaticQR(
-                    user.getId(), user.getMobile(), user.getName(), user.getUpiId());
-            user.setQrCodeData(qrCode);
-            userRepository.save(user);
-        }
-        
         Map<String, Object> response = new HashMap<>();
         response.put("user", mapToMap(user));
         response.put("stats", getRealStats(userId));
@@ -52,38 +49,16 @@ public class DashboardController {
         return response;
     }
     
-    // 👇 REAL STATS FROM DATABASE
+    // 👇 REAL STATS FROM PRECOMPUTED AGGREGATES
     private Map<String, Object> getRealStats(Long userId) {
         Map<String, Object> stats = new HashMap<>();
         
-        // Get all transactions for this user
-        List<WalletTransaction> allTxns = transactionRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        
-        // Calculate total received (CREDIT)
-        double totalReceived = allTxns.stream()
-                .filter(t -> "CREDIT".equals(t.getType()))
-                .mapToDouble(WalletTransaction::getAmount)
-                .sum();
-        
-        // Calculate total sent (DEBIT)
-        double totalSent = allTxns.stream()
-                .filter(t -> "DEBIT".equals(t.getType()))
-                .mapToDouble(WalletTransaction::getAmount)
-                .sum();
-        
-        // Total transactions count
-        int totalTransactions = allTxns.size();
+        TransactionAggregateService.Totals totals = aggregateService.getTotals(userId);
         
-        // This month's transactions
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
-        long thisMonthTransactions = allTxns.stream()
-                .filter(t -> t.getCreatedAt().isAfter(startOfMonth))
-                .count();
-        
-        stats.put("totalTransactions", totalTransactions);
-        stats.put("totalReceived", totalReceived);
-        stats.put("totalSent", totalSent);
-        stats.put("thisMonthTransactions", (int) thisMonthTransactions);
+        stats.put("totalTransactions", (int) totals.totalCount());
+        stats.put("totalReceived", Money.rupees(totals.sum("CREDIT")));
+        stats.put("totalSent", Money.rupees(totals.sum("DEBIT")));
+        stats.put("thisMonthTransactions", (int) totals.monthCount());
         
         return stats;
     }
@@ -91,10 +66,8 @@ public class DashboardController {
     // 👇 REAL RECENT TRANSACTIONS FROM DATABASE
     private List<Map<String, Object>> getRealRecentTransactions(Long userId) {
         List<WalletTransaction> recentTxns = transactionRepository
-                .findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .limit(5)  // Last 5 transactions
-                .collect(Collectors.toList());
+                .findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, 5))  // Last 5 transactions
+                .getContent();
         
         List<Map<String, Object>> transactions = new ArrayList<>();
         
@@ -102,7 +75,7 @@ public class DashboardController {
             Map<String, Object> txnMap = new HashMap<>();
             txnMap.put("id", txn.getId());
             txnMap.put("type", txn.getType());
-            txnMap.put("amount", txn.getAmount());
+            txnMap.put("amount", Money.rupees(txn.getAmount()));
             txnMap.put("time", formatTimeAgo(txn.getCreatedAt()));
             
             // Set from/to based on transaction type
@@ -150,21 +123,13 @@ public class DashboardController {
         userMap.put("mobile", user.getMobile());
         userMap.put("name", user.getName());
         userMap.put("email", user.getEmail());
-        userMap.put("walletBalance", user.getWalletBalance());
+        userMap.put("walletBalance", Money.rupees(walletService.getBalance(user.getId())));
         userMap.put("walletFrozen", user.getWalletFrozen());
         userMap.put("kycStatus", user.getKycStatus());
         userMap.put("createdAt", user.getCreatedAt());
         userMap.put("upiId", user.getUpiId());
-        userMap.put("qrCodeData", user.getQrCodeData());
+        // The image is fetched (and HTTP-cached) separately instead of inlined as Base64
+        userMap.put("qrCodeUrl", QRCodeService.staticQrUrl(user.getId()));
         return userMap;
     }
-    
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        Claims claims = JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
 }
\ No newline at end of file
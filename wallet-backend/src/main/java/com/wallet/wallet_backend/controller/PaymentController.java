@@ -3,12 +3,14 @@ package com.wallet.wallet_backend.controller;
 import com.wallet.wallet_backend.dto.PaymentResponseDto;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.UserRepository;
-import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.IdempotencyService;
 import com.wallet.wallet_backend.service.PaymentService;
 import com.wallet.wallet_backend.service.WalletService;
-import io.jsonwebtoken.Claims;
+import com.wallet.wallet_backend.util.Money;
 import lombok.Getter;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonDeserialize;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 
@@ -19,44 +21,49 @@ public class PaymentController {
     private final PaymentService paymentService;
     private final WalletService walletService;
     private final UserRepository userRepository;
+    private final IdempotencyService idempotencyService;
     
     public PaymentController(PaymentService paymentService, WalletService walletService, 
-                           UserRepository userRepository) {
+                           UserRepository userRepository, IdempotencyService idempotencyService) {
         this.paymentService = paymentService;
         this.walletService = walletService;
         this.userRepository = userRepository;
+        this.idempotencyService = idempotencyService;
     }
     
     // Pay by mobile number
     @PostMapping("/by-mobile")
     public PaymentResponseDto payByMobile(@RequestBody PayByMobileRequest request,
-                                         @RequestHeader("Authorization") String authHeader) {
-        Long payerId = extractUserIdFromToken(authHeader);
-        return paymentService.payByMobile(payerId, request.getMobile(), request.getAmount(), 
-                                         request.getReference());
+                                         AuthPrincipal principal,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long payerId = principal.getUserId();
+        return idempotencyService.execute("payment/by-mobile:" + payerId, idempotencyKey, request,
+                PaymentResponseDto.class,
+                () -> paymentService.payByMobile(payerId, request.getMobile(), Money.required(request.getAmount()),
+                                                 request.getReference()));
     }
     
     // Pay by QR code
     @PostMapping("/by-qr")
     public PaymentResponseDto payByQR(@RequestBody PayByQRRequest request,
-                                     @RequestHeader("Authorization") String authHeader) {
-        Long payerId = extractUserIdFromToken(authHeader);
-        return paymentService.payByQR(payerId, request.getQrData(), request.getAmount());
+                                     AuthPrincipal principal) {
+        Long payerId = principal.getUserId();
+        return paymentService.payByQR(payerId, request.getQrData(), Money.required(request.getAmount()));
     }
     
     // Request payment from someone
     @PostMapping("/request")
     public PaymentResponseDto requestPayment(@RequestBody RequestPaymentRequest request,
-                                           @RequestHeader("Authorization") String authHeader) {
-        Long requesterId = extractUserIdFromToken(authHeader);
+                                           AuthPrincipal principal) {
+        Long requesterId = principal.getUserId();
         return paymentService.requestPayment(requesterId, request.getMobile(), 
-                                           request.getAmount(), request.getNote());
+                                           Money.required(request.getAmount()), request.getNote());
     }
     
     // Get payment requests
     @GetMapping("/requests")
-    public Object getPaymentRequests(@RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+    public Object getPaymentRequests(AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         return paymentService.getPaymentRequests(userId);
     }
     
@@ -65,63 +72,74 @@ public class PaymentController {
     public Map<String, String> respondToPaymentRequest(
             @PathVariable Long requestId,
             @RequestBody RespondToRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         paymentService.respondToPaymentRequest(requestId, userId, request.getAction());
         return Map.of("message", "Payment request " + request.getAction().toLowerCase() + "ed");
     }
     
     // Get transaction history
     @GetMapping("/history")
-    public Object getTransactionHistory(@RequestHeader("Authorization") String authHeader,
+    public Object getTransactionHistory(AuthPrincipal principal,
                                        @RequestParam(defaultValue = "0") int page,
                                        @RequestParam(defaultValue = "20") int size) {
-        Long userId = extractUserIdFromToken(authHeader);
+        Long userId = principal.getUserId();
         return paymentService.getTransactionHistory(userId, page, size);
     }
     
     // Add money to wallet (simulate bank transfer)
+    @SuppressWarnings("unchecked")
     @PostMapping("/add-money")
     public Map<String, String> addMoney(@RequestBody AddMoneyRequest request,
-                                       @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
-        walletService.credit(userId, request.getAmount(), "BANK_TRANSFER");
-        return Map.of(
-            "message", "Money added successfully",
-            "newBalance", String.valueOf(getUserBalance(userId))
-        );
+                                       AuthPrincipal principal,
+                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long userId = principal.getUserId();
+        return idempotencyService.execute("payment/add-money:" + userId, idempotencyKey, request, Map.class, () -> {
+            walletService.credit(userId, Money.required(request.getAmount()), "BANK_TRANSFER");
+            return Map.of(
+                "message", "Money added successfully",
+                "newBalance", getUserBalance(userId)
+            );
+        });
     }
     
     // Withdraw money
+    @SuppressWarnings("unchecked")
     @PostMapping("/withdraw")
     public Map<String, String> withdrawMoney(@RequestBody WithdrawRequest request,
-                                           @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
-        walletService.debit(userId, request.getAmount(), "WITHDRAWAL");
-        return Map.of(
-            "message", "Withdrawal initiated successfully",
-            "transactionId", generateTransactionId(),
-            "newBalance", String.valueOf(getUserBalance(userId))
-        );
+                                           AuthPrincipal principal,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long userId = principal.getUserId();
+        return idempotencyService.execute("payment/withdraw:" + userId, idempotencyKey, request, Map.class, () -> {
+            String transactionId = walletService.debit(userId, Money.required(request.getAmount()), "WITHDRAWAL");
+            return Map.of(
+                "message", "Withdrawal initiated successfully",
+                "transactionId", transactionId,
+                "newBalance", getUserBalance(userId)
+            );
+        });
     }
     
     @Getter @Setter
     static class PayByMobileRequest {
         private String mobile;
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
         private String reference;
     }
     
     @Getter @Setter
     static class PayByQRRequest {
         private String qrData;
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
     }
     
     @Getter @Setter
     static class RequestPaymentRequest {
         private String mobile;
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
         private String note;
     }
     
@@ -132,31 +150,18 @@ public class PaymentController {
     
     @Getter @Setter
     static class AddMoneyRequest {
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
     }
     
     @Getter @Setter
     static class WithdrawRequest {
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
         private String bankAccount;
     }
     
-    private Double getUserBalance(Long userId) {
-        return userRepository.findById(userId)
-                .map(User::getWalletBalance)
-                .orElse(0.0);
-    }
-    
-    private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis();
-    }
-    
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        Claims claims = JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
+    private String getUserBalance(Long userId) {
+        return Money.rupees(walletService.getBalance(userId)).toPlainString();
     }
 }
\ No newline at end of file
@@ -2,13 +2,20 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.UserRepository;
-import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.QRCodeService;
-import io.jsonwebtoken.Claims;
+import com.wallet.wallet_backend.util.Money;
 import lombok.Getter;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/qr")
@@ -22,10 +29,10 @@ public class QrCodeController {
         this.userRepository = userRepository;
     }
     
-    // Generate static QR for user (saved in profile)
+    // Generate static QR for user (rendered on demand, not stored)
     @PostMapping("/generate-static")
-    public Map<String, String> generateStaticQR(@RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+    public Map<String, String> generateStaticQR(AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -33,21 +40,48 @@ public class QrCodeController {
         String qrCode = qrCodeService.generateStaticQR(
                 user.getId(), user.getMobile(), user.getName(), user.getUpiId());
         
-        // Save to user profile
-        user.setQrCodeData(qrCode);
-        userRepository.save(user);
-        
         return Map.of(
             "qrCode", qrCode,
+            "qrCodeUrl", QRCodeService.staticQrUrl(userId),
             "message", "QR code generated successfully"
         );
     }
     
+    // Static QR as a raw PNG; clients revalidate with If-None-Match
+    @GetMapping(value = "/{userId}/image", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getStaticQrPng(@PathVariable Long userId,
+                                                 AuthPrincipal principal,
+                                                 WebRequest webRequest) {
+        if (!userId.equals(principal.getUserId()) && !"ADMIN".equals(principal.getRole())) {
+            throw new RuntimeException("Access denied");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        QRCodeService.RenderedQr qr = qrCodeService.renderStaticQR(
+                user.getMobile(), user.getName(), user.getUpiId());
+        CacheControl cacheControl = CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate();
+        
+        // Handles quoted, weak and comma-separated If-None-Match values
+        if (webRequest.checkNotModified(qr.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(qr.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(qr.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.IMAGE_PNG)
+                .body(qr.getPng());
+    }
+
+    
     // Generate dynamic payment QR with amount
     @PostMapping("/generate-payment")
     public Map<String, String> generatePaymentQR(@RequestBody PaymentQRRequest request,
-                                                @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+                                                AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -56,7 +90,7 @@ public class QrCodeController {
         
         return Map.of(
             "qrCode", qrCode,
-            "amount", String.valueOf(request.getAmount()),
+            "amount", String.valueOf(Money.rupees(request.getAmount())),
             "expiry", "300",
             "message", "Payment QR generated"
         );
@@ -65,8 +99,8 @@ public class QrCodeController {
     // Scan and process QR code
     @PostMapping("/scan")
     public Map<String, Object> scanQR(@RequestBody ScanQRRequest request,
-                                     @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+                                     AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         
         // Parse QR data (this would be more complex in real implementation)
         return Map.of(
@@ -82,8 +116,8 @@ public class QrCodeController {
     // Set UPI ID
     @PostMapping("/set-upi")
     public Map<String, String> setUpiId(@RequestBody SetUpiRequest request,
-                                       @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+                                       AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -98,7 +132,8 @@ public class QrCodeController {
     
     @Getter @Setter
     static class PaymentQRRequest {
-        private Double amount;
+        @JsonDeserialize(using = Money.RupeeDeserializer.class)
+        private Long amount;
     }
     
     @Getter @Setter
@@ -110,13 +145,4 @@ public class QrCodeController {
     static class SetUpiRequest {
         private String upiId;
     }
-    
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        Claims claims = JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
 }
\ No newline at end of file
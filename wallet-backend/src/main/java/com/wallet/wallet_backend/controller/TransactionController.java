@@ -2,9 +2,8 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.TransactionDetailDto;
 import com.wallet.wallet_backend.dto.TransactionSummaryDto;
-import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.security.AuthPrincipal;
 import com.wallet.wallet_backend.service.TransactionService;
-import io.jsonwebtoken.Claims;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
@@ -21,19 +20,20 @@ public class TransactionController {
     
     /**
      * Get transaction history for the logged-in user
-     * Supports pagination and filtering
+     * Supports cursor pagination (nextCursor) and filtering
      */
     @GetMapping("/history")
     public Map<String, Object> getUserTransactions(
-            @RequestHeader("Authorization") String authHeader,
+            AuthPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate) {
-        
-        Long userId = extractUserIdFromToken(authHeader);
-        return transactionService.getUserTransactions(userId, page, size, type, fromDate, toDate);
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String cursor) {
+
+        Long userId = principal.getUserId();
+        return transactionService.getUserTransactions(userId, page, size, type, fromDate, toDate, cursor);
     }
     
     /**
@@ -42,9 +42,9 @@ public class TransactionController {
     @GetMapping("/{transactionId}")
     public TransactionDetailDto getTransactionDetails(
             @PathVariable String transactionId,
-            @RequestHeader("Authorization") String authHeader) {
+            AuthPrincipal principal) {
         
-        Long userId = extractUserIdFromToken(authHeader);
+        Long userId = principal.getUserId();
         return transactionService.getTransactionDetails(transactionId, userId);
     }
     
@@ -53,9 +53,9 @@ public class TransactionController {
      */
     @GetMapping("/stats")
     public Map<String, Object> getTransactionStats(
-            @RequestHeader("Authorization") String authHeader) {
+            AuthPrincipal principal) {
         
-        Long userId = extractUserIdFromToken(authHeader);
+        Long userId = principal.getUserId();
         return transactionService.getTransactionStats(userId);
     }
     
@@ -64,21 +64,12 @@ public class TransactionController {
      */
     @GetMapping("/search")
     public List<TransactionSummaryDto> searchTransactions(
-            @RequestHeader("Authorization") String authHeader,
+            AuthPrincipal principal,
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        Long userId = extractUserIdFromToken(authHeader);
+        Long userId = principal.getUserId();
         return transactionService.searchTransactions(userId, keyword, page, size);
     }
-    
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        Claims claims = JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
 }
\ No newline at end of file
@@ -3,10 +3,9 @@ package com.wallet.wallet_backend.controller;
 import com.wallet.wallet_backend.dto.*;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.UserRepository;
-import com.wallet.wallet_backend.security.JwtUtil;
+import com.wallet.wallet_backend.security.AuthPrincipal;
+import com.wallet.wallet_backend.service.MpinHashService;
 import com.wallet.wallet_backend.service.UserService;
-import io.jsonwebtoken.Claims;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -16,14 +15,14 @@ import java.util.Optional;
 public class UserController {
     private final UserService userService;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final MpinHashService mpinHashService;
     
     public UserController(UserService userService, 
                          UserRepository userRepository,
-                         PasswordEncoder passwordEncoder) {
+                         MpinHashService mpinHashService) {
         this.userService = userService;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.mpinHashService = mpinHashService;
     }
     
     // 1. Send OTP
@@ -68,25 +67,19 @@ public class UserController {
         return userService.loginWithMpin(request.getMobile(), request.getMpin());
     }
     
-    // 8. Get permanent token (for testing)
-    @GetMapping("/permanent-token")
-    public String getPermanentToken(@RequestParam Long userId) {
-        return userService.getPermanentToken(userId);
-    }
-    
     // 9. Edit Profile
     @PutMapping("/profile")
     public UserResponseDto updateProfile(@RequestBody UpdateProfileRequestDto request,
-                                        @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+                                        AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         return userService.updateProfile(userId, request);
     }
     
     // 10. Change MPIN
     @PostMapping("/change-mpin")
     public String changeMpin(@RequestBody ChangeMpinRequestDto request,
-                            @RequestHeader("Authorization") String authHeader) {
-        Long userId = extractUserIdFromToken(authHeader);
+                            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         return userService.changeMpin(userId, request.getOldMpin(), request.getNewMpin());
     }
     
@@ -114,18 +107,14 @@ public class UserController {
         User admin = new User();
         admin.setMobile(request.getMobile());
         admin.setName(request.getName());
-        admin.setMpinHash(passwordEncoder.encode(request.getMpin()));
-        admin.setWalletBalance(0.0);
+        admin.setMpinHash(mpinHashService.encode(request.getMpin()));
+        admin.setWalletBalance(0L);
         admin.setWalletFrozen(false);
         admin.setKycStatus("APPROVED");
         admin.setRole("ADMIN");
         admin.setStep("DASHBOARD");
         admin.setCreatedAt(LocalDateTime.now());
         
-        String permanentToken = "ADMIN_PERM_" + System.currentTimeMillis();
-        admin.setPermanentToken(permanentToken);
-        admin.setPermanentTokenExpiry(LocalDateTime.now().plusDays(30));
-        
         admin = userRepository.save(admin);
         
         UserResponseDto dto = new UserResponseDto();
@@ -135,14 +124,4 @@ public class UserController {
         dto.setStep(admin.getStep());
         return dto;
     }
-    
-    // Helper method to extract user ID from token
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid token");
-        }
-        String token = authHeader.substring(7);
-        Claims claims = JwtUtil.validateToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
 }
\ No newline at end of file
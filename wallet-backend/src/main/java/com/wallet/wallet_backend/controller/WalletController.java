@@ -2,33 +2,56 @@ package com.wallet.wallet_backend.controller;
 
 import com.wallet.wallet_backend.dto.WalletRequestDto;
 import com.wallet.wallet_backend.dto.WalletTransactionResponseDto;
+import com.wallet.wallet_backend.service.IdempotencyService;
 import com.wallet.wallet_backend.service.WalletService;
+import com.wallet.wallet_backend.util.Money;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/wallet")
 public class WalletController {
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
 
-    public WalletController(WalletService walletService) {
+    public WalletController(WalletService walletService, IdempotencyService idempotencyService) {
         this.walletService = walletService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/credit")
-    public String credit(@RequestBody WalletRequestDto request) {
-        walletService.credit(request.getUserId(), request.getAmount(), request.getReference());
-        return "Wallet credited successfully";
+    public String credit(@RequestBody WalletRequestDto request,
+                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("wallet/credit:" + request.getUserId(), idempotencyKey, request,
+                String.class, () -> {
+                    walletService.credit(request.getUserId(), Money.required(request.getAmount()), request.getReference());
+                    return "Wallet credited successfully";
+                });
     }
 
     @PostMapping("/debit")
-    public String debit(@RequestBody WalletRequestDto request) {
-        walletService.debit(request.getUserId(), request.getAmount(), request.getReference());
-        return "Wallet debited successfully";
+    public String debit(@RequestBody WalletRequestDto request,
+                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("wallet/debit:" + request.getUserId(), idempotencyKey, request,
+                String.class, () -> {
+                    walletService.debit(request.getUserId(), Money.required(request.getAmount()), request.getReference());
+                    return "Wallet debited successfully";
+                });
     }
 
     @GetMapping("/statement")
-    public List<WalletTransactionResponseDto> statement(@RequestParam Long userId) {
-        return walletService.getStatement(userId);
+    public List<WalletTransactionResponseDto> statement(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return walletService.getStatement(userId, month, from, to);
+    }
+
+    @GetMapping("/statement/months")
+    public List<String> statementMonths(@RequestParam Long userId) {
+        return walletService.getStatementMonths(userId);
     }
 }
\ No newline at end of file
@@ -14,4 +14,5 @@ public class AdminDashboardDto {
     private List<Map<String, Object>> chartData;
     private Map<String, Object> performanceMetrics;
     private List<Map<String, String>> quickActions;
+    private Map<String, Long> sectionTimings;  // ms per dashboard section, plus "total"
 }
\ No newline at end of file
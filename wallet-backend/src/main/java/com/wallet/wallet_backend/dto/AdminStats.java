@@ -1,7 +1,10 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
+
 import java.util.List;
 import java.util.Map;
 
@@ -12,8 +15,10 @@ public class AdminStats {
     private Long totalUsers;
     private Long pendingKyc;
     private Long activeWallets;
-    private Double totalBalance;
-    private Double totalVolume;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long totalBalance;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long totalVolume;
     private Long totalTransactions;
     
     // Trends
@@ -24,7 +29,11 @@ public class AdminStats {
     
     // Chart data
     private List<Long> userGrowthData;
-    private List<Double> transactionVolumeData;
-    private Map<String, Double> revenueDistribution;
+    @JsonSerialize(contentUsing = Money.RupeeSerializer.class)
+    private List<Long> transactionVolumeData;
+    @JsonSerialize(contentUsing = Money.RupeeSerializer.class)
+    private Map<String, Long> revenueDistribution;
+    // Percentages: transaction success, KYC completion, user retention, API success
     private List<Double> performanceMetrics;
+    private ApiLatencyDto apiLatency;
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -19,10 +21,13 @@ public class AdminUserDetailDto {
     private String nationality;
     private String address;
     private LocalDateTime joinDate;
-    private Double walletBalance;
-    private Double frozenFunds;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long walletBalance;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long frozenFunds;
     private Boolean isFrozen;
-    private Double pendingCredits;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long pendingCredits;
     private String kycStatus;
     private List<Map<String, Object>> kycDocuments;
     private List<Map<String, Object>> recentActivities;
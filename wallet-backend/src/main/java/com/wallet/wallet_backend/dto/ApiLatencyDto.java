@@ -0,0 +1,18 @@
+package com.wallet.wallet_backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+// API traffic over the last windowMinutes, from EndpointMetrics; latencies in milliseconds
+@Data
+@Builder
+public class ApiLatencyDto {
+    private int windowMinutes;
+    private long requests;
+    private double errorRate;  // % of requests answered with a 5xx
+    private double avgMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+}
@@ -0,0 +1,27 @@
+package com.wallet.wallet_backend.dto;
+
+import com.wallet.wallet_backend.util.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import tools.jackson.databind.annotation.JsonSerialize;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRequestResponseDto {
+    private Long id;
+    private Long requesterId;
+    private Long targetId;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long amount;
+    private String note;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
@@ -1,18 +1,27 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PaymentResponseDto {
     private Boolean success;
     private String transactionId;
     private Long requestId;
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    @JsonDeserialize(using = Money.RupeeDeserializer.class)
+    private Long amount;
     private String payerName;
     private String payeeName;
     private String message;
@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Data
@@ -12,7 +14,8 @@ public class TransactionAdminDto {
     private String userName;
     private String userAvatar;
     private String type;
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long amount;
     private String status;
     private LocalDateTime date;
     private String paymentMethod;
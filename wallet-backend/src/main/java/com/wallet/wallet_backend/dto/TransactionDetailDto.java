@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Data
@@ -9,7 +11,8 @@ import java.time.LocalDateTime;
 public class TransactionDetailDto {
     private String transactionId;
     private String type;           // CREDIT, DEBIT, TRANSFER
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long amount;
     private String status;          // COMPLETED, PENDING, FAILED
     private String reference;
     private String description;
@@ -23,7 +26,8 @@ public class TransactionDetailDto {
     private String paymentMethod;
     private String category;
     private String note;
-    private Double balanceAfter;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long balanceAfter;
     
     // Additional info
     private String ipAddress;
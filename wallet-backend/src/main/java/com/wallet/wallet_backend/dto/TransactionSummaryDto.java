@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -10,7 +12,8 @@ import java.time.format.DateTimeFormatter;
 public class TransactionSummaryDto {
     private String id;              // Transaction ID
     private String type;             // CREDIT, DEBIT
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long amount;
     private String counterparty;     // Who sent/received
     private String description;      // Description/note
     private LocalDateTime date;
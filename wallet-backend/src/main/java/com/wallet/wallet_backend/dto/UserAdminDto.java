@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Data
@@ -13,7 +15,8 @@ public class UserAdminDto {
     private String mobile;
     private String status;
     private String kycStatus;
-    private Double walletBalance;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long walletBalance;
     private String walletType;
     private String profilePicture;
     private String riskLevel;
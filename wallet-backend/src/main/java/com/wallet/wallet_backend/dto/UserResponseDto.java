@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Getter;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Getter
@@ -11,11 +13,12 @@ public class UserResponseDto {
     private String mobile;
     private String name;
     private String email;
-    private Double walletBalance;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long walletBalance;
     private Boolean walletFrozen;
     private String kycStatus;
     private LocalDateTime createdAt;
     private String step;
     private String upiId;
-    private String qrCodeData;
+    private String qrCodeUrl;
 }
\ No newline at end of file
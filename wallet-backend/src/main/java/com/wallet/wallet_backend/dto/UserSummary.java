@@ -0,0 +1,16 @@
+package com.wallet.wallet_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The user fields admin listings show next to a row (name, email, avatar).
+ */
+@Getter
+@AllArgsConstructor
+public class UserSummary {
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String profilePicture;
+}
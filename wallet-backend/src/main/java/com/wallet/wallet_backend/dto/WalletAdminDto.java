@@ -1,7 +1,9 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Builder;
 import lombok.Data;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Data
@@ -9,7 +11,8 @@ import java.time.LocalDateTime;
 public class WalletAdminDto {
     private Long id;
     private String name;
-    private Double balance;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long balance;
     private String status;
     private Boolean frozen;
     private LocalDateTime lastActive;
@@ -1,12 +1,17 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Getter;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
 
 @Getter
 @Setter
 public class WalletRequestDto {
     private Long userId;
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    @JsonDeserialize(using = Money.RupeeDeserializer.class)
+    private Long amount;
     private String reference;
 }
\ No newline at end of file
@@ -1,14 +1,17 @@
 package com.wallet.wallet_backend.dto;
 
+import com.wallet.wallet_backend.util.Money;
 import lombok.Getter;
 import lombok.Setter;
+import tools.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 @Getter
 @Setter
 public class WalletTransactionResponseDto {
     private Long id;
-    private Double amount;
+    @JsonSerialize(using = Money.RupeeSerializer.class)
+    private Long amount;
     private String type;
     private String reference;
     private LocalDateTime createdAt;
@@ -0,0 +1,51 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A login-flow or device session, kept apart from the users row so that OTP sends and
+ * step transitions never update or lock it. tokenHash is the SHA-256 of the token handed
+ * to the client; raw tokens and OTPs are never stored.
+ */
+@Entity
+@Table(name = "auth_sessions", indexes = {
+        @Index(name = "idx_auth_session_expires", columnList = "expires_at"),
+        @Index(name = "idx_auth_session_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "kind", nullable = false, length = 16) // TEMP, PERMANENT, FORGOT_MPIN
+    private String kind;
+
+    @Column(name = "step", length = 20) // VERIFY_OTP, REGISTER, SET_MPIN, VERIFY_MPIN
+    private String step;
+
+    @Column(name = "mobile", nullable = false, length = 15)
+    private String mobile;
+
+    // Null until the mobile belongs to a registered user
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "otp_hash", length = 64)
+    private String otpHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Last journal sequence the balance ledger has flushed to MySQL.
+ * Written by BalanceLedger in the same transaction as each flushed batch.
+ */
+@Entity
+@Table(name = "ledger_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
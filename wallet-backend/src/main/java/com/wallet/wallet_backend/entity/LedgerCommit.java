@@ -0,0 +1,26 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Commit marker for ledger postings journaled inside a database transaction.
+ * Inserted by BalanceLedger in that same transaction, so it exists exactly when the
+ * transaction committed; startup replay only applies pending postings it covers.
+ * Rows are deleted once the flusher has written their postings.
+ */
+@Entity
+@Table(name = "ledger_commit")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCommit {
+
+    @Id
+    @Column(name = "first_seq")
+    private Long firstSeq;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
@@ -0,0 +1,45 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One pre-aggregated bucket. granularity is HOUR or DAY; metric is TXN, TXN_TYPE,
+ * TXN_STATUS, NEW_USERS or KYC_SUBMITTED; dimension holds the type/status for the
+ * split metrics and is empty otherwise. Maintained by MetricRollupService.
+ */
+@Entity
+@Table(name = "metric_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_metric_rollup",
+                columnNames = {"granularity", "metric", "dimension", "bucket_start"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "granularity", nullable = false, length = 8)
+    private String granularity;
+
+    @Column(name = "metric", nullable = false, length = 32)
+    private String metric;
+
+    @Column(name = "dimension", nullable = false, length = 32)
+    private String dimension;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+
+    // Paise
+    @Column(name = "total_amount", nullable = false)
+    private Long totalAmount;
+}
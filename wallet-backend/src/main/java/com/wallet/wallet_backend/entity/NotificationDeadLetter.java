@@ -0,0 +1,51 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A notification that could not be delivered: retries exhausted, no provider for its
+ * channel, queue overflow, or still pending at shutdown.
+ */
+@Entity
+@Table(name = "notification_dead_letters", indexes = {
+        @Index(name = "idx_notification_dl_failed", columnList = "failed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", length = 40)
+    private String type;
+
+    @Column(name = "channel", nullable = false, length = 16)
+    private String channel;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "recipient")
+    private String recipient;
+
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    @Column(name = "attempts")
+    private Integer attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
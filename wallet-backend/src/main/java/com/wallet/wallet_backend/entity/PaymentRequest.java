@@ -23,8 +23,9 @@ public class PaymentRequest {
     @Column(name = "target_id")
     private Long targetId;
     
+    // Paise; see Money
     @Column(nullable = false)
-    private Double amount;
+    private long amount;
     
     private String note;
     
@@ -1,11 +1,14 @@
 package com.wallet.wallet_backend.entity;
 
+import com.wallet.wallet_backend.util.TransactionIds;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "main_transactions")
+@Table(name = "main_transactions", indexes = {
+        @Index(name = "idx_main_txn_user_created", columnList = "user_id, created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,11 +31,12 @@ public class Transaction {
     @Column(name = "type") // DEPOSIT, WITHDRAWAL, TRANSFER, CREDIT, DEBIT
     private String type;
 
+    // Paise; see Money
     @Column(nullable = false)
-    private Double amount;
+    private long amount;
 
     @Column(name = "balance_after")
-    private Double balanceAfter;
+    private Long balanceAfter;
 
     @Column(name = "status") // COMPLETED, PENDING, FAILED
     private String status;
@@ -61,7 +65,7 @@ public class Transaction {
             status = "COMPLETED";
         }
         if (transactionId == null) {
-            transactionId = "TXN" + System.currentTimeMillis() + (int)(Math.random() * 1000);
+            transactionId = TransactionIds.next(TransactionIds.PAYMENT);
         }
     }
 }
\ No newline at end of file
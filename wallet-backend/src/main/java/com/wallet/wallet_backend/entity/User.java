@@ -1,11 +1,15 @@
 package com.wallet.wallet_backend.entity;
 
+import com.wallet.wallet_backend.service.SpendLimitListener;
+import com.wallet.wallet_backend.service.UserSearchIndexListener;
+import com.wallet.wallet_backend.service.UserSummaryCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners({UserSearchIndexListener.class, UserSummaryCacheListener.class, SpendLimitListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,8 +33,9 @@ public class User {
     @Column(name = "mpin_hash")
     private String mpinHash;
 
-    @Column(name = "wallet_balance")
-    private Double walletBalance = 0.0;
+    // Paise, like every amount column; see Money
+    @Column(name = "wallet_balance", nullable = false)
+    private long walletBalance;
 
 @Column(name = "wallet_frozen")
     private Boolean walletFrozen = false;
@@ -48,33 +53,12 @@ public class User {
     @Column(name = "role")
     private String role = "USER";
 
-    @Column(name = "otp")
-    private String otp;
-
-    @Column(name = "otp_expiry")
-    private LocalDateTime otpExpiry;
-
     @Column(name = "step")
     private String step = "SIGNUP";
 
-    @Column(name = "temp_token")
-    private String tempToken;
-
-    @Column(name = "token_expiry")
-    private LocalDateTime tokenExpiry;
-
-    @Column(name = "permanent_token")
-    private String permanentToken;
-
-    @Column(name = "permanent_token_expiry")
-    private LocalDateTime permanentTokenExpiry;
-
     @Column(name = "upi_id")
     private String upiId;
 
-    @Column(name = "qr_code_data", length = 5000)
-    private String qrCodeData;
-
     @Column(name = "last_active")
     private LocalDateTime lastActive;
 
@@ -98,9 +82,6 @@ public class User {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
-        if (walletBalance == null) {
-            walletBalance = 0.0;
-        }
         if (walletFrozen == null) {
             walletFrozen = false;
         }
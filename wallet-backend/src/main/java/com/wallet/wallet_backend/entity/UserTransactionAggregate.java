@@ -0,0 +1,39 @@
+package com.wallet.wallet_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running per-user totals by transaction type. periodKey is "ALL" for lifetime
+ * totals or "yyyy-MM" for a calendar month.
+ */
+@Entity
+@Table(name = "user_txn_aggregates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_txn_agg", columnNames = {"user_id", "period_key", "type"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTransactionAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "period_key", nullable = false, length = 7)
+    private String periodKey;
+
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    // Paise
+    @Column(name = "total_amount", nullable = false)
+    private Long totalAmount;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount;
+}
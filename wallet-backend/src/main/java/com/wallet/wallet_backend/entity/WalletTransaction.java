@@ -1,11 +1,14 @@
 package com.wallet.wallet_backend.entity;
 
+import com.wallet.wallet_backend.util.TransactionIds;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "main_transactions")
+@Table(name = "main_transactions", indexes = {
+        @Index(name = "idx_main_txn_transfer", columnList = "transfer_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,17 +23,26 @@ public class WalletTransaction {
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
+    // WLT ids; postings written before generated ids have none and are addressed as "WLT" + id
+    @Column(name = "transaction_id", updatable = false)
+    private String transactionId;
+
+    // Paise; see Money
     @Column(nullable = false)
-    private Double amount;
+    private long amount;
 
-    @Column(name = "balance_after")  // ADD THIS FIELD
-    private Double balanceAfter;
+    @Column(name = "balance_after")
+    private Long balanceAfter;
 
     @Column(nullable = false)
     private String type;
 
     private String reference;
 
+    // Shared by the debit and credit legs of a wallet-to-wallet transfer
+    @Column(name = "transfer_id", length = 40)
+    private String transferId;
+
     @Column(name = "status")
     private String status = "COMPLETED";
 
@@ -38,11 +50,12 @@ public class WalletTransaction {
     private LocalDateTime createdAt;
 
     @Builder
-    public WalletTransaction(Long userId, Double amount, String type, String reference) {
+    public WalletTransaction(Long userId, long amount, String type, String reference) {
         this.userId = userId;
         this.amount = amount;
         this.type = type;
         this.reference = reference;
+        this.transactionId = TransactionIds.next(TransactionIds.WALLET);
         this.status = "COMPLETED";
         this.createdAt = LocalDateTime.now();
         // balanceAfter will be set separately
@@ -56,5 +69,8 @@ public class WalletTransaction {
         if (status == null) {
             status = "COMPLETED";
         }
+        if (transactionId == null) {
+            transactionId = TransactionIds.next(TransactionIds.WALLET);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.wallet.wallet_backend.exception;
+
+// Idempotency-Key reused for a different request, or its first request is still running
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.wallet.wallet_backend.exception;
+
+// A pagination cursor that was not issued by this server or has been tampered with
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
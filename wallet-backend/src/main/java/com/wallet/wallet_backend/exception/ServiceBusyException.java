@@ -0,0 +1,8 @@
+package com.wallet.wallet_backend.exception;
+
+// A bounded worker pool is saturated; the client should back off and retry
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
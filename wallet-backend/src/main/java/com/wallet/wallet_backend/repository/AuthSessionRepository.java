@@ -0,0 +1,26 @@
+package com.wallet.wallet_backend.repository;
+
+import com.wallet.wallet_backend.entity.AuthSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface AuthSessionRepository extends JpaRepository<AuthSession, Long> {
+
+    Optional<AuthSession> findByTokenHash(String tokenHash);
+
+    // Returns 0 when another request (or node) already consumed the session
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AuthSession s WHERE s.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AuthSession s WHERE s.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.wallet.wallet_backend.repository;
+
+import com.wallet.wallet_backend.entity.MetricRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MetricRollupRepository extends JpaRepository<MetricRollup, Long> {
+
+    List<MetricRollup> findByGranularityAndMetricAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            String granularity, String metric, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM MetricRollup r " +
+           "WHERE r.granularity = 'DAY' AND r.metric = :metric AND r.dimension = ''")
+    Long sumAllTimeCount(@Param("metric") String metric);
+}
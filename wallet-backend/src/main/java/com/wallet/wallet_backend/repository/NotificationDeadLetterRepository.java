@@ -0,0 +1,7 @@
+package com.wallet.wallet_backend.repository;
+
+import com.wallet.wallet_backend.entity.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+}
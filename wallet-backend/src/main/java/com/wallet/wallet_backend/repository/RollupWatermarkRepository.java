@@ -0,0 +1,7 @@
+package com.wallet.wallet_backend.repository;
+
+import com.wallet.wallet_backend.entity.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+}
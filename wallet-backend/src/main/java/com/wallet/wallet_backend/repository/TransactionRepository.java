@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -15,6 +17,22 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
        Optional<Transaction> findByTransactionId(String transactionId);
 
+       // One query for a list of ids (e.g. a search index page), returned in the given order
+       default List<Transaction> findAllByIdInOrder(List<Long> ids) {
+              Map<Long, Transaction> byId = new HashMap<>();
+              for (Transaction transaction : findAllById(ids)) {
+                     byId.put(transaction.getId(), transaction);
+              }
+              List<Transaction> transactions = new ArrayList<>(ids.size());
+              for (Long id : ids) {
+                     Transaction transaction = byId.get(id);
+                     if (transaction != null) {
+                            transactions.add(transaction);
+                     }
+              }
+              return transactions;
+       }
+
        // ============ DONO METHODS ADD KARO ============
 
        // 1. Paginated version (with Pageable)
@@ -26,11 +44,27 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
        // 3. With type filter
        Page<Transaction> findByUserIdAndType(Long userId, String type, Pageable pageable);
 
+       // Keyset slice for history: rows strictly older than (cursorAt, cursorId), newest first
+       @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.transactionId NOT LIKE 'WLT%' AND " +
+                     "(:type IS NULL OR (:type = 'CREDIT' AND t.type IN ('CREDIT', 'DEPOSIT')) OR " +
+                     "(:type = 'DEBIT' AND t.type NOT IN ('CREDIT', 'DEPOSIT'))) AND " +
+                     "(:fromDate IS NULL OR t.createdAt >= :fromDate) AND " +
+                     "(:toDate IS NULL OR t.createdAt <= :toDate) AND " +
+                     "(:cursorAt IS NULL OR t.createdAt < :cursorAt OR (t.createdAt = :cursorAt AND t.id < :cursorId)) " +
+                     "ORDER BY t.createdAt DESC, t.id DESC")
+       List<Transaction> findHistorySlice(@Param("userId") Long userId,
+                     @Param("type") String type,
+                     @Param("fromDate") LocalDateTime fromDate,
+                     @Param("toDate") LocalDateTime toDate,
+                     @Param("cursorAt") LocalDateTime cursorAt,
+                     @Param("cursorId") Long cursorId,
+                     Pageable limit);
+
        @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId AND t.type = :type")
-       Double sumAmountByUserIdAndType(@Param("userId") Long userId, @Param("type") String type);
+       Long sumAmountByUserIdAndType(@Param("userId") Long userId, @Param("type") String type);
 
        @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId AND t.type = :type AND t.createdAt >= :date")
-       Double sumAmountByUserIdAndTypeAndDateAfter(@Param("userId") Long userId,
+       Long sumAmountByUserIdAndTypeAndDateAfter(@Param("userId") Long userId,
                      @Param("type") String type,
                      @Param("date") LocalDateTime date);
 
@@ -61,7 +95,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
        Long countByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
        @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.createdAt BETWEEN :start AND :end")
-       Double sumAmountByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+       Long sumAmountByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
        @Query(value = "SELECT DATE(t.created_at) as date, COUNT(t.id) as count, SUM(t.amount) as volume FROM main_transactions t WHERE t.created_at >= :since GROUP BY DATE(t.created_at)", nativeQuery = true)
        List<Map<String, Object>> getTransactionTrends(@Param("since") LocalDateTime since);
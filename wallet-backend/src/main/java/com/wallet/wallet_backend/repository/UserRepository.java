@@ -1,5 +1,6 @@
 package com.wallet.wallet_backend.repository;
 
+import com.wallet.wallet_backend.dto.UserSummary;
 import com.wallet.wallet_backend.entity.User;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
@@ -9,24 +10,48 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByMobile(String mobile);
     
-    @Query("SELECT u FROM User u WHERE u.tempToken = :tempToken")
-    Optional<User> findByTempToken(@Param("tempToken") String tempToken);
-    
-    @Query("SELECT u FROM User u WHERE u.permanentToken = :permanentToken")
-    Optional<User> findByPermanentToken(@Param("permanentToken") String permanentToken);
-    
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT u FROM User u WHERE u.id = :id")
     Optional<User> findByIdForUpdate(@Param("id") Long id);
     
+    // Rows are locked in primary-key order, so concurrent callers never wait on each other in a cycle
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
     Optional<User> findByEmail(String email);
     
+    // Display fields only; the MPIN hash and profile details are never read
+    @Query("SELECT new com.wallet.wallet_backend.dto.UserSummary(u.id, u.name, u.email, u.profilePicture) " +
+           "FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // One query for a list of ids (e.g. a search index page), returned in the given order
+    default List<User> findAllByIdInOrder(List<Long> ids) {
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : findAllById(ids)) {
+            byId.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+    
     // Admin methods
     @Query("SELECT u FROM User u WHERE " +
            "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -47,10 +72,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Long countByWalletFrozenTrue();
     
     @Query("SELECT SUM(u.walletBalance) FROM User u")
-    Double sumWalletBalance();
+    Long sumWalletBalance();
     
     @Query("SELECT SUM(u.walletBalance) FROM User u WHERE u.createdAt < :date")
-    Double sumWalletBalanceByCreatedAtBefore(@Param("date") LocalDateTime date);
+    Long sumWalletBalanceByCreatedAtBefore(@Param("date") LocalDateTime date);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt < :date")
     Long countByCreatedAtBefore(@Param("date") LocalDateTime date);
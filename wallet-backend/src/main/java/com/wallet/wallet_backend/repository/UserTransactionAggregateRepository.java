@@ -0,0 +1,30 @@
+package com.wallet.wallet_backend.repository;
+
+import com.wallet.wallet_backend.entity.UserTransactionAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserTransactionAggregateRepository extends JpaRepository<UserTransactionAggregate, Long> {
+
+    List<UserTransactionAggregate> findByUserIdAndPeriodKeyIn(Long userId, Collection<String> periodKeys);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_txn_aggregates", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO user_txn_aggregates (user_id, period_key, type, total_amount, txn_count) " +
+                   "SELECT t.user_id, 'ALL', t.type, COALESCE(SUM(t.amount), 0), COUNT(*) " +
+                   "FROM main_transactions t GROUP BY t.user_id, t.type", nativeQuery = true)
+    int backfillLifetime();
+
+    @Modifying
+    @Query(value = "INSERT INTO user_txn_aggregates (user_id, period_key, type, total_amount, txn_count) " +
+                   "SELECT t.user_id, DATE_FORMAT(t.created_at, '%Y-%m'), t.type, COALESCE(SUM(t.amount), 0), COUNT(*) " +
+                   "FROM main_transactions t GROUP BY t.user_id, DATE_FORMAT(t.created_at, '%Y-%m'), t.type",
+           nativeQuery = true)
+    int backfillMonthly();
+}
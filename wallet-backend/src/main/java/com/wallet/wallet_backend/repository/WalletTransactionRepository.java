@@ -1,6 +1,7 @@
 package com.wallet.wallet_backend.repository;
 
 import com.wallet.wallet_backend.entity.WalletTransaction;
+import com.wallet.wallet_backend.util.TransactionIds;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,16 +21,39 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     // ✅ PAGINATED VERSION - Page return karega
     Page<WalletTransaction> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
+    // Keyset slice for history: wallet postings strictly older than (cursorAt, cursorId), newest first
+    @Query("SELECT w FROM WalletTransaction w WHERE w.userId = :userId AND (w.transactionId IS NULL OR w.transactionId LIKE 'WLT%') AND " +
+           "(:type IS NULL OR (:type = 'CREDIT' AND w.type IN ('CREDIT', 'DEPOSIT')) OR " +
+           "(:type = 'DEBIT' AND w.type NOT IN ('CREDIT', 'DEPOSIT'))) AND " +
+           "(:fromDate IS NULL OR w.createdAt >= :fromDate) AND " +
+           "(:toDate IS NULL OR w.createdAt <= :toDate) AND " +
+           "(:cursorAt IS NULL OR w.createdAt < :cursorAt OR (w.createdAt = :cursorAt AND w.id < :cursorId)) " +
+           "ORDER BY w.createdAt DESC, w.id DESC")
+    List<WalletTransaction> findHistorySlice(@Param("userId") Long userId,
+                                             @Param("type") String type,
+                                             @Param("fromDate") LocalDateTime fromDate,
+                                             @Param("toDate") LocalDateTime toDate,
+                                             @Param("cursorAt") LocalDateTime cursorAt,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable limit);
+    
     // ✅ SIMPLE VERSION - All transactions sorted
     List<WalletTransaction> findAllByOrderByCreatedAtDesc();
     
     // ✅ PAGINATED VERSION - All transactions with pagination
     Page<WalletTransaction> findAllByOrderByCreatedAtDesc(Pageable pageable);
     
+    @Query("SELECT w FROM WalletTransaction w WHERE w.transactionId = :transactionId")
+    Optional<WalletTransaction> findByGeneratedId(@Param("transactionId") String transactionId);
+    
+    // Generated WLT ids hit the unique transaction_id index; older postings are "WLT" + row id
     default Optional<WalletTransaction> findByTransactionId(String transactionId) {
-        if (transactionId == null || !transactionId.startsWith("WLT")) {
+        if (!TransactionIds.WALLET.equals(TransactionIds.typeOf(transactionId))) {
             return Optional.empty();
         }
+        if (TransactionIds.isGenerated(transactionId)) {
+            return findByGeneratedId(transactionId);
+        }
         try {
             Long id = Long.parseLong(transactionId.substring(3));
             return findById(id);
@@ -38,11 +62,14 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
         }
     }
     
+    // The caller's leg of a transfer; both legs share the TRF transfer id
+    Optional<WalletTransaction> findByTransferIdAndUserId(String transferId, Long userId);
+    
     @Query("SELECT SUM(w.amount) FROM WalletTransaction w WHERE w.createdAt BETWEEN :start AND :end")
-    Double sumAmountByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    Long sumAmountByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
     @Query("SELECT SUM(w.amount) FROM WalletTransaction w WHERE w.createdAt BETWEEN :start AND :end AND w.type = :type")
-    Double sumAmountByDateRangeAndType(@Param("start") LocalDateTime start, 
+    Long sumAmountByDateRangeAndType(@Param("start") LocalDateTime start, 
                                       @Param("end") LocalDateTime end,
                                       @Param("type") String type);
     
@@ -0,0 +1,21 @@
+package com.wallet.wallet_backend.security;
+
+/**
+ * Caller identity taken from a verified JWT. Declare it as a controller method
+ * parameter to receive the current user without re-parsing the token.
+ */
+public final class AuthPrincipal {
+
+    public static final String REQUEST_ATTRIBUTE = AuthPrincipal.class.getName();
+
+    private final Long userId;
+    private final String role;
+
+    public AuthPrincipal(Long userId, String role) {
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getRole() { return role; }
+}
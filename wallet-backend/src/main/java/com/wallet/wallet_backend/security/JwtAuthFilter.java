@@ -1,6 +1,5 @@
 package com.wallet.wallet_backend.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,6 +16,12 @@ import java.util.List;
 @Component  // ← YEH ANNOTATION ADD KARO
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private final TokenVerifier tokenVerifier;
+
+    public JwtAuthFilter(TokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                    HttpServletResponse response,
@@ -28,19 +33,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7).trim();
             try {
-                Claims claims = JwtUtil.validateToken(token);
-
-                String userId = claims.getSubject();
-                String role = (String) claims.get("role");
+                AuthPrincipal principal = tokenVerifier.verify(token);
 
                 UsernamePasswordAuthenticationToken auth =
                         new UsernamePasswordAuthenticationToken(
-                                userId,
+                                String.valueOf(principal.getUserId()),
                                 null,
-                                List.of(new SimpleGrantedAuthority(role))
+                                List.of(new SimpleGrantedAuthority(principal.getRole()))
                         );
 
                 SecurityContextHolder.getContext().setAuthentication(auth);
+                // Controllers pick this up through AuthPrincipalArgumentResolver
+                request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
 
             } catch (Exception e) {
                 SecurityContextHolder.clearContext();
@@ -1,6 +1,7 @@
 package com.wallet.wallet_backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -12,6 +13,8 @@ public class JwtUtil {
     private static final String SECRET = "wallet_super_secret_key_1234567890123456";
     private static final Key KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
     private static final long EXPIRY = 1000 * 60 * 60 * 24;
+    // Parsers are immutable and thread-safe; build once instead of per call
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(KEY).build();
     
     public static String generateToken(Long userId, String role) {
         return Jwts.builder()
@@ -24,10 +27,6 @@ public class JwtUtil {
     }
     
     public static Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return PARSER.parseClaimsJws(token).getBody();
     }
 }
\ No newline at end of file
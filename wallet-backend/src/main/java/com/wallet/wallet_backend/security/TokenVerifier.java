@@ -0,0 +1,127 @@
+package com.wallet.wallet_backend.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies bearer tokens and remembers the result, so a token's signature and claims
+ * are checked once per cache TTL instead of on every request.
+ *
+ * Entries are keyed by the SHA-256 digest of the token (raw tokens are never held)
+ * and expire at the earlier of the token's own expiry and the configured TTL.
+ * The cache is bounded: expired entries are purged first, then arbitrary ones.
+ */
+@Component
+public class TokenVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, CachedPrincipal> cache = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    public TokenVerifier(@Value("${wallet.jwt.cache.max-entries:10000}") int maxEntries,
+                         @Value("${wallet.jwt.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Returns the principal for a raw token, or throws "Invalid token".
+     */
+    public AuthPrincipal verify(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+
+        CachedPrincipal cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                return cached.principal;
+            }
+            cache.remove(key, cached);
+        }
+
+        AuthPrincipal principal;
+        long expiresAt;
+        try {
+            Claims claims = JwtUtil.validateToken(token);
+            principal = new AuthPrincipal(Long.parseLong(claims.getSubject()), (String) claims.get("role"));
+            expiresAt = now + ttlMillis;
+            if (claims.getExpiration() != null) {
+                expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid token");
+        }
+
+        if (cache.size() >= maxEntries) {
+            evict(now);
+        }
+        cache.put(key, new CachedPrincipal(principal, expiresAt));
+        return principal;
+    }
+
+    /**
+     * Principal for the current request: the one JwtAuthFilter already attached, or
+     * verified here from the Authorization header for paths the filter skips.
+     */
+    public AuthPrincipal resolve(HttpServletRequest request) {
+        Object attribute = request.getAttribute(AuthPrincipal.REQUEST_ATTRIBUTE);
+        if (attribute instanceof AuthPrincipal) {
+            return (AuthPrincipal) attribute;
+        }
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new RuntimeException("Invalid token");
+        }
+        AuthPrincipal principal = verify(header.substring(7).trim());
+        request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
+        return principal;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void evict(long now) {
+        cache.entrySet().removeIf(e -> e.getValue().expiresAt <= now);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest sha = SHA256.get();
+        sha.reset();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final class CachedPrincipal {
+        private final AuthPrincipal principal;
+        private final long expiresAt;
+
+        private CachedPrincipal(AuthPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
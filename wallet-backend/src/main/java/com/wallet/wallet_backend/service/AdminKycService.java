@@ -2,6 +2,7 @@ package com.wallet.wallet_backend.service;
 
 import com.wallet.wallet_backend.dto.KycAdminDto;
 import com.wallet.wallet_backend.dto.PagedResponse;
+import com.wallet.wallet_backend.dto.UserSummary;
 import com.wallet.wallet_backend.entity.KycDocument;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.KycDocumentRepository;
@@ -20,10 +21,15 @@ public class AdminKycService {
     
     private final KycDocumentRepository kycDocumentRepository;
     private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final UserSummaryResolver userSummaryResolver;
     
-    public AdminKycService(KycDocumentRepository kycDocumentRepository, UserRepository userRepository) {
+    public AdminKycService(KycDocumentRepository kycDocumentRepository, UserRepository userRepository,
+                           OutboxService outboxService, UserSummaryResolver userSummaryResolver) {
         this.kycDocumentRepository = kycDocumentRepository;
         this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.userSummaryResolver = userSummaryResolver;
     }
     
     public PagedResponse<KycAdminDto> getKycRequests(int page, int size, String status, String search) {
@@ -38,8 +44,11 @@ public class AdminKycService {
             kycPage = kycDocumentRepository.findAll(pageable);
         }
         
+        Map<Long, UserSummary> users = userSummaryResolver.resolve(kycPage.getContent().stream()
+                .map(KycDocument::getUserId)
+                .collect(Collectors.toList()));
         List<KycAdminDto> kycList = kycPage.getContent().stream()
-                .map(this::mapToKycAdminDto)
+                .map(document -> mapToKycAdminDto(document, users.get(document.getUserId())))
                 .collect(Collectors.toList());
         
         return PagedResponse.<KycAdminDto>builder()
@@ -67,6 +76,8 @@ public class AdminKycService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setKycStatus("APPROVED");
         userRepository.save(user);
+        
+        outboxService.record(OutboxService.KYC_APPROVED, user.getId(), kycDecision(document, null));
     }
     
     @Transactional
@@ -85,6 +96,19 @@ public class AdminKycService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setKycStatus("REJECTED");
         userRepository.save(user);
+        
+        outboxService.record(OutboxService.KYC_REJECTED, user.getId(), kycDecision(document, reason));
+    }
+    
+    private static Map<String, Object> kycDecision(KycDocument document, String reason) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", document.getUserId());
+        payload.put("documentId", document.getId());
+        payload.put("status", document.getStatus());
+        payload.put("reviewedBy", document.getReviewedBy());
+        payload.put("reviewedAt", document.getReviewedAt());
+        payload.put("reason", reason);
+        return payload;
     }
     
     public Map<String, Object> getKycStats() {
@@ -98,8 +122,7 @@ public class AdminKycService {
         return stats;
     }
     
-    private KycAdminDto mapToKycAdminDto(KycDocument document) {
-        User user = userRepository.findById(document.getUserId()).orElse(null);
+    private KycAdminDto mapToKycAdminDto(KycDocument document, UserSummary user) {
         
         List<Map<String, Object>> documents = new ArrayList<>();
         Map<String, Object> docMap = new HashMap<>();
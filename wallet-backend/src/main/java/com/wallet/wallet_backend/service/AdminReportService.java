@@ -1,23 +1,39 @@
 package com.wallet.wallet_backend.service;
 
 import com.wallet.wallet_backend.dto.ReportRequestDto;
-import com.wallet.wallet_backend.repository.WalletTransactionRepository;
+import com.wallet.wallet_backend.repository.KycDocumentRepository;
 import com.wallet.wallet_backend.repository.UserRepository;
+import com.wallet.wallet_backend.service.MetricRollupService.Totals;
+import com.wallet.wallet_backend.util.Money;
 import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
+/**
+ * Admin reports. Every date-range figure comes from the metric rollups rather than
+ * scanning main_transactions, users or kyc_documents.
+ */
 @Service
 public class AdminReportService {
     
-    private final WalletTransactionRepository walletTransactionRepository; // Changed
+    private static final int MAX_TREND_DAYS = 366;
+    
+    private final MetricRollupService rollupService;
     private final UserRepository userRepository;
+    private final KycDocumentRepository kycDocumentRepository;
+    private final ExportService exportService;
     
-    public AdminReportService(WalletTransactionRepository walletTransactionRepository, // Changed
-                            UserRepository userRepository) {
-        this.walletTransactionRepository = walletTransactionRepository;
+    public AdminReportService(MetricRollupService rollupService,
+                            UserRepository userRepository,
+                            KycDocumentRepository kycDocumentRepository,
+                            ExportService exportService) {
+        this.rollupService = rollupService;
         this.userRepository = userRepository;
+        this.kycDocumentRepository = kycDocumentRepository;
+        this.exportService = exportService;
     }
     
     public Map<String, Object> generateReport(ReportRequestDto request) {
@@ -46,15 +62,22 @@ public class AdminReportService {
                 throw new RuntimeException("Invalid report type");
         }
         
+        // Rollups trail the source tables by up to one refresh interval
+        report.put("rollupWatermarks", rollupService.getWatermarks());
         return report;
     }
     
-    public Map<String, String> exportReport(ReportRequestDto request) {
-        Map<String, String> export = new HashMap<>();
-        String fileName = request.getReportType() + "_" + System.currentTimeMillis() + "." + request.getFormat();
-        export.put("fileName", fileName);
-        export.put("url", "/exports/" + fileName);
-        export.put("message", "Report generated successfully");
+    /**
+     * Exports the rows behind a report as a background job. Tabular formats only: pdf and
+     * excel requests are written as CSV, which spreadsheet tools open directly.
+     */
+    public Map<String, Object> exportReport(ReportRequestDto request) {
+        String dataset = "revenue".equals(request.getReportType()) ? "transactions" : request.getReportType();
+        String format = ExportService.NDJSON.equals(request.getFormat()) || "json".equals(request.getFormat())
+                ? ExportService.NDJSON : ExportService.CSV;
+        Map<String, Object> export = exportService.submit(exportService.request(dataset, format,
+                request.getSelectedColumns(), calculateStartDate(request), calculateEndDate(request), null));
+        export.put("message", "Report export started");
         return export;
     }
     
@@ -91,7 +114,7 @@ public class AdminReportService {
     
     private LocalDateTime calculateEndDate(ReportRequestDto request) {
         if ("custom".equals(request.getDateRange()) && request.getEndDate() != null) {
-            return request.getEndDate().atTime(23, 59, 59);
+            return request.getEndDate().plusDays(1).atStartOfDay();
         }
         return LocalDateTime.now();
     }
@@ -99,57 +122,62 @@ public class AdminReportService {
     private Map<String, Object> generateTransactionReport(LocalDateTime start, LocalDateTime end, ReportRequestDto request) {
         Map<String, Object> report = new HashMap<>();
         
-        // Use walletTransactionRepository instead of transactionRepository
-        Long totalCount = walletTransactionRepository.countByDateRange(start, end);
-        Double totalVolume = walletTransactionRepository.sumAmountByDateRange(start, end);
-        
-        // For trends, we need to group by date - let's do it manually for now
-        List<Map<String, Object>> trends = new ArrayList<>();
-        
-        // You can implement this later if needed
-        // List<Map<String, Object>> summary = walletTransactionRepository.getTransactionSummary(start);
+        Totals totals = rollupService.total(MetricRollupService.TXN, "", start, end);
         
         report.put("reportType", "Transaction Report");
         report.put("dateRange", start + " to " + end);
-        report.put("totalTransactions", totalCount != null ? totalCount : 0L);
-        report.put("totalVolume", totalVolume != null ? totalVolume : 0.0);
-        report.put("trends", trends);
-        report.put("summary", getTransactionSummary(start));
+        report.put("totalTransactions", totals.getCount());
+        report.put("totalVolume", Money.rupees(totals.getAmount()));
+        report.put("trends", getDailyTrends(MetricRollupService.TXN, start, end));
+        report.put("summary", getTransactionSummary(start, end));
         
         return report;
     }
     
-    private List<Map<String, Object>> getTransactionSummary(LocalDateTime since) {
-        // This is a simple implementation - you can enhance it
+    private List<Map<String, Object>> getTransactionSummary(LocalDateTime start, LocalDateTime end) {
         List<Map<String, Object>> summary = new ArrayList<>();
         
-        Map<String, Object> creditSummary = new HashMap<>();
-        creditSummary.put("type", "CREDIT");
-        creditSummary.put("count", 0); // You can calculate this
-        creditSummary.put("total", 0.0);
-        summary.add(creditSummary);
-        
-        Map<String, Object> debitSummary = new HashMap<>();
-        debitSummary.put("type", "DEBIT");
-        debitSummary.put("count", 0);
-        debitSummary.put("total", 0.0);
-        summary.add(debitSummary);
+        rollupService.byDimension(MetricRollupService.TXN_TYPE, start, end).forEach((type, totals) -> {
+            Map<String, Object> typeSummary = new HashMap<>();
+            typeSummary.put("type", type);
+            typeSummary.put("count", totals.getCount());
+            typeSummary.put("total", Money.rupees(totals.getAmount()));
+            summary.add(typeSummary);
+        });
         
         return summary;
     }
     
+    private List<Map<String, Object>> getDailyTrends(String metric, LocalDateTime start, LocalDateTime end) {
+        LocalDate firstDay = start.toLocalDate();
+        int days = (int) Math.min(MAX_TREND_DAYS,
+                ChronoUnit.DAYS.between(firstDay, end.minusNanos(1).toLocalDate()) + 1);
+        List<Totals> series = rollupService.dailySeries(metric, "", firstDay, days);
+        
+        List<Map<String, Object>> trends = new ArrayList<>(days);
+        for (int i = 0; i < series.size(); i++) {
+            Map<String, Object> point = new HashMap<>();
+            point.put("date", firstDay.plusDays(i).toString());
+            point.put("count", series.get(i).getCount());
+            point.put("total", Money.rupees(series.get(i).getAmount()));
+            trends.add(point);
+        }
+        return trends;
+    }
+    
     private Map<String, Object> generateUserReport(LocalDateTime start, LocalDateTime end, ReportRequestDto request) {
         Map<String, Object> report = new HashMap<>();
         
-        Long newUsers = userRepository.countByCreatedAtBetween(start, end);
+        Long newUsers = rollupService.total(MetricRollupService.NEW_USERS, "", start, end).getCount();
         Long totalUsers = userRepository.count();
         Long activeUsers = userRepository.countByLastActiveAfter(start);
         
         report.put("reportType", "User Report");
         report.put("dateRange", start + " to " + end);
-        report.put("newUsers", newUsers != null ? newUsers : 0L);
+        report.put("newUsers", newUsers);
         report.put("totalUsers", totalUsers != null ? totalUsers : 0L);
         report.put("activeUsers", activeUsers != null ? activeUsers : 0L);
+        report.put("trends", getDailyTrends(MetricRollupService.NEW_USERS, start, end));
         
         return report;
     }
@@ -158,7 +186,20 @@ public class AdminReportService {
         Map<String, Object> report = new HashMap<>();
         report.put("reportType", "KYC Report");
         report.put("dateRange", start + " to " + end);
-        report.put("message", "KYC report generation in progress");
+        
+        // Submissions are event counts from the rollups; review status is current state
+        Long submitted = rollupService.total(MetricRollupService.KYC_SUBMITTED, "", start, end).getCount();
+        Long pending = kycDocumentRepository.countPendingKyc();
+        Long approved = kycDocumentRepository.countByStatusApproved();
+        Long rejected = kycDocumentRepository.countByStatusRejected();
+        long reviewed = (approved != null ? approved : 0L) + (rejected != null ? rejected : 0L);
+        
+        report.put("submitted", submitted);
+        report.put("pending", pending != null ? pending : 0L);
+        report.put("approved", approved != null ? approved : 0L);
+        report.put("rejected", rejected != null ? rejected : 0L);
+        report.put("approvalRate", reviewed > 0 ? (approved != null ? approved : 0L) * 100.0 / reviewed : 0.0);
+        report.put("trends", getDailyTrends(MetricRollupService.KYC_SUBMITTED, start, end));
         return report;
     }
     
@@ -167,12 +208,13 @@ public class AdminReportService {
         report.put("reportType", "Wallet Report");
         report.put("dateRange", start + " to " + end);
         
-        Double totalCredits = walletTransactionRepository.sumAmountByDateRangeAndType(start, end, "CREDIT");
-        Double totalDebits = walletTransactionRepository.sumAmountByDateRangeAndType(start, end, "DEBIT");
+        Map<String, Totals> byType = rollupService.byDimension(MetricRollupService.TXN_TYPE, start, end);
+        long totalCredits = byType.containsKey("CREDIT") ? byType.get("CREDIT").getAmount() : 0L;
+        long totalDebits = byType.containsKey("DEBIT") ? byType.get("DEBIT").getAmount() : 0L;
         
-        report.put("totalCredits", totalCredits != null ? totalCredits : 0.0);
-        report.put("totalDebits", totalDebits != null ? totalDebits : 0.0);
-        report.put("netFlow", (totalCredits != null ? totalCredits : 0.0) - (totalDebits != null ? totalDebits : 0.0));
+        report.put("totalCredits", Money.rupees(totalCredits));
+        report.put("totalDebits", Money.rupees(totalDebits));
+        report.put("netFlow", Money.rupees(totalCredits - totalDebits));
         
         return report;
     }
@@ -181,7 +223,25 @@ public class AdminReportService {
         Map<String, Object> report = new HashMap<>();
         report.put("reportType", "Revenue Report");
         report.put("dateRange", start + " to " + end);
-        report.put("message", "Revenue report generation in progress");
+        
+        Totals gross = rollupService.total(MetricRollupService.TXN, "", start, end);
+        Map<String, Totals> byStatus = rollupService.byDimension(MetricRollupService.TXN_STATUS, start, end);
+        Map<String, Totals> byType = rollupService.byDimension(MetricRollupService.TXN_TYPE, start, end);
+        Totals completed = byStatus.getOrDefault("COMPLETED", new Totals());
+        
+        Map<String, BigDecimal> volumeByType = new TreeMap<>();
+        byType.forEach((type, totals) -> volumeByType.put(type, Money.rupees(totals.getAmount())));
+        Map<String, Long> countByStatus = new TreeMap<>();
+        byStatus.forEach((status, totals) -> countByStatus.put(status, totals.getCount()));
+        
+        report.put("grossVolume", Money.rupees(gross.getAmount()));
+        report.put("completedVolume", Money.rupees(completed.getAmount()));
+        report.put("transactionCount", gross.getCount());
+        report.put("averageTransactionValue", gross.getCount() > 0 ? Money.rupees(gross.getAmount() / gross.getCount()) : BigDecimal.ZERO);
+        report.put("successRate", gross.getCount() > 0 ? completed.getCount() * 100.0 / gross.getCount() : 0.0);
+        report.put("volumeByType", volumeByType);
+        report.put("countByStatus", countByStatus);
+        report.put("trends", getDailyTrends(MetricRollupService.TXN, start, end));
         return report;
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,9 @@ import com.wallet.wallet_backend.dto.PagedResponse;
 import com.wallet.wallet_backend.dto.TransactionAdminDto;
 import com.wallet.wallet_backend.entity.Transaction;
 import com.wallet.wallet_backend.repository.TransactionRepository;
+import com.wallet.wallet_backend.util.Money;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -17,9 +19,18 @@ import java.util.stream.Collectors;
 public class AdminTransactionService {
     
     private final TransactionRepository transactionRepository;
+    private final MetricRollupService rollupService;
+    private final TransactionSearchIndex searchIndex;
+    private final ExportService exportService;
     
-    public AdminTransactionService(TransactionRepository transactionRepository) {
+    public AdminTransactionService(TransactionRepository transactionRepository,
+                                   MetricRollupService rollupService,
+                                   TransactionSearchIndex searchIndex,
+                                   ExportService exportService) {
         this.transactionRepository = transactionRepository;
+        this.rollupService = rollupService;
+        this.searchIndex = searchIndex;
+        this.exportService = exportService;
     }
     
     public PagedResponse<TransactionAdminDto> getTransactions(
@@ -28,7 +39,13 @@ public class AdminTransactionService {
         Pageable pageable = PageRequest.of(page, size);
         Page<Transaction> transactionPage;
         
-        if (search != null && !search.isEmpty()) {
+        if (search != null && !search.isEmpty() && searchIndex.isReady()) {
+            // The index only knows whether another page exists, so the total is a lower bound
+            TransactionSearchIndex.SearchResult result = searchIndex.searchAll(search, page * size, size);
+            List<Transaction> content = transactionRepository.findAllByIdInOrder(result.getIds());
+            long seen = (long) page * size + content.size() + (result.isHasMore() ? 1 : 0);
+            transactionPage = new PageImpl<>(content, pageable, seen);
+        } else if (search != null && !search.isEmpty()) {
             transactionPage = transactionRepository.searchTransactions(search, pageable);
         } else if (type != null && !type.isEmpty() && !"all".equals(type)) {
             transactionPage = transactionRepository.findByType(type.toUpperCase(), pageable);
@@ -57,27 +74,34 @@ public class AdminTransactionService {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfDay = now.truncatedTo(ChronoUnit.DAYS);
         
-        Double todayVolume = transactionRepository.sumAmountByDateRange(startOfDay, now);
-        Long todayCount = transactionRepository.countByDateRange(startOfDay, now);
+        MetricRollupService.Totals today = rollupService.total(MetricRollupService.TXN, "", startOfDay, now);
         
         LocalDateTime yesterdayStart = startOfDay.minusDays(1);
-        Double yesterdayVolume = transactionRepository.sumAmountByDateRange(yesterdayStart, startOfDay);
+        MetricRollupService.Totals yesterday =
+                rollupService.total(MetricRollupService.TXN, "", yesterdayStart, startOfDay);
         
-        summary.put("todayVolume", todayVolume != null ? todayVolume : 0.0);
-        summary.put("todayCount", todayCount != null ? todayCount : 0);
-        summary.put("yesterdayVolume", yesterdayVolume != null ? yesterdayVolume : 0.0);
-        summary.put("totalTransactions", transactionRepository.count());
+        summary.put("todayVolume", Money.rupees(today.getAmount()));
+        summary.put("todayCount", today.getCount());
+        summary.put("yesterdayVolume", Money.rupees(yesterday.getAmount()));
+        summary.put("totalTransactions", rollupService.allTimeCount(MetricRollupService.TXN));
+        summary.put("hourlyVolume", rollupService.hourlySeries(MetricRollupService.TXN, "", 24).stream()
+                .map(totals -> Money.rupees(totals.getAmount()))
+                .collect(Collectors.toList()));
         
         return summary;
     }
     
+    // Runs as a background job; poll /admin/exports/{jobId} and download from the returned url
     public Map<String, Object> exportTransactions(String format, List<String> columns) {
-        // This would generate CSV/PDF/Excel file
-        Map<String, Object> export = new HashMap<>();
-        export.put("format", format);
-        export.put("columns", columns);
-        export.put("url", "/exports/transactions-" + System.currentTimeMillis() + "." + format);
-        return export;
+        return exportService.submit(exportRequest(format, columns, null, null, null, null));
+    }
+    
+    public ExportService.ExportRequest exportRequest(String format, List<String> columns, String type, String status,
+                                                     LocalDateTime from, LocalDateTime to) {
+        Map<String, String> filters = new HashMap<>();
+        filters.put("type", type);
+        filters.put("status", status);
+        return exportService.request("transactions", format, columns, from, to, filters);
     }
     
     private TransactionAdminDto mapToTransactionAdminDto(Transaction transaction) {
@@ -3,7 +3,9 @@ package com.wallet.wallet_backend.service;
 import com.wallet.wallet_backend.dto.*;
 import com.wallet.wallet_backend.entity.*;
 import com.wallet.wallet_backend.repository.*;
+import com.wallet.wallet_backend.util.Money;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,21 +21,33 @@ public class AdminUserService {
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
     private final KycDocumentRepository kycDocumentRepository;
+    private final BalanceLedger balanceLedger;
+    private final TransactionAggregateService aggregateService;
+    private final UserSearchIndex userSearchIndex;
 
     public AdminUserService(
             UserRepository userRepository,
             TransactionRepository transactionRepository,
-            KycDocumentRepository kycDocumentRepository) {
+            KycDocumentRepository kycDocumentRepository,
+            BalanceLedger balanceLedger,
+            TransactionAggregateService aggregateService,
+            UserSearchIndex userSearchIndex) {
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
         this.kycDocumentRepository = kycDocumentRepository;
+        this.balanceLedger = balanceLedger;
+        this.aggregateService = aggregateService;
+        this.userSearchIndex = userSearchIndex;
     }
 
     public PagedResponse<UserAdminDto> getUsers(int page, int size, String search) {
         Pageable pageable = PageRequest.of(page, size);
         Page<User> userPage;
 
-        if (search != null && !search.isEmpty()) {
+        if (search != null && !search.isEmpty() && userSearchIndex.isReady()) {
+            UserSearchIndex.SearchResult result = userSearchIndex.search(search, page * size, size);
+            userPage = new PageImpl<>(userRepository.findAllByIdInOrder(result.getUserIds()), pageable, result.getTotal());
+        } else if (search != null && !search.isEmpty()) {
             userPage = userRepository.searchUsers(search, pageable);
         } else {
             userPage = userRepository.findAll(pageable);
@@ -67,54 +81,27 @@ public class AdminUserService {
         List<Transaction> recentTransactions = transactionsPage.getContent();
         System.out.println("💰 Recent transactions found: " + recentTransactions.size());
 
-        // Calculate stats with null safety - with DEBUG
-        System.out.println("📊 Fetching transaction stats...");
+        // Stats come from the precomputed per-user aggregates
+        TransactionAggregateService.Totals totals = aggregateService.getTotals(userId);
+        long safeTotalDeposits = totals.sum("DEPOSIT");
+        long safeTotalWithdrawals = totals.sum("WITHDRAWAL");
+        long safeTransactionCount = totals.totalCount();
 
-        Double totalDeposits = null;
-        Double totalWithdrawals = null;
-        Long transactionCount = null;
-
-        try {
-            totalDeposits = transactionRepository.sumAmountByUserIdAndType(userId, "DEPOSIT");
-            System.out.println("   totalDeposits: " + totalDeposits);
-        } catch (Exception e) {
-            System.out.println("   ❌ Error fetching totalDeposits: " + e.getMessage());
-        }
-
-        try {
-            totalWithdrawals = transactionRepository.sumAmountByUserIdAndType(userId, "WITHDRAWAL");
-            System.out.println("   totalWithdrawals: " + totalWithdrawals);
-        } catch (Exception e) {
-            System.out.println("   ❌ Error fetching totalWithdrawals: " + e.getMessage());
-        }
-
-        try {
-            transactionCount = transactionRepository.countByUserId(userId);
-            System.out.println("   transactionCount: " + transactionCount);
-        } catch (Exception e) {
-            System.out.println("   ❌ Error fetching transactionCount: " + e.getMessage());
-        }
-
-        // Null safe values
-        double safeTotalDeposits = totalDeposits != null ? totalDeposits : 0.0;
-        double safeTotalWithdrawals = totalWithdrawals != null ? totalWithdrawals : 0.0;
-        long safeTransactionCount = transactionCount != null ? transactionCount : 0L;
-
-        System.out.println("✅ Safe values - Deposits: " + safeTotalDeposits +
+        System.out.println("✅ Aggregates - Deposits: " + safeTotalDeposits +
                 ", Withdrawals: " + safeTotalWithdrawals +
                 ", Count: " + safeTransactionCount);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalDeposits", safeTotalDeposits);
-        stats.put("totalWithdrawals", safeTotalWithdrawals);
+        stats.put("totalDeposits", Money.rupees(safeTotalDeposits));
+        stats.put("totalWithdrawals", Money.rupees(safeTotalWithdrawals));
         stats.put("transactionCount", safeTransactionCount);
 
         // Safe average calculation
-        double avgTransaction = 0.0;
+        long avgTransaction = 0L;
         if (safeTransactionCount > 0) {
             avgTransaction = (safeTotalDeposits + safeTotalWithdrawals) / safeTransactionCount;
         }
-        stats.put("avgTransaction", avgTransaction);
+        stats.put("avgTransaction", Money.rupees(avgTransaction));
 
         System.out.println("📊 Stats map: " + stats);
         System.out.println("=== DEBUG END ===\n");
@@ -132,9 +119,9 @@ public class AdminUserService {
                 .address(user.getAddress())
                 .joinDate(user.getCreatedAt())
                 .walletBalance(user.getWalletBalance())
-                .frozenFunds(user.getWalletFrozen() ? user.getWalletBalance() : 0.0)
+                .frozenFunds(user.getWalletFrozen() ? user.getWalletBalance() : 0L)
                 .isFrozen(user.getWalletFrozen())
-                .pendingCredits(0.0)
+                .pendingCredits(0L)
                 .kycStatus(user.getKycStatus())
                 .kycDocuments(mapKycDocuments(kycDocs))
                 .recentActivities(mapToActivities(recentTransactions))
@@ -172,6 +159,7 @@ public class AdminUserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setWalletFrozen(true);
         userRepository.save(user);
+        balanceLedger.updateFrozen(userId, true);
     }
 
     @Transactional
@@ -180,6 +168,11 @@ public class AdminUserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setWalletFrozen(false);
         userRepository.save(user);
+        balanceLedger.updateFrozen(userId, false);
+    }
+
+    public Map<String, Object> rebuildTransactionAggregates() {
+        return aggregateService.rebuild();
     }
 
     public Map<String, Object> getUserStats() {
@@ -188,7 +181,7 @@ public class AdminUserService {
         stats.put("totalUsers", userRepository.count());
         stats.put("pendingKyc", kycDocumentRepository.countPendingKyc());
         stats.put("activeWallets", userRepository.countByWalletFrozenFalse());
-        stats.put("totalBalance", userRepository.sumWalletBalance());
+        stats.put("totalBalance", Money.rupees(userRepository.sumWalletBalance()));
 
         return stats;
     }
@@ -233,7 +226,7 @@ public class AdminUserService {
                     activity.put("description", tx.getReference());
                     activity.put("date", formatTimeAgo(tx.getCreatedAt()));
                     activity.put("method", tx.getPaymentMethod());
-                    activity.put("amount", tx.getAmount());
+                    activity.put("amount", Money.rupees(tx.getAmount()));
                     activity.put("amountType", tx.getType().equals("DEPOSIT") ? "credit" : "debit");
                     activity.put("status", tx.getStatus().toLowerCase());
 
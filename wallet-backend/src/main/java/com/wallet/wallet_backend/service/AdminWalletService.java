@@ -1,11 +1,13 @@
 package com.wallet.wallet_backend.service;
 
+import com.wallet.wallet_backend.dto.UserSummary;
 import com.wallet.wallet_backend.dto.WalletAdminDto;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.entity.WalletTransaction;
 import com.wallet.wallet_backend.repository.UserRepository;
 import com.wallet.wallet_backend.repository.WalletTransactionRepository;
 import com.wallet.wallet_backend.service.WalletService;
+import com.wallet.wallet_backend.util.Money;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,37 +25,53 @@ public class AdminWalletService {
     private final UserRepository userRepository;
     private final WalletTransactionRepository walletTransactionRepository;
     private final WalletService walletService;
+    private final BalanceLedger balanceLedger;
+    private final MetricRollupService rollupService;
+    private final BulkWalletJobService bulkWalletJobService;
+    private final UserSearchIndex userSearchIndex;
+    private final UserSummaryResolver userSummaryResolver;
 
     public AdminWalletService(
             UserRepository userRepository,
             WalletTransactionRepository walletTransactionRepository,
-            WalletService walletService) {
+            WalletService walletService,
+            BalanceLedger balanceLedger,
+            MetricRollupService rollupService,
+            BulkWalletJobService bulkWalletJobService,
+            UserSearchIndex userSearchIndex,
+            UserSummaryResolver userSummaryResolver) {
         this.userRepository = userRepository;
         this.walletTransactionRepository = walletTransactionRepository;
         this.walletService = walletService;
+        this.balanceLedger = balanceLedger;
+        this.rollupService = rollupService;
+        this.bulkWalletJobService = bulkWalletJobService;
+        this.userSearchIndex = userSearchIndex;
+        this.userSummaryResolver = userSummaryResolver;
     }
 
     public Map<String, Object> getWalletOverview() {
         Map<String, Object> overview = new HashMap<>();
         
-        Double totalBalance = userRepository.sumWalletBalance();
+        Long totalBalance = userRepository.sumWalletBalance();
         Long totalUsers = userRepository.count();
         Long activeWallets = userRepository.countByWalletFrozenFalse();
         Long frozenWallets = userRepository.countByWalletFrozenTrue();
         
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfDay = now.truncatedTo(ChronoUnit.DAYS);
-        Double todayVolume = walletTransactionRepository.sumAmountByDateRange(startOfDay, now);
+        long todayVolume = rollupService.total(MetricRollupService.TXN, "", startOfDay, now).getAmount();
         
         LocalDateTime yesterdayStart = startOfDay.minusDays(1);
-        Double yesterdayVolume = walletTransactionRepository.sumAmountByDateRange(yesterdayStart, startOfDay);
+        long yesterdayVolume =
+                rollupService.total(MetricRollupService.TXN, "", yesterdayStart, startOfDay).getAmount();
         
-        overview.put("totalBalance", totalBalance != null ? totalBalance : 0.0);
+        overview.put("totalBalance", Money.rupees(totalBalance != null ? totalBalance : 0L));
         overview.put("totalUsers", totalUsers);
         overview.put("activeWallets", activeWallets);
         overview.put("frozenWallets", frozenWallets);
-        overview.put("todayVolume", todayVolume != null ? todayVolume : 0.0);
-        overview.put("yesterdayVolume", yesterdayVolume != null ? yesterdayVolume : 0.0);
+        overview.put("todayVolume", Money.rupees(todayVolume));
+        overview.put("yesterdayVolume", Money.rupees(yesterdayVolume));
         
         return overview;
     }
@@ -61,7 +79,9 @@ public class AdminWalletService {
     public List<WalletAdminDto> getUserWallets(String search) {
         List<User> users;
         
-        if (search != null && !search.isEmpty()) {
+        if (search != null && !search.isEmpty() && userSearchIndex.isReady()) {
+            users = userRepository.findAllByIdInOrder(userSearchIndex.search(search, 0, 0).getUserIds());
+        } else if (search != null && !search.isEmpty()) {
             users = userRepository.searchUsers(search);
         } else {
             users = userRepository.findAll();
@@ -86,17 +106,21 @@ public class AdminWalletService {
     Page<WalletTransaction> transactionPage = walletTransactionRepository.findAllByOrderByCreatedAtDesc(pageable);
     List<WalletTransaction> transactions = transactionPage.getContent();
     
+    Map<Long, UserSummary> users = userSummaryResolver.resolve(transactions.stream()
+            .map(WalletTransaction::getUserId)
+            .collect(Collectors.toList()));
+    
     return transactions.stream()
             .map(tx -> {
                 Map<String, Object> map = new HashMap<>();
                 map.put("id", tx.getId());
                 map.put("userId", tx.getUserId());
                 
-                Optional<User> user = userRepository.findById(tx.getUserId());
-                map.put("user", user.map(User::getName).orElse("Unknown"));
+                UserSummary user = users.get(tx.getUserId());
+                map.put("user", user != null ? user.getName() : "Unknown");
                 
                 map.put("type", tx.getType());
-                map.put("amount", tx.getAmount());
+                map.put("amount", Money.rupees(tx.getAmount()));
                 map.put("date", tx.getCreatedAt());
                 
                 return map;
@@ -104,36 +128,30 @@ public class AdminWalletService {
             .collect(Collectors.toList());
 }
     @Transactional
-    public void adjustWallet(Long userId, Double amount, String type, String reason) {
+    public void adjustWallet(Long userId, long amount, String type, String reason) {
         if ("CREDIT".equalsIgnoreCase(type)) {
             walletService.credit(userId, amount, "ADMIN_" + reason);
         } else if ("DEBIT".equalsIgnoreCase(type)) {
-            walletService.debit(userId, amount, "ADMIN_" + reason);
+            walletService.adminDebit(userId, amount, "ADMIN_" + reason);
         } else {
             throw new RuntimeException("Invalid transaction type");
         }
     }
 
-    @Transactional
-    public void bulkCredit(List<Long> userIds, Double amount, String reason) {
-        for (Long userId : userIds) {
-            try {
-                walletService.credit(userId, amount, "BULK_ADMIN_" + reason);
-            } catch (Exception e) {
-                // Log error but continue
-                System.err.println("Failed to credit user " + userId + ": " + e.getMessage());
-            }
-        }
+    // Bulk operations run as chunked background jobs; poll getBulkJob for progress
+    public Map<String, Object> bulkCredit(List<Long> userIds, long amount, String reason) {
+        return bulkWalletJobService.submitCredit(userIds, amount, reason);
     }
 
-    @Transactional
-    public void bulkFreeze(List<Long> userIds) {
-        for (Long userId : userIds) {
-            User user = userRepository.findById(userId).orElse(null);
-            if (user != null && !user.getWalletFrozen()) {
-                user.setWalletFrozen(true);
-                userRepository.save(user);
-            }
-        }
+    public Map<String, Object> bulkFreeze(List<Long> userIds) {
+        return bulkWalletJobService.submitFreeze(userIds);
+    }
+
+    public Map<String, Object> getBulkJob(String jobId) {
+        return bulkWalletJobService.getJob(jobId);
+    }
+
+    public List<Map<String, Object>> getBulkJobs() {
+        return bulkWalletJobService.listJobs();
     }
 }
\ No newline at end of file
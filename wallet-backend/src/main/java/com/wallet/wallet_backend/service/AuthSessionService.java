@@ -0,0 +1,172 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.AuthSession;
+import com.wallet.wallet_backend.repository.AuthSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store for OTP/MPIN login steps and device (permanent) tokens.
+ *
+ * Sessions live in auth_sessions keyed by the SHA-256 of the token, behind a bounded
+ * in-process TTL cache. One-shot steps are consumed with a DELETE whose row count decides
+ * the winner, so a temp token or OTP can be used once even across nodes. Expired rows
+ * are removed by a scheduled sweep.
+ */
+@Service
+public class AuthSessionService {
+
+    public static final String TEMP = "TEMP";
+    public static final String PERMANENT = "PERMANENT";
+    public static final String FORGOT_MPIN = "FORGOT_MPIN";
+
+    private final AuthSessionRepository sessionRepository;
+    private final int maxEntries;
+    private final long cacheTtlMillis;
+
+    private final Map<String, CachedSession> cache = new ConcurrentHashMap<>();
+
+    public AuthSessionService(AuthSessionRepository sessionRepository,
+                              @Value("${wallet.auth.session-cache.max-entries:20000}") int maxEntries,
+                              @Value("${wallet.auth.session-cache.ttl-seconds:120}") long cacheTtlSeconds) {
+        this.sessionRepository = sessionRepository;
+        this.maxEntries = maxEntries;
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+    }
+
+    public AuthSession create(String token, String kind, String step, String mobile, Long userId,
+                              String otp, LocalDateTime expiresAt) {
+        AuthSession session = new AuthSession();
+        session.setTokenHash(sha256Hex(token));
+        session.setKind(kind);
+        session.setStep(step);
+        session.setMobile(mobile);
+        session.setUserId(userId);
+        session.setOtpHash(otp != null ? sha256Hex(otp) : null);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(expiresAt);
+        session = sessionRepository.save(session);
+        remember(session);
+        return session;
+    }
+
+    /**
+     * Live session for a token, or null if it is unknown or expired.
+     */
+    public AuthSession find(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String tokenHash = sha256Hex(token);
+        long now = System.currentTimeMillis();
+
+        CachedSession cached = cache.get(tokenHash);
+        if (cached != null) {
+            if (cached.cachedUntil > now) {
+                return cached.session;
+            }
+            cache.remove(tokenHash, cached);
+        }
+
+        AuthSession session = sessionRepository.findByTokenHash(tokenHash).orElse(null);
+        if (session == null || session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        remember(session);
+        return session;
+    }
+
+    /**
+     * Removes a session so its token cannot be used again. Returns false if it was
+     * already consumed by a concurrent request.
+     */
+    public boolean consume(AuthSession session) {
+        cache.remove(session.getTokenHash());
+        return sessionRepository.deleteByTokenHash(session.getTokenHash()) > 0;
+    }
+
+    public void revoke(String token) {
+        String tokenHash = sha256Hex(token);
+        cache.remove(tokenHash);
+        sessionRepository.deleteByTokenHash(tokenHash);
+    }
+
+    public boolean otpMatches(AuthSession session, String otp) {
+        if (otp == null || session.getOtpHash() == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                session.getOtpHash().getBytes(StandardCharsets.US_ASCII),
+                sha256Hex(otp).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Forgot-MPIN OTPs are addressed by mobile rather than by a client-held token
+    public static String forgotMpinKey(String mobile) {
+        return "FORGOT_MPIN:" + mobile;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.auth.session-eviction-interval-ms:300000}")
+    public void evictExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(cached -> cached.cachedUntil <= now);
+            int expired = sessionRepository.deleteExpired(LocalDateTime.now());
+            if (expired > 0) {
+                System.out.println("Evicted expired auth sessions: " + expired);
+            }
+        } catch (Exception e) {
+            System.err.println("Auth session eviction failed: " + e.getMessage());
+        }
+    }
+
+    private void remember(AuthSession session) {
+        long now = System.currentTimeMillis();
+        long expiresAt = session.getExpiresAt()
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long cachedUntil = Math.min(now + cacheTtlMillis, expiresAt);
+        if (cachedUntil <= now) {
+            return;
+        }
+        if (cache.size() >= maxEntries) {
+            cache.entrySet().removeIf(e -> e.getValue().cachedUntil <= now);
+            Iterator<String> keys = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(session.getTokenHash(), new CachedSession(session, cachedUntil));
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedSession {
+        private final AuthSession session;
+        private final long cachedUntil;
+
+        private CachedSession(AuthSession session, long cachedUntil) {
+            this.session = session;
+            this.cachedUntil = cachedUntil;
+        }
+    }
+}
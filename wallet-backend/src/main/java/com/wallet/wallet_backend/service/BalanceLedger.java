@@ -0,0 +1,672 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.service.LedgerJournal.LedgerEntry;
+import com.wallet.wallet_backend.util.TransactionIds;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional in-memory balance ledger (wallet.ledger.enabled).
+ *
+ * Balances live in a lock-striped map keyed by userId, so postings to one wallet are
+ * ordered by its stripe lock while different wallets proceed in parallel. Every posting
+ * is appended to a local write-ahead journal and acknowledged once durable; a background
+ * flusher then writes batched transaction rows and balance updates to MySQL together with
+ * a checkpoint of the last flushed sequence. On restart, journal entries past the
+ * checkpoint are replayed into MySQL before the application starts serving.
+ *
+ * Postings made inside a database transaction are journaled as pending in beforeCommit,
+ * together with a ledger_commit row written in that transaction. The flusher holds them
+ * back until the transaction completes, and replay skips pending postings that have
+ * neither a ledger_commit row nor a journaled reversal, i.e. whose transaction never
+ * committed because the process died in between.
+ *
+ * Amounts are paise (see Money), so balances are plain longs with exact arithmetic.
+ * While enabled, users.wallet_balance trails the ledger by up to one flush interval;
+ * WalletService.getBalance always reads the live value.
+ */
+@Service
+public class BalanceLedger implements SmartInitializingSingleton {
+
+    private static final String INSERT_POSTING =
+            "INSERT INTO main_transactions (user_id, amount, balance_after, type, reference, status, created_at, " +
+            "transfer_id, transaction_id) VALUES (?, ?, ?, ?, ?, 'COMPLETED', ?, ?, ?)";
+    private static final String UPDATE_BALANCE =
+            "UPDATE users SET wallet_balance = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionAggregateService aggregateService;
+    private final OutboxService outboxService;
+
+    private final boolean enabled;
+    private final Path journalDir;
+    private final long flushIntervalMs;
+    private final int flushBatchSize;
+    private final int maxAccounts;
+    private final long journalMaxBytes;
+
+    private final ReentrantLock[] stripes;
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final Queue<LedgerEntry> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Sequences journaled by transactions that have not completed yet; never flushed
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private LedgerJournal journal;
+    private ScheduledExecutorService flusher;
+    private long nextSeq;
+    private volatile long flushedSeq;
+
+    public BalanceLedger(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         TransactionAggregateService aggregateService,
+                         OutboxService outboxService,
+                         // Not used directly: amount columns must be BIGINT paise before the journal replays
+                         MoneyColumnMigration moneyColumnMigration,
+                         @Value("${wallet.ledger.enabled:false}") boolean enabled,
+                         @Value("${wallet.ledger.journal-dir:data/ledger}") String journalDir,
+                         @Value("${wallet.ledger.flush-interval-ms:200}") long flushIntervalMs,
+                         @Value("${wallet.ledger.flush-batch-size:1000}") int flushBatchSize,
+                         @Value("${wallet.ledger.stripes:256}") int stripeCount,
+                         @Value("${wallet.ledger.max-accounts:100000}") int maxAccounts,
+                         @Value("${wallet.ledger.journal-max-bytes:67108864}") long journalMaxBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.aggregateService = aggregateService;
+        this.outboxService = outboxService;
+        this.enabled = enabled;
+        this.journalDir = Path.of(journalDir);
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushBatchSize = flushBatchSize;
+        this.maxAccounts = maxAccounts;
+        this.journalMaxBytes = journalMaxBytes;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journal = new LedgerJournal(journalDir);
+            jdbcTemplate.update("INSERT IGNORE INTO ledger_checkpoint (id, last_seq) VALUES (1, 0)");
+            Long checkpoint = jdbcTemplate.queryForObject(
+                    "SELECT last_seq FROM ledger_checkpoint WHERE id = 1", Long.class);
+            flushedSeq = checkpoint != null ? checkpoint : 0L;
+
+            List<LedgerEntry> recovered = journal.recover();
+            long lastSeq = flushedSeq;
+            for (LedgerEntry entry : recovered) {
+                lastSeq = Math.max(lastSeq, entry.getSeq());
+            }
+            nextSeq = lastSeq + 1;
+            List<LedgerEntry> replay = committedSince(recovered, flushedSeq);
+
+            for (int from = 0; from < replay.size(); ) {
+                int to = batchEnd(replay, from);
+                writeBatch(replay.subList(from, to));
+                from = to;
+            }
+            if (!replay.isEmpty()) {
+                System.out.println("Ledger recovered " + replay.size() + " postings from journal");
+            }
+            if (lastSeq > flushedSeq) {
+                // Whatever was left past the last replayed entry never committed
+                long skippedThrough = lastSeq;
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("UPDATE ledger_checkpoint SET last_seq = ? WHERE id = 1", skippedThrough);
+                    jdbcTemplate.update("DELETE FROM ledger_commit WHERE last_seq <= ?", skippedThrough);
+                });
+                flushedSeq = skippedThrough;
+            }
+            journal.truncateIfFlushed(flushedSeq);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open ledger journal in " + journalDir, e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledger-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Both return the posting's transaction id, which is journaled with it
+    public String credit(Long userId, long amount, String reference) {
+        Leg leg = new Leg(userId, true, amount, reference);
+        submit(List.of(leg), null);
+        return leg.transactionId;
+    }
+
+    public String debit(Long userId, long amount, String reference) {
+        Leg leg = new Leg(userId, false, amount, reference);
+        submit(List.of(leg), null);
+        return leg.transactionId;
+    }
+
+    // Spendable balance: the journaled balance less debits held by open transactions
+    public long getBalance(Long userId) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            Account account = loadAccount(userId);
+            return account.balance - account.held;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Keeps the cached frozen flag in step with admin freeze/unfreeze. Accounts that are
+     * not resident pick the flag up from the database when they are next loaded.
+     */
+    public void updateFrozen(Long userId, boolean frozen) {
+        if (!enabled) {
+            return;
+        }
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            Account account = accounts.get(userId);
+            if (account != null) {
+                account.frozen = frozen;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves amount between two wallets as one unit. Both stripes are taken in index order,
+     * so opposite transfers between the same pair cannot deadlock; the two legs share a
+     * transfer id, are journaled with one write and become durable together.
+     */
+    public void transfer(Long payerId, Long payeeId, long amount,
+                         String debitReference, String creditReference, String transferId) {
+        submit(List.of(new Leg(payerId, false, amount, debitReference),
+                new Leg(payeeId, true, amount, creditReference)), transferId);
+    }
+
+    /**
+     * Without a transaction the legs are checked, applied and journaled straight away.
+     * Inside one they follow it: debits are checked and held against the balance at once,
+     * so the caller still gets "Insufficient balance" synchronously, but the legs are only
+     * journaled in beforeCommit, as pending and with a ledger_commit row in the same
+     * transaction. A rollback before that just drops the holds; if the database commit
+     * fails after the legs were journaled, opposite REVERSAL_ legs are posted so the ledger
+     * ends where the database does.
+     */
+    private void submit(List<Leg> legs, String transferId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            journal.sync(apply(legs, transferId, true, false));
+            return;
+        }
+        hold(legs);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean journaled;
+
+            private long firstSeq;
+            private long lastSeq;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lastSeq = apply(legs, transferId, false, true);
+                firstSeq = lastSeq - legs.size() + 1;
+                journaled = true;
+                // Commits or rolls back with the caller's transaction; replay trusts only this row
+                jdbcTemplate.update("INSERT INTO ledger_commit (first_seq, last_seq) VALUES (?, ?)", firstSeq, lastSeq);
+                // Durable before the database commits, so a committed posting is never lost
+                journal.sync(lastSeq);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!journaled) {
+                    release(legs);
+                    return;
+                }
+                if (status == STATUS_COMMITTED || (status == STATUS_UNKNOWN && commitMarkerExists(firstSeq))) {
+                    clearInFlight(firstSeq, lastSeq);
+                    return;
+                }
+                List<Leg> reversal = new ArrayList<>(legs.size());
+                for (int i = 0; i < legs.size(); i++) {
+                    Leg leg = legs.get(i);
+                    reversal.add(new Leg(leg.userId, !leg.credit, leg.amount, "REVERSAL_" + leg.reference,
+                            firstSeq + i));
+                }
+                String reversalTransferId = transferId != null ? TransactionIds.next(TransactionIds.TRANSFER) : null;
+                journal.sync(apply(reversal, reversalTransferId, false, false));
+                // Only now may the originals flush: a journaled reversal makes them count on replay
+                clearInFlight(firstSeq, lastSeq);
+                System.err.println("Ledger postings " + transferId + " reversed after a failed commit");
+            }
+        });
+    }
+
+    private boolean commitMarkerExists(long firstSeq) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM ledger_commit WHERE first_seq = ?", Integer.class, firstSeq);
+            return count != null && count > 0;
+        } catch (RuntimeException e) {
+            // Keep the postings: the flusher would otherwise be blocked behind them indefinitely
+            System.err.println("Ledger commit outcome for seq " + firstSeq + " unknown, keeping postings: "
+                    + e.getMessage());
+            return true;
+        }
+    }
+
+    private void clearInFlight(long firstSeq, long lastSeq) {
+        for (long seq = firstSeq; seq <= lastSeq; seq++) {
+            inFlight.remove(seq);
+        }
+    }
+
+    // Checks the legs and holds their debits; called with the caller's transaction open
+    private void hold(List<Leg> legs) {
+        List<ReentrantLock> locks = lockAll(legs);
+        try {
+            List<Account> accounts = new ArrayList<>(legs.size());
+            for (Leg leg : legs) {
+                accounts.add(loadAccount(leg.userId));
+            }
+            check(legs, accounts);
+            for (int i = 0; i < legs.size(); i++) {
+                if (!legs.get(i).credit) {
+                    accounts.get(i).held += legs.get(i).amount;
+                }
+            }
+        } finally {
+            unlockAll(locks);
+        }
+    }
+
+    private void release(List<Leg> legs) {
+        List<ReentrantLock> locks = lockAll(legs);
+        try {
+            for (Leg leg : legs) {
+                if (!leg.credit) {
+                    loadAccount(leg.userId).held -= leg.amount;
+                }
+            }
+        } finally {
+            unlockAll(locks);
+        }
+    }
+
+    /**
+     * Applies the legs to the balances and appends them to the journal in one write.
+     * Returns the last sequence number; the caller waits for it outside the stripes so the
+     * next posting to these wallets can proceed.
+     */
+    private long apply(List<Leg> legs, String transferId, boolean check, boolean inTransaction) {
+        List<ReentrantLock> locks = lockAll(legs);
+        try {
+            List<Account> accounts = new ArrayList<>(legs.size());
+            for (Leg leg : legs) {
+                accounts.add(loadAccount(leg.userId));
+            }
+            if (check) {
+                check(legs, accounts);
+            }
+            long now = System.currentTimeMillis();
+            List<LedgerEntry> entries = new ArrayList<>(legs.size());
+            appendLock.lock();
+            try {
+                for (int i = 0; i < legs.size(); i++) {
+                    Leg leg = legs.get(i);
+                    Account account = accounts.get(i);
+                    long balanceAfter = leg.credit ? account.balance + leg.amount : account.balance - leg.amount;
+                    entries.add(new LedgerEntry(nextSeq + i, leg.userId, leg.credit, leg.amount, balanceAfter,
+                            now, leg.reference, transferId, leg.transactionId, inTransaction, leg.reversesSeq));
+                }
+                journal.appendAll(entries);
+                nextSeq += entries.size();
+                if (inTransaction) {
+                    for (LedgerEntry entry : entries) {
+                        inFlight.add(entry.getSeq());
+                    }
+                }
+                pending.addAll(entries);
+            } finally {
+                appendLock.unlock();
+            }
+
+            for (int i = 0; i < legs.size(); i++) {
+                Leg leg = legs.get(i);
+                Account account = accounts.get(i);
+                account.balance = entries.get(i).getBalanceAfter();
+                if (inTransaction && !leg.credit) {
+                    account.held -= leg.amount;
+                }
+                account.lastSeq = entries.get(i).getSeq();
+                account.lastTouched = now;
+            }
+            return entries.get(entries.size() - 1).getSeq();
+        } finally {
+            unlockAll(locks);
+        }
+    }
+
+    private static void check(List<Leg> legs, List<Account> accounts) {
+        for (int i = 0; i < legs.size(); i++) {
+            Leg leg = legs.get(i);
+            Account account = accounts.get(i);
+            if (leg.credit) {
+                // Plain credits reach frozen wallets, as they always have; transfers do not
+                if (legs.size() > 1 && account.frozen) {
+                    throw new RuntimeException("Payee wallet is frozen");
+                }
+            } else {
+                if (account.frozen) {
+                    throw new RuntimeException("Wallet is frozen");
+                }
+                if (account.balance - account.held < leg.amount) {
+                    throw new RuntimeException("Insufficient balance");
+                }
+            }
+        }
+    }
+
+    // Stripes of all legs, locked in index order so multi-leg postings cannot deadlock
+    private List<ReentrantLock> lockAll(List<Leg> legs) {
+        int[] indexes = new int[legs.size()];
+        for (int i = 0; i < legs.size(); i++) {
+            indexes[i] = stripeIndex(legs.get(i).userId);
+        }
+        Arrays.sort(indexes);
+        List<ReentrantLock> locks = new ArrayList<>(indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                ReentrantLock lock = stripes[indexes[i]];
+                lock.lock();
+                locks.add(lock);
+            }
+        }
+        return locks;
+    }
+
+    private static void unlockAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private Account loadAccount(Long userId) {
+        Account account = accounts.get(userId);
+        if (account != null) {
+            return account;
+        }
+        List<Account> rows = jdbcTemplate.query(
+                "SELECT wallet_balance, wallet_frozen FROM users WHERE id = ?",
+                (rs, rowNum) -> {
+                    Account loaded = new Account();
+                    loaded.balance = rs.getLong("wallet_balance");
+                    loaded.frozen = rs.getBoolean("wallet_frozen");
+                    return loaded;
+                },
+                userId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        account = rows.get(0);
+        account.lastTouched = System.currentTimeMillis();
+        accounts.put(userId, account);
+        return account;
+    }
+
+    private ReentrantLock stripeFor(Long userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private int stripeIndex(Long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 33) % stripes.length);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Ledger flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes pending postings to MySQL in batches. Entries are only removed from the
+     * queue after their batch commits, so a failed flush is retried as-is.
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            // Entries appended after this snapshot are picked up by the next flush; the snapshot
+            // stops at the first posting whose transaction is still open, keeping sequence order
+            List<LedgerEntry> snapshot = new ArrayList<>();
+            for (LedgerEntry entry : pending) {
+                if (inFlight.contains(entry.getSeq())) {
+                    break;
+                }
+                snapshot.add(entry);
+            }
+            for (int from = 0; from < snapshot.size(); ) {
+                int to = batchEnd(snapshot, from);
+                writeBatch(snapshot.subList(from, to));
+                for (int i = from; i < to; i++) {
+                    pending.poll();
+                }
+                from = to;
+            }
+            if (journal.size() > journalMaxBytes) {
+                journal.truncateIfFlushed(flushedSeq);
+            }
+            evictIdleAccounts();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * End (exclusive) of the batch starting at from: up to flushBatchSize entries, extended
+     * while the next entry shares the last one's transfer id, so every leg of a transfer
+     * (including reversal pairs, which are journaled credit first) commits in one batch.
+     */
+    private int batchEnd(List<LedgerEntry> entries, int from) {
+        int to = Math.min(from + flushBatchSize, entries.size());
+        while (to < entries.size() && entries.get(to - 1).getTransferId() != null
+                && entries.get(to - 1).getTransferId().equals(entries.get(to).getTransferId())) {
+            to++;
+        }
+        return to;
+    }
+
+    private void writeBatch(List<LedgerEntry> batch) {
+        // Last posting per user carries that wallet's balance after the batch
+        Map<Long, Long> finalBalances = new LinkedHashMap<>();
+        List<TransactionAggregateService.Posting> postings = new ArrayList<>(batch.size());
+        List<OutboxService.Posting> events = new ArrayList<>(batch.size());
+        for (LedgerEntry entry : batch) {
+            LocalDateTime createdAt = toLocalDateTime(entry.getCreatedAtMillis());
+            finalBalances.put(entry.getUserId(), entry.getBalanceAfter());
+            postings.add(new TransactionAggregateService.Posting(entry.getUserId(),
+                    entry.isCredit() ? "CREDIT" : "DEBIT", entry.getAmount(), createdAt));
+            events.add(new OutboxService.Posting(entry.getUserId(), entry.isCredit(), entry.getAmount(),
+                    entry.getBalanceAfter(), entry.getReference(), entry.getTransferId(), createdAt));
+        }
+        long lastSeq = batch.get(batch.size() - 1).getSeq();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_POSTING, batch, batch.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getUserId());
+                ps.setLong(2, entry.getAmount());
+                ps.setLong(3, entry.getBalanceAfter());
+                ps.setString(4, entry.isCredit() ? "CREDIT" : "DEBIT");
+                ps.setString(5, entry.getReference());
+                ps.setTimestamp(6, Timestamp.valueOf(toLocalDateTime(entry.getCreatedAtMillis())));
+                ps.setString(7, entry.getTransferId());
+                // Journal records from before generated ids get one at flush
+                ps.setString(8, entry.getTransactionId() != null
+                        ? entry.getTransactionId() : TransactionIds.next(TransactionIds.WALLET));
+            });
+            List<Object[]> balanceArgs = new ArrayList<>(finalBalances.size());
+            finalBalances.forEach((userId, balance) -> balanceArgs.add(new Object[]{balance, userId}));
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE, balanceArgs);
+            aggregateService.recordAll(postings);
+            outboxService.recordPostings(events);
+            jdbcTemplate.update("UPDATE ledger_checkpoint SET last_seq = ? WHERE id = 1", lastSeq);
+            jdbcTemplate.update("DELETE FROM ledger_commit WHERE last_seq <= ?", lastSeq);
+        });
+        flushedSeq = lastSeq;
+    }
+
+    /**
+     * Journal entries past the checkpoint that belong in the database. Pending entries count
+     * only if a ledger_commit row covers them or the journal holds their reversal; the rest
+     * were journaled by a transaction that died before committing. They are dropped and the
+     * later balances of the same wallets are shifted back by their amounts.
+     */
+    private List<LedgerEntry> committedSince(List<LedgerEntry> recovered, long checkpoint) {
+        NavigableMap<Long, Long> commits = new TreeMap<>();
+        jdbcTemplate.query("SELECT first_seq, last_seq FROM ledger_commit",
+                rs -> { commits.put(rs.getLong("first_seq"), rs.getLong("last_seq")); });
+        Set<Long> reversed = new HashSet<>();
+        for (LedgerEntry entry : recovered) {
+            if (entry.getReversesSeq() > 0) {
+                reversed.add(entry.getReversesSeq());
+            }
+        }
+
+        List<LedgerEntry> replay = new ArrayList<>();
+        Map<Long, Long> corrections = new HashMap<>();
+        int skipped = 0;
+        for (LedgerEntry entry : recovered) {
+            if (entry.getSeq() <= checkpoint) {
+                continue;
+            }
+            Map.Entry<Long, Long> commit = commits.floorEntry(entry.getSeq());
+            boolean committed = !entry.isPending() || reversed.contains(entry.getSeq())
+                    || (commit != null && commit.getValue() >= entry.getSeq());
+            long correction = corrections.getOrDefault(entry.getUserId(), 0L);
+            if (!committed) {
+                corrections.put(entry.getUserId(),
+                        correction + (entry.isCredit() ? -entry.getAmount() : entry.getAmount()));
+                skipped++;
+                continue;
+            }
+            replay.add(correction == 0 ? entry : entry.withBalanceAfter(entry.getBalanceAfter() + correction));
+        }
+        if (skipped > 0) {
+            System.err.println("Ledger dropped " + skipped + " journaled postings whose transaction never committed");
+        }
+        return replay;
+    }
+
+    private void evictIdleAccounts() {
+        if (accounts.size() <= maxAccounts) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - 60_000;
+        for (Map.Entry<Long, Account> e : accounts.entrySet()) {
+            if (accounts.size() <= maxAccounts) {
+                break;
+            }
+            ReentrantLock lock = stripeFor(e.getKey());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                Account account = e.getValue();
+                if (account.lastSeq <= flushedSeq && account.held == 0 && account.lastTouched < idleBefore) {
+                    accounts.remove(e.getKey());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            journal.truncateIfFlushed(flushedSeq);
+            journal.close();
+        } catch (Exception e) {
+            System.err.println("Ledger shutdown flush failed, journal will be replayed: " + e.getMessage());
+        }
+    }
+
+    private static final class Leg {
+        private final Long userId;
+        private final boolean credit;
+        private final long amount;
+        private final String reference;
+        private final String transactionId = TransactionIds.next(TransactionIds.WALLET);
+        private final long reversesSeq;
+
+        private Leg(Long userId, boolean credit, long amount, String reference) {
+            this(userId, credit, amount, reference, 0L);
+        }
+
+        private Leg(Long userId, boolean credit, long amount, String reference, long reversesSeq) {
+            this.userId = userId;
+            this.credit = credit;
+            this.amount = amount;
+            this.reference = reference;
+            this.reversesSeq = reversesSeq;
+        }
+    }
+
+    private static final class Account {
+        private long balance;
+        // Debits checked inside still-open transactions, not yet journaled
+        private long held;
+        private boolean frozen;
+        private long lastSeq;
+        private long lastTouched;
+    }
+}
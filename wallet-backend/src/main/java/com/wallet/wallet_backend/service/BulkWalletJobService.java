@@ -0,0 +1,291 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.util.TransactionIds;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous bulk wallet operations (promo credits, mass freezes).
+ *
+ * The id list is cut into chunks and each chunk commits on its own, so a 50k-user job
+ * never holds one long transaction. Within a chunk the rows are locked with one
+ * SELECT ... FOR UPDATE, updated with one set-based UPDATE ... WHERE id IN (...) and the
+ * postings written with a JDBC batch. Progress, per-id failures and throughput are kept
+ * on the job and exposed through the admin job-status endpoint.
+ */
+@Service
+public class BulkWalletJobService {
+
+    private static final int MAX_RECORDED_FAILURES = 1000;
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private static final String INSERT_POSTING =
+            "INSERT INTO main_transactions (user_id, amount, balance_after, type, reference, status, created_at, transaction_id) " +
+            "VALUES (?, ?, ?, 'CREDIT', ?, 'COMPLETED', ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceLedger balanceLedger;
+    private final TransactionAggregateService aggregateService;
+    private final OutboxService outboxService;
+    private final Executor bulkJobExecutor;
+    private final int chunkSize;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobSequence = new AtomicLong();
+
+    public BulkWalletJobService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                BalanceLedger balanceLedger,
+                                TransactionAggregateService aggregateService,
+                                OutboxService outboxService,
+                                @Qualifier("bulkJobExecutor") Executor bulkJobExecutor,
+                                @Value("${wallet.bulk.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceLedger = balanceLedger;
+        this.aggregateService = aggregateService;
+        this.outboxService = outboxService;
+        this.bulkJobExecutor = bulkJobExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    public Map<String, Object> submitCredit(List<Long> userIds, long amount, String reason) {
+        if (amount <= 0) {
+            throw new RuntimeException("Amount must be greater than zero");
+        }
+        String reference = "BULK_ADMIN_" + reason;
+        return submit("BULK_CREDIT", userIds, chunk -> creditChunk(chunk, amount, reference));
+    }
+
+    public Map<String, Object> submitFreeze(List<Long> userIds) {
+        return submit("BULK_FREEZE", userIds, this::freezeChunk);
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Bulk job not found");
+        }
+        return job.toMap(true);
+    }
+
+    public List<Map<String, Object>> listJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        jobs.values().stream()
+                .sorted(Comparator.comparing((BulkJob j) -> j.submittedAt).reversed())
+                .forEach(job -> result.add(job.toMap(false)));
+        return result;
+    }
+
+    private Map<String, Object> submit(String type, List<Long> userIds, ChunkHandler handler) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new RuntimeException("No user ids given");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        BulkJob job = new BulkJob("JOB" + System.currentTimeMillis() + "-" + jobSequence.incrementAndGet(),
+                type, ids.size());
+        retain(job);
+        bulkJobExecutor.execute(() -> run(job, ids, handler));
+        return job.toMap(false);
+    }
+
+    private void run(BulkJob job, List<Long> ids, ChunkHandler handler) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        job.startNanos = System.nanoTime();
+        try {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                try {
+                    Map<Long, String> failures = handler.process(chunk);
+                    job.recordChunk(chunk.size(), failures);
+                } catch (Exception e) {
+                    // The chunk rolled back as a whole
+                    Map<Long, String> failures = new LinkedHashMap<>();
+                    chunk.forEach(id -> failures.put(id, e.getMessage()));
+                    job.recordChunk(chunk.size(), failures);
+                }
+            }
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.elapsedNanos = System.nanoTime() - job.startNanos;
+        }
+    }
+
+    private Map<Long, String> creditChunk(List<Long> chunk, long amount, String reference) {
+        Map<Long, String> failures = new LinkedHashMap<>();
+
+        if (balanceLedger.isEnabled()) {
+            // Balances are owned by the ledger; its postings are batched to MySQL by the flusher
+            for (Long userId : chunk) {
+                try {
+                    balanceLedger.credit(userId, amount, reference);
+                } catch (Exception e) {
+                    failures.put(userId, e.getMessage());
+                }
+            }
+            return failures;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Long> balances = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                    "SELECT id, wallet_balance FROM users WHERE id IN (" + placeholders(chunk.size()) +
+                    ") ORDER BY id FOR UPDATE",
+                    rs -> {
+                        balances.put(rs.getLong("id"), rs.getLong("wallet_balance"));
+                    },
+                    chunk.toArray());
+            for (Long userId : chunk) {
+                if (!balances.containsKey(userId)) {
+                    failures.put(userId, "User not found");
+                }
+            }
+            if (balances.isEmpty()) {
+                return;
+            }
+
+            List<Object> updateArgs = new ArrayList<>(balances.size() + 1);
+            updateArgs.add(amount);
+            updateArgs.addAll(balances.keySet());
+            jdbcTemplate.update(
+                    "UPDATE users SET wallet_balance = wallet_balance + ?, version = version + 1 WHERE id IN (" +
+                    placeholders(balances.size()) + ")",
+                    updateArgs.toArray());
+
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp createdAt = Timestamp.valueOf(now);
+            List<Object[]> postings = new ArrayList<>(balances.size());
+            List<TransactionAggregateService.Posting> aggregates = new ArrayList<>(balances.size());
+            List<OutboxService.Posting> events = new ArrayList<>(balances.size());
+            balances.forEach((userId, balance) -> {
+                postings.add(new Object[]{userId, amount, balance + amount, reference, createdAt,
+                        TransactionIds.next(TransactionIds.WALLET)});
+                aggregates.add(new TransactionAggregateService.Posting(userId, "CREDIT", amount, now));
+                events.add(new OutboxService.Posting(userId, true, amount, balance + amount, reference, null, now));
+            });
+            jdbcTemplate.batchUpdate(INSERT_POSTING, postings);
+            aggregateService.recordAll(aggregates);
+            outboxService.recordPostings(events);
+        });
+        return failures;
+    }
+
+    private Map<Long, String> freezeChunk(List<Long> chunk) {
+        Map<Long, String> failures = new LinkedHashMap<>();
+        List<Long> existing = transactionTemplate.execute(status -> {
+            List<Long> found = jdbcTemplate.queryForList(
+                    "SELECT id FROM users WHERE id IN (" + placeholders(chunk.size()) + ") FOR UPDATE",
+                    Long.class, chunk.toArray());
+            if (!found.isEmpty()) {
+                jdbcTemplate.update(
+                        "UPDATE users SET wallet_frozen = true, version = version + 1 " +
+                        "WHERE wallet_frozen = false AND id IN (" + placeholders(found.size()) + ")",
+                        found.toArray());
+            }
+            return found;
+        });
+        Set<Long> found = new HashSet<>(existing != null ? existing : List.of());
+        for (Long userId : chunk) {
+            if (found.contains(userId)) {
+                balanceLedger.updateFrozen(userId, true);
+            } else {
+                failures.put(userId, "User not found");
+            }
+        }
+        return failures;
+    }
+
+    private void retain(BulkJob job) {
+        jobs.put(job.id, job);
+        if (jobs.size() > MAX_RETAINED_JOBS) {
+            jobs.values().stream()
+                    .filter(j -> j.finishedAt != null)
+                    .min(Comparator.comparing((BulkJob j) -> j.submittedAt))
+                    .ifPresent(oldest -> jobs.remove(oldest.id));
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private interface ChunkHandler {
+        // Returns the ids in the chunk that failed, with the reason
+        Map<Long, String> process(List<Long> chunk);
+    }
+
+    private static final class BulkJob {
+        private final String id;
+        private final String type;
+        private final int total;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final Map<Long, String> failures = new LinkedHashMap<>();
+        private volatile String status = "QUEUED";
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long startNanos;
+        private volatile long elapsedNanos;
+        private int processed;
+        private int failed;
+
+        private BulkJob(String id, String type, int total) {
+            this.id = id;
+            this.type = type;
+            this.total = total;
+        }
+
+        private synchronized void recordChunk(int size, Map<Long, String> chunkFailures) {
+            processed += size;
+            failed += chunkFailures.size();
+            for (Map.Entry<Long, String> failure : chunkFailures.entrySet()) {
+                if (failures.size() >= MAX_RECORDED_FAILURES) {
+                    break;
+                }
+                failures.put(failure.getKey(), failure.getValue());
+            }
+        }
+
+        private synchronized Map<String, Object> toMap(boolean withFailures) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("type", type);
+            map.put("status", status);
+            map.put("total", total);
+            map.put("processed", processed);
+            map.put("succeeded", processed - failed);
+            map.put("failed", failed);
+            map.put("progress", total > 0 ? processed * 100.0 / total : 100.0);
+            map.put("submittedAt", submittedAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+
+            long nanos = finishedAt != null ? elapsedNanos : (startedAt != null ? System.nanoTime() - startNanos : 0);
+            map.put("elapsedMs", nanos / 1_000_000);
+            map.put("idsPerSecond", nanos > 0 ? processed / (nanos / 1_000_000_000.0) : 0.0);
+            if (error != null) {
+                map.put("error", error);
+            }
+            if (withFailures) {
+                map.put("failures", new LinkedHashMap<>(failures));
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.util.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-endpoint request latency, rate and error counts, recorded by EndpointMetricsFilter.
+ *
+ * Each endpoint ("POST /api/wallet/debit", keyed by the matched route pattern) records
+ * into the window of the current minute: a LatencyHistogram plus request, 4xx and 5xx
+ * adders, so the request path never locks. The first request of a new minute swaps in a
+ * fresh window with one CAS. Every few seconds roll() compacts closed windows into
+ * immutable per-minute snapshots and keeps retention-minutes of them. Reads merge the
+ * snapshots they need with the live window. Lifetime totals are kept for the scrape
+ * endpoint, whose counters must only go up.
+ */
+@Service
+public class EndpointMetrics {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    // Windows closed this recently may still have a request finishing its record()
+    private static final long CLOSE_GRACE_MILLIS = 2_000L;
+    private static final String OTHER = "OTHER";
+
+    private final int retentionMinutes;
+    private final int maxEndpoints;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public EndpointMetrics(@Value("${wallet.metrics.retention-minutes:60}") int retentionMinutes,
+                           @Value("${wallet.metrics.max-endpoints:500}") int maxEndpoints) {
+        this.retentionMinutes = retentionMinutes;
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    public void record(String endpoint, long micros, int status) {
+        Endpoint target = endpoints.get(endpoint);
+        if (target == null) {
+            // Route patterns keep the key space small; the cap only guards against surprises
+            String key = endpoints.size() < maxEndpoints ? endpoint : OTHER;
+            target = endpoints.computeIfAbsent(key, k -> new Endpoint());
+        }
+        target.record(System.currentTimeMillis() / MINUTE_MILLIS, micros, status);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.metrics.roll-interval-ms:5000}")
+    public void roll() {
+        long now = System.currentTimeMillis();
+        long minute = now / MINUTE_MILLIS;
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.roll(minute, now, minute - retentionMinutes);
+        }
+    }
+
+    /**
+     * Per-endpoint summaries over the last `minutes` minutes, including the current one,
+     * busiest first, under an "overall" entry for all endpoints together.
+     */
+    public Map<String, Object> summary(int minutes) {
+        minutes = clamp(minutes);
+        long since = System.currentTimeMillis() / MINUTE_MILLIS - minutes + 1;
+        List<Map.Entry<String, Summary>> summaries = new ArrayList<>();
+        Summary overall = new Summary();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Summary summary = entry.getValue().summarize(since);
+            if (summary.requests > 0) {
+                summaries.add(Map.entry(entry.getKey(), summary));
+                overall.add(summary);
+            }
+        }
+        summaries.sort((a, b) -> Long.compare(b.getValue().requests, a.getValue().requests));
+
+        double seconds = minutes * 60.0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("minutes", minutes);
+        result.put("overall", overall.toMap(seconds));
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        for (Map.Entry<String, Summary> entry : summaries) {
+            byEndpoint.put(entry.getKey(), entry.getValue().toMap(seconds));
+        }
+        result.put("endpoints", byEndpoint);
+        return result;
+    }
+
+    /**
+     * Overall figures over the last `minutes` minutes: requests, errorRate, p50/p95/p99/max and average in ms.
+     */
+    public Map<String, Object> overall(int minutes) {
+        minutes = clamp(minutes);
+        long since = System.currentTimeMillis() / MINUTE_MILLIS - minutes + 1;
+        Summary overall = new Summary();
+        for (Endpoint endpoint : endpoints.values()) {
+            overall.add(endpoint.summarize(since));
+        }
+        return overall.toMap(minutes * 60.0);
+    }
+
+    /**
+     * Prometheus text exposition: lifetime counters and duration sums per endpoint, with
+     * quantiles and max over the current and previous minute.
+     */
+    public String scrape() {
+        long since = System.currentTimeMillis() / MINUTE_MILLIS - 1;
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# HELP wallet_http_request_duration_seconds Request latency; quantiles over the current and previous minute\n");
+        out.append("# TYPE wallet_http_request_duration_seconds summary\n");
+        List<String> names = new ArrayList<>(endpoints.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            Endpoint endpoint = endpoints.get(name);
+            String label = "endpoint=\"" + escape(name) + "\"";
+            LatencyHistogram.Snapshot recent = endpoint.summarize(since).latency;
+            for (double quantile : new double[]{0.5, 0.95, 0.99}) {
+                out.append("wallet_http_request_duration_seconds{").append(label).append(",quantile=\"")
+                        .append(quantile).append("\"} ").append(seconds(recent.percentileMicros(quantile * 100)))
+                        .append('\n');
+            }
+            out.append("wallet_http_request_duration_seconds_sum{").append(label).append("} ")
+                    .append(seconds(endpoint.totalMicros.sum())).append('\n');
+            out.append("wallet_http_request_duration_seconds_count{").append(label).append("} ")
+                    .append(endpoint.totalRequests.sum()).append('\n');
+        }
+        appendGauge(out, names, "wallet_http_request_duration_seconds_max",
+                "Slowest request over the current and previous minute", name ->
+                        seconds(endpoints.get(name).summarize(since).latency.getMaxMicros()));
+        appendCounter(out, names, "wallet_http_client_errors_total", "Requests answered with a 4xx status",
+                name -> String.valueOf(endpoints.get(name).totalClientErrors.sum()));
+        appendCounter(out, names, "wallet_http_server_errors_total", "Requests answered with a 5xx status",
+                name -> String.valueOf(endpoints.get(name).totalServerErrors.sum()));
+        return out.toString();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoints", endpoints.size());
+        stats.put("retentionMinutes", retentionMinutes);
+        stats.put("lastMinute", overall(1));
+        return stats;
+    }
+
+    private int clamp(int minutes) {
+        return Math.max(1, Math.min(minutes, retentionMinutes));
+    }
+
+    private static void appendGauge(StringBuilder out, List<String> names, String metric, String help,
+                                    Function<String, String> value) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" gauge\n");
+        appendValues(out, names, metric, value);
+    }
+
+    private static void appendCounter(StringBuilder out, List<String> names, String metric, String help,
+                                      Function<String, String> value) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" counter\n");
+        appendValues(out, names, metric, value);
+    }
+
+    private static void appendValues(StringBuilder out, List<String> names, String metric,
+                                     Function<String, String> value) {
+        for (String name : names) {
+            out.append(metric).append("{endpoint=\"").append(escape(name)).append("\"} ")
+                    .append(value.apply(name)).append('\n');
+        }
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long micros) {
+        return String.valueOf(micros / 1_000_000.0);
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static final class Endpoint {
+        private final AtomicReference<Window> current = new AtomicReference<>(new Window(0));
+        private final Queue<Window> closed = new ConcurrentLinkedQueue<>();
+        // Guarded by itself; newest last
+        private final Deque<MinuteSnapshot> history = new ArrayDeque<>();
+        private final LongAdder totalRequests = new LongAdder();
+        private final LongAdder totalClientErrors = new LongAdder();
+        private final LongAdder totalServerErrors = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+
+        private void record(long minute, long micros, int status) {
+            windowFor(minute).record(micros, status);
+            totalRequests.increment();
+            totalMicros.add(micros);
+            if (status >= 500) {
+                totalServerErrors.increment();
+            } else if (status >= 400) {
+                totalClientErrors.increment();
+            }
+        }
+
+        private Window windowFor(long minute) {
+            Window window = current.get();
+            while (window.minute < minute) {
+                Window fresh = new Window(minute);
+                if (current.compareAndSet(window, fresh)) {
+                    window.closedAt = System.currentTimeMillis();
+                    closed.add(window);
+                    return fresh;
+                }
+                window = current.get();
+            }
+            return window;
+        }
+
+        private void roll(long minute, long now, long oldestKept) {
+            windowFor(minute);
+            for (Window window = closed.peek(); window != null; window = closed.peek()) {
+                if (now - window.closedAt < CLOSE_GRACE_MILLIS) {
+                    break;
+                }
+                closed.poll();
+                if (window.requests.sum() > 0) {
+                    MinuteSnapshot snapshot = window.snapshot();
+                    synchronized (history) {
+                        history.addLast(snapshot);
+                    }
+                }
+            }
+            synchronized (history) {
+                while (!history.isEmpty() && history.peekFirst().minute < oldestKept) {
+                    history.removeFirst();
+                }
+            }
+        }
+
+        private Summary summarize(long sinceMinute) {
+            Summary summary = new Summary();
+            synchronized (history) {
+                for (Iterator<MinuteSnapshot> it = history.descendingIterator(); it.hasNext(); ) {
+                    MinuteSnapshot snapshot = it.next();
+                    if (snapshot.minute < sinceMinute) {
+                        break;
+                    }
+                    summary.add(snapshot);
+                }
+            }
+            // Windows waiting for roll() and the live one
+            for (Window window : closed) {
+                if (window.minute >= sinceMinute) {
+                    summary.add(window.snapshot());
+                }
+            }
+            Window live = current.get();
+            if (live.minute >= sinceMinute) {
+                summary.add(live.snapshot());
+            }
+            return summary;
+        }
+    }
+
+    private static final class Window {
+        private final long minute;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder micros = new LongAdder();
+        private volatile long closedAt;
+
+        private Window(long minute) {
+            this.minute = minute;
+        }
+
+        private void record(long elapsedMicros, int status) {
+            latency.record(elapsedMicros);
+            requests.increment();
+            micros.add(elapsedMicros);
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+
+        private MinuteSnapshot snapshot() {
+            return new MinuteSnapshot(minute, latency.snapshot(), requests.sum(), clientErrors.sum(),
+                    serverErrors.sum(), micros.sum());
+        }
+    }
+
+    private static final class MinuteSnapshot {
+        private final long minute;
+        private final LatencyHistogram.Snapshot latency;
+        private final long requests;
+        private final long clientErrors;
+        private final long serverErrors;
+        private final long micros;
+
+        private MinuteSnapshot(long minute, LatencyHistogram.Snapshot latency, long requests,
+                               long clientErrors, long serverErrors, long micros) {
+            this.minute = minute;
+            this.latency = latency;
+            this.requests = requests;
+            this.clientErrors = clientErrors;
+            this.serverErrors = serverErrors;
+            this.micros = micros;
+        }
+    }
+
+    private static final class Summary {
+        private LatencyHistogram.Snapshot latency = LatencyHistogram.Snapshot.EMPTY;
+        private long requests;
+        private long clientErrors;
+        private long serverErrors;
+        private long micros;
+
+        private void add(MinuteSnapshot snapshot) {
+            latency = latency.merge(snapshot.latency);
+            requests += snapshot.requests;
+            clientErrors += snapshot.clientErrors;
+            serverErrors += snapshot.serverErrors;
+            micros += snapshot.micros;
+        }
+
+        private void add(Summary other) {
+            latency = latency.merge(other.latency);
+            requests += other.requests;
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+            micros += other.micros;
+        }
+
+        private Map<String, Object> toMap(double seconds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", requests);
+            map.put("requestsPerSecond", Math.round(requests / seconds * 100) / 100.0);
+            map.put("errorRate", requests > 0 ? Math.round(serverErrors * 10000.0 / requests) / 100.0 : 0.0);
+            map.put("clientErrorRate", requests > 0 ? Math.round(clientErrors * 10000.0 / requests) / 100.0 : 0.0);
+            map.put("avgMs", requests > 0 ? millis(micros / requests) : 0.0);
+            map.put("p50Ms", millis(latency.percentileMicros(50)));
+            map.put("p95Ms", millis(latency.percentileMicros(95)));
+            map.put("p99Ms", millis(latency.percentileMicros(99)));
+            map.put("maxMs", millis(latency.getMaxMicros()));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package com.wallet.wallet_backend.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * CSV / NDJSON export of admin datasets (transactions, users, wallets, KYC documents).
+ *
+ * Rows are read through a forward-only, read-only statement with Connector/J's streaming
+ * fetch size, so the driver hands over one row at a time, and each row is written
+ * straight to the output: memory use does not depend on the size of the export. Only
+ * whitelisted columns can be selected; the SQL is built from the dataset definition,
+ * never from request text.
+ *
+ * Small exports stream directly into the HTTP response. Large ones run as background
+ * jobs that write {jobId}.part in the export directory and rename it once complete; the
+ * finished file is served with HTTP Range support so an interrupted download resumes
+ * where it stopped. Files are deleted after the retention period.
+ */
+@Service
+public class ExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final Map<String, Dataset> DATASETS = new LinkedHashMap<>();
+
+    static {
+        DATASETS.put("transactions", new Dataset("main_transactions", "id", "created_at",
+                columns("id", "id", "transactionId", "transaction_id", "userId", "user_id",
+                        "userName", "user_name", "type", "type", "amount", rupees("amount"),
+                        "balanceAfter", rupees("balance_after"), "status", "status", "paymentMethod", "payment_method",
+                        "reference", "reference", "transferId", "transfer_id", "date", "created_at"),
+                Set.of("type", "status")));
+        DATASETS.put("users", new Dataset("users", "id", "created_at",
+                columns("id", "id", "name", "name", "email", "email", "mobile", "mobile",
+                        "role", "role", "kycStatus", "kyc_status", "riskLevel", "risk_level",
+                        "walletBalance", rupees("wallet_balance"), "walletFrozen", "wallet_frozen",
+                        "createdAt", "created_at", "lastActive", "last_active"),
+                Set.of("kycStatus", "role")));
+        DATASETS.put("wallet", new Dataset("users", "id", "created_at",
+                columns("userId", "id", "name", "name", "mobile", "mobile",
+                        "walletBalance", rupees("wallet_balance"), "walletFrozen", "wallet_frozen",
+                        "createdAt", "created_at"),
+                Set.of()));
+        DATASETS.put("kyc", new Dataset("kyc_documents", "id", "submitted_at",
+                columns("id", "id", "userId", "user_id", "documentType", "document_type",
+                        "status", "status", "submittedAt", "submitted_at", "reviewedAt", "reviewed_at",
+                        "reviewedBy", "reviewed_by", "rejectionReason", "rejection_reason"),
+                Set.of("status", "documentType")));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor exportExecutor;
+    private final Path directory;
+    private final long retentionHours;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobSequence = new AtomicLong();
+
+    public ExportService(JdbcTemplate jdbcTemplate,
+                         @Qualifier("exportExecutor") Executor exportExecutor,
+                         @Value("${wallet.export.directory:data/exports}") String directory,
+                         @Value("${wallet.export.retention-hours:24}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportExecutor = exportExecutor;
+        this.directory = Paths.get(directory);
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Validated export request. columns may be empty for every column of the dataset;
+     * names are matched ignoring case, spaces and underscores ("Transaction ID" = transactionId).
+     */
+    public ExportRequest request(String dataset, String format, List<String> columns,
+                                 LocalDateTime from, LocalDateTime to, Map<String, String> filters) {
+        Dataset definition = DATASETS.get(dataset != null ? dataset.toLowerCase(Locale.ROOT) : "");
+        if (definition == null) {
+            throw new RuntimeException("Unsupported export dataset: " + dataset);
+        }
+        String fmt = format == null ? CSV : format.toLowerCase(Locale.ROOT);
+        if (fmt.equals("json") || fmt.equals("jsonl")) {
+            fmt = NDJSON;
+        }
+        if (!fmt.equals(CSV) && !fmt.equals(NDJSON)) {
+            throw new RuntimeException("Unsupported export format: " + format + " (use csv or ndjson)");
+        }
+
+        LinkedHashMap<String, String> selected = new LinkedHashMap<>();
+        if (columns == null || columns.isEmpty()) {
+            selected.putAll(definition.columns);
+        } else {
+            for (String column : columns) {
+                String name = definition.resolve(column);
+                if (name == null) {
+                    throw new RuntimeException("Unknown export column: " + column);
+                }
+                selected.put(name, definition.columns.get(name));
+            }
+        }
+
+        Map<String, String> conditions = new LinkedHashMap<>();
+        if (filters != null) {
+            filters.forEach((key, value) -> {
+                String name = definition.resolve(key);
+                if (value != null && !value.isEmpty() && !"all".equalsIgnoreCase(value)
+                        && name != null && definition.filterable.contains(name)) {
+                    conditions.put(definition.columns.get(name), value.toUpperCase(Locale.ROOT));
+                }
+            });
+        }
+        return new ExportRequest(dataset.toLowerCase(Locale.ROOT), definition, fmt, selected, from, to, conditions);
+    }
+
+    public String contentType(ExportRequest request) {
+        return NDJSON.equals(request.format) ? "application/x-ndjson" : "text/csv";
+    }
+
+    public String fileName(ExportRequest request) {
+        return request.dataset + "-" + System.currentTimeMillis() + "." + request.format;
+    }
+
+    /**
+     * Writes every matching row to out and returns the row count. out is flushed, not closed.
+     */
+    public long write(ExportRequest request, OutputStream out) {
+        return write(request, out, rows -> { }, () -> false);
+    }
+
+    private long write(ExportRequest request, OutputStream out, ProgressListener progress, CancelCheck cancelled) {
+        List<Object> args = new ArrayList<>();
+        String sql = request.sql(args);
+        String[] names = request.columns.keySet().toArray(new String[0]);
+        long[] rows = {0};
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_BYTES);
+            RowWriter rowWriter = NDJSON.equals(request.format) ? new NdjsonWriter(writer, names) : new CsvWriter(writer, names);
+            rowWriter.header();
+            Object[] values = new Object[names.length];
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Connector/J streams the result one row at a time instead of buffering it
+                ps.setFetchSize(Integer.MIN_VALUE);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, rs -> {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = plain(rs.getObject(i + 1));
+                }
+                try {
+                    rowWriter.row(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++rows[0] % PROGRESS_EVERY_ROWS == 0) {
+                    progress.rows(rows[0]);
+                    if (cancelled.check()) {
+                        throw new RuntimeException("Export cancelled");
+                    }
+                }
+            });
+            writer.flush();
+            progress.rows(rows[0]);
+            return rows[0];
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Export write failed: " + e.getMessage(), e);
+        }
+    }
+
+    // ==================== BACKGROUND JOBS ====================
+
+    public Map<String, Object> submit(ExportRequest request) {
+        ExportJob job = new ExportJob("EXP" + System.currentTimeMillis() + "-" + jobSequence.incrementAndGet(),
+                request, fileName(request));
+        retain(job);
+        exportExecutor.execute(() -> run(job));
+        return job.toMap();
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        return find(jobId).toMap();
+    }
+
+    public List<Map<String, Object>> listJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        jobs.values().stream()
+                .sorted(Comparator.comparing((ExportJob j) -> j.submittedAt).reversed())
+                .forEach(job -> result.add(job.toMap()));
+        return result;
+    }
+
+    public void cancel(String jobId) {
+        ExportJob job = find(jobId);
+        job.cancelled = true;
+        if (job.finishedAt != null) {
+            jobs.remove(jobId);
+            deleteQuietly(job.file());
+        }
+    }
+
+    /**
+     * The finished file of a job, for a download that may ask for byte ranges.
+     */
+    public Download download(String jobId) {
+        ExportJob job = find(jobId);
+        if (!"COMPLETED".equals(job.status)) {
+            throw new RuntimeException("Export is not ready (" + job.status + ")");
+        }
+        Path file = job.file();
+        if (!Files.exists(file)) {
+            throw new RuntimeException("Export file has expired");
+        }
+        return new Download(new FileSystemResource(file), job.fileName, contentType(job.request),
+                "\"" + job.id + "-" + job.bytes + "\"");
+    }
+
+    private void run(ExportJob job) {
+        if (job.cancelled) {
+            job.status = "CANCELLED";
+            job.finishedAt = LocalDateTime.now();
+            return;
+        }
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        Path part = directory.resolve(job.id + ".part");
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = Files.newOutputStream(part)) {
+                job.rows = write(job.request, out, rows -> job.rows = rows, () -> job.cancelled);
+            }
+            Files.move(part, job.file(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.bytes = Files.size(job.file());
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            deleteQuietly(part);
+            job.status = job.cancelled ? "CANCELLED" : "FAILED";
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.export.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionHours * 3_600_000L;
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff && !isRunning(file)) {
+                    deleteQuietly(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Export cleanup failed: " + e.getMessage());
+        }
+        jobs.values().removeIf(job -> job.finishedAt != null && !Files.exists(job.file()));
+        if (deleted > 0) {
+            System.out.println("Deleted " + deleted + " expired export files");
+        }
+    }
+
+    private boolean isRunning(Path file) {
+        String name = file.getFileName().toString();
+        return jobs.values().stream().anyMatch(job -> job.finishedAt == null && name.startsWith(job.id + "."));
+    }
+
+    private ExportJob find(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Export job not found");
+        }
+        return job;
+    }
+
+    private void retain(ExportJob job) {
+        jobs.put(job.id, job);
+        if (jobs.size() > MAX_RETAINED_JOBS) {
+            jobs.values().stream()
+                    .filter(j -> j.finishedAt != null)
+                    .min(Comparator.comparing((ExportJob j) -> j.submittedAt))
+                    .ifPresent(oldest -> {
+                        jobs.remove(oldest.id);
+                        deleteQuietly(oldest.file());
+                    });
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Could not delete export file " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Driver values reduced to String / Number / Boolean / null
+    private static Object plain(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        if (value instanceof Number || value instanceof Boolean || value == null) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    private static LinkedHashMap<String, String> columns(String... nameAndSql) {
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < nameAndSql.length; i += 2) {
+            columns.put(nameAndSql[i], nameAndSql[i + 1]);
+        }
+        return columns;
+    }
+
+    // Amount columns hold paise; exports keep publishing decimal rupees
+    private static String rupees(String column) {
+        return "CAST(" + column + " / 100 AS DECIMAL(20, 2))";
+    }
+
+    private static String key(String name) {
+        return name.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private interface ProgressListener {
+        void rows(long rows);
+    }
+
+    private interface CancelCheck {
+        boolean check();
+    }
+
+    private interface RowWriter {
+        void header() throws IOException;
+
+        void row(Object[] values) throws IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer writer;
+        private final String[] names;
+
+        private CsvWriter(Writer writer, String[] names) {
+            this.writer = writer;
+            this.names = names;
+        }
+
+        @Override
+        public void header() throws IOException {
+            row(names);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                if (!(value instanceof String)) {
+                    writer.write(value.toString());
+                    continue;
+                }
+                String text = (String) value;
+                // Keep spreadsheet apps from evaluating user-supplied text as a formula
+                if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                    text = "'" + text;
+                }
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(text.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(text);
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private final Writer writer;
+        private final String[] keys;
+
+        private NdjsonWriter(Writer writer, String[] names) {
+            this.writer = writer;
+            this.keys = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                keys[i] = "\"" + names[i] + "\":";
+            }
+        }
+
+        @Override
+        public void header() {
+            // Every line carries its own keys
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            writer.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(keys[i]);
+                Object value = values[i];
+                if (value == null || value instanceof Number || value instanceof Boolean) {
+                    writer.write(String.valueOf(value));
+                } else {
+                    writeString(value.toString());
+                }
+            }
+            writer.write("}\n");
+        }
+
+        private void writeString(String text) throws IOException {
+            writer.write('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"': writer.write("\\\""); break;
+                    case '\\': writer.write("\\\\"); break;
+                    case '\n': writer.write("\\n"); break;
+                    case '\r': writer.write("\\r"); break;
+                    case '\t': writer.write("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            writer.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            writer.write(c);
+                        }
+                }
+            }
+            writer.write('"');
+        }
+    }
+
+    private static final class Dataset {
+        private final String table;
+        private final String orderColumn;
+        private final String dateColumn;
+        private final LinkedHashMap<String, String> columns;
+        private final Set<String> filterable;
+        private final Map<String, String> byKey = new HashMap<>();
+
+        private Dataset(String table, String orderColumn, String dateColumn,
+                        LinkedHashMap<String, String> columns, Set<String> filterable) {
+            this.table = table;
+            this.orderColumn = orderColumn;
+            this.dateColumn = dateColumn;
+            this.columns = columns;
+            this.filterable = filterable;
+            columns.keySet().forEach(name -> byKey.put(key(name), name));
+        }
+
+        private String resolve(String column) {
+            return column == null ? null : byKey.get(key(column));
+        }
+    }
+
+    public static final class ExportRequest {
+        private final String dataset;
+        private final Dataset definition;
+        private final String format;
+        private final LinkedHashMap<String, String> columns;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Map<String, String> conditions;
+
+        private ExportRequest(String dataset, Dataset definition, String format, LinkedHashMap<String, String> columns,
+                              LocalDateTime from, LocalDateTime to, Map<String, String> conditions) {
+            this.dataset = dataset;
+            this.definition = definition;
+            this.format = format;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.conditions = conditions;
+        }
+
+        private String sql(List<Object> args) {
+            StringBuilder sql = new StringBuilder("SELECT ")
+                    .append(String.join(", ", columns.values()))
+                    .append(" FROM ").append(definition.table).append(" WHERE 1 = 1");
+            if (from != null) {
+                sql.append(" AND ").append(definition.dateColumn).append(" >= ?");
+                args.add(Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                sql.append(" AND ").append(definition.dateColumn).append(" < ?");
+                args.add(Timestamp.valueOf(to));
+            }
+            conditions.forEach((column, value) -> {
+                sql.append(" AND ").append(column).append(" = ?");
+                args.add(value);
+            });
+            return sql.append(" ORDER BY ").append(definition.orderColumn).toString();
+        }
+
+        public String getDataset() { return dataset; }
+        public String getFormat() { return format; }
+        public List<String> getColumns() { return new ArrayList<>(columns.keySet()); }
+    }
+
+    public static final class Download {
+        private final FileSystemResource resource;
+        private final String fileName;
+        private final String contentType;
+        private final String etag;
+
+        private Download(FileSystemResource resource, String fileName, String contentType, String etag) {
+            this.resource = resource;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        public FileSystemResource getResource() { return resource; }
+        public String getFileName() { return fileName; }
+        public String getContentType() { return contentType; }
+        public String getEtag() { return etag; }
+    }
+
+    private final class ExportJob {
+        private final String id;
+        private final ExportRequest request;
+        private final String fileName;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile String status = "QUEUED";
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long rows;
+        private volatile long bytes;
+        private volatile boolean cancelled;
+
+        private ExportJob(String id, ExportRequest request, String fileName) {
+            this.id = id;
+            this.request = request;
+            this.fileName = fileName;
+        }
+
+        private Path file() {
+            return directory.resolve(id + "." + request.format);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("dataset", request.dataset);
+            map.put("format", request.format);
+            map.put("columns", request.getColumns());
+            map.put("status", status);
+            map.put("rows", rows);
+            map.put("submittedAt", submittedAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("fileName", fileName);
+            map.put("url", "/api/admin/exports/" + id + "/download");
+            if ("COMPLETED".equals(status)) {
+                map.put("bytes", bytes);
+            }
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
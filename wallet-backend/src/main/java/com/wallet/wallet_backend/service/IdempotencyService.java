@@ -0,0 +1,278 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.IdempotencyRecord;
+import com.wallet.wallet_backend.exception.IdempotencyConflictException;
+import com.wallet.wallet_backend.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for money-moving endpoints.
+ *
+ * A repeated key within the TTL returns the first response without re-executing. Lookups
+ * go to a bounded in-memory LRU first, then to idempotency_keys. Concurrent duplicates on
+ * this node wait on the first execution.
+ *
+ * The claim row, the action and the stored response share one transaction, so a key is
+ * either committed together with its postings and response or not at all: a failure or a
+ * crash anywhere before commit rolls back both, and the client can safely retry. A
+ * duplicate on another node blocks on the claim's unique key until the first finishes,
+ * then replays its response if it committed or runs the action itself if it rolled back.
+ *
+ * Because the action runs inside that transaction, it cannot retry lock timeouts or
+ * deadlocks itself (the failed attempt has poisoned the transaction). They propagate here
+ * and the whole claim + action is retried in a fresh transaction with jittered backoff.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final String PENDING = "PENDING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final long ttlMinutes;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    private final Map<String, StoredResponse> completed;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${wallet.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${wallet.idempotency.cache.max-entries:10000}") int maxEntries,
+                              @Value("${wallet.idempotency.max-attempts:3}") int maxAttempts,
+                              @Value("${wallet.idempotency.backoff-ms:25}") long backoffMs) {
+        this.recordRepository = recordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlMinutes = ttlMinutes;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Runs action once per (scope, key). scope should identify the caller and endpoint,
+     * e.g. "payment/by-mobile:42". Without a key the action simply runs.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key is too long");
+        }
+        String storeKey = sha256Hex(scope + "\n" + key);
+        String requestHash = sha256Hex(objectMapper.writeValueAsString(request));
+
+        StoredResponse cached = completed.get(storeKey);
+        if (cached != null && cached.expiresAt.isAfter(LocalDateTime.now())) {
+            checkSameRequest(cached.requestHash, requestHash);
+            return objectMapper.readValue(cached.body, responseType);
+        }
+
+        InFlight flight = new InFlight(requestHash);
+        InFlight existing = inFlight.putIfAbsent(storeKey, flight);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash, requestHash);
+            return objectMapper.readValue(await(existing.response), responseType);
+        }
+
+        try {
+            String stored = findCompleted(storeKey, requestHash);
+            if (stored != null) {
+                flight.response.complete(stored);
+                return objectMapper.readValue(stored, responseType);
+            }
+            T result;
+            try {
+                result = executeClaimed(storeKey, requestHash, action);
+            } catch (IdempotencyConflictException e) {
+                // Another node held the key; once it has committed, its response is what we return
+                stored = findCompleted(storeKey, requestHash);
+                if (stored == null) {
+                    throw e;
+                }
+                flight.response.complete(stored);
+                return objectMapper.readValue(stored, responseType);
+            }
+            stored = objectMapper.writeValueAsString(result);
+            completed.put(storeKey, new StoredResponse(requestHash, stored, LocalDateTime.now().plusMinutes(ttlMinutes)));
+            flight.response.complete(stored);
+            return result;
+        } catch (RuntimeException e) {
+            flight.response.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(storeKey, flight);
+        }
+    }
+
+    // The claim, the action's postings and the stored response commit or roll back together
+    private <T> T executeClaimed(String storeKey, String requestHash, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    claim(storeKey, requestHash);
+                    T value = action.get();
+                    complete(storeKey, requestHash, objectMapper.writeValueAsString(value));
+                    return value;
+                });
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("Request could not be completed, please retry", e);
+                }
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        long delay = backoffMs * (1L << (attempt - 1));
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Request interrupted", e);
+        }
+    }
+
+    // Response body of an earlier completed request, or null if there is none
+    private String findCompleted(String storeKey, String requestHash) {
+        Optional<IdempotencyRecord> row = recordRepository.findByIdemKey(storeKey);
+        if (row.isEmpty()) {
+            return null;
+        }
+        IdempotencyRecord record = row.get();
+        if (record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            recordRepository.delete(record);
+            return null;
+        }
+        checkSameRequest(record.getRequestHash(), requestHash);
+        if (!COMPLETED.equals(record.getStatus())) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+        completed.put(storeKey, new StoredResponse(requestHash, record.getResponseBody(), record.getExpiresAt()));
+        return record.getResponseBody();
+    }
+
+    private void claim(String storeKey, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO idempotency_keys (idem_key, request_hash, status, created_at, expires_at) " +
+                    "VALUES (?, ?, ?, ?, ?)",
+                    storeKey, requestHash, PENDING,
+                    Timestamp.valueOf(now), Timestamp.valueOf(now.plusMinutes(ttlMinutes)));
+        } catch (DataIntegrityViolationException e) {
+            // Another node claimed the key between our lookup and insert
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+    }
+
+    // Runs in the action's transaction; the in-memory copy is only cached once that commits
+    private void complete(String storeKey, String requestHash, String body) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        jdbcTemplate.update(
+                "UPDATE idempotency_keys SET status = ?, response_body = ?, expires_at = ? WHERE idem_key = ? " +
+                "AND request_hash = ?",
+                COMPLETED, body, Timestamp.valueOf(expiresAt), storeKey, requestHash);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.eviction-interval-ms:600000}")
+    public void evictExpired() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            synchronized (completed) {
+                completed.values().removeIf(stored -> stored.expiresAt.isBefore(now));
+            }
+            int expired = recordRepository.deleteExpired(now);
+            if (expired > 0) {
+                System.out.println("Evicted expired idempotency keys: " + expired);
+            }
+        } catch (Exception e) {
+            System.err.println("Idempotency key eviction failed: " + e.getMessage());
+        }
+    }
+
+    private static void checkSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private static String await(CompletableFuture<String> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final String body;
+        private final LocalDateTime expiresAt;
+
+        private StoredResponse(String requestHash, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
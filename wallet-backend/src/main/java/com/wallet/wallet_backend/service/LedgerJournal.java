@@ -0,0 +1,329 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.util.Money;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal for ledger postings.
+ *
+ * Record layout: [int payloadLength][int crc32][payload]. The payload ends with an
+ * optional transfer id and then an optional transaction id; older records simply stop
+ * after the reference or the transfer id. Reversal records then carry the sequence of the
+ * posting they reverse. Postings journaled inside a database transaction are flagged
+ * pending: they only count once that transaction's ledger_commit row exists or a
+ * reversal for them was journaled (see BalanceLedger).
+ * Amounts are written as long paise and flagged in the credit byte; older records hold
+ * double rupees and are converted when read. A torn or corrupt tail is detected by the
+ * CRC on recovery and truncated away. Durability uses group commit:
+ * whichever caller reaches sync() first forces everything written so far, so concurrent
+ * postings share one fsync.
+ */
+public class LedgerJournal {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_REFERENCE_BYTES = 255;
+    private static final int FLAG_CREDIT = 1;
+    private static final int FLAG_PAISE = 2;
+    private static final int FLAG_PENDING = 4;
+    private static final int FLAG_REVERSAL = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile long writtenSeq;
+    private volatile long durableSeq;
+
+    public LedgerJournal(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve("ledger.journal");
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Reads every intact record, truncates anything after the last good one and
+     * positions the channel for appending.
+     */
+    public List<LedgerEntry> recover() throws IOException {
+        List<LedgerEntry> entries = new ArrayList<>();
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + HEADER_BYTES);
+            if (crc32(payload.array()) != crc) {
+                break;
+            }
+            payload.flip();
+            entries.add(decode(payload));
+            position += HEADER_BYTES + length;
+        }
+
+        channel.truncate(position);
+        channel.position(position);
+        channel.force(true);
+
+        long lastSeq = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getSeq();
+        writtenSeq = lastSeq;
+        durableSeq = lastSeq;
+        return entries;
+    }
+
+    /**
+     * Writes the entry to the OS; call sync(entry.getSeq()) before acknowledging it.
+     * Callers must append in sequence order.
+     */
+    public void append(LedgerEntry entry) {
+        appendAll(List.of(entry));
+    }
+
+    /**
+     * Writes several entries with a single write call, so related postings (the two legs
+     * of a transfer) reach the file together.
+     */
+    public void appendAll(List<LedgerEntry> entries) {
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        int total = 0;
+        for (LedgerEntry entry : entries) {
+            byte[] payload = encode(entry);
+            payloads.add(payload);
+            total += HEADER_BYTES + payload.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(total);
+        for (byte[] payload : payloads) {
+            record.putInt(payload.length);
+            record.putInt(crc32(payload));
+            record.put(payload);
+        }
+        record.flip();
+
+        writeLock.lock();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            writtenSeq = entries.get(entries.size() - 1).getSeq();
+        } catch (IOException e) {
+            throw new RuntimeException("Ledger journal write failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void sync(long seq) {
+        if (durableSeq >= seq) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSeq >= seq) {
+                return;
+            }
+            long target = writtenSeq;
+            channel.force(false);
+            durableSeq = target;
+        } catch (IOException e) {
+            throw new RuntimeException("Ledger journal sync failed", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the journal contents once every entry up to upToSeq is safely in the database.
+     * Does nothing if newer entries have been appended in the meantime.
+     */
+    public void truncateIfFlushed(long upToSeq) {
+        writeLock.lock();
+        try {
+            if (writtenSeq <= upToSeq && channel.size() > 0) {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Ledger journal truncate failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private static byte[] encode(LedgerEntry entry) {
+        byte[] reference = entry.getReference() != null
+                ? entry.getReference().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        int refLength = Math.min(reference.length, MAX_REFERENCE_BYTES);
+        byte[] transferId = entry.getTransferId() != null
+                ? entry.getTransferId().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        int transferLength = Math.min(transferId.length, MAX_REFERENCE_BYTES);
+        byte[] transactionId = entry.getTransactionId() != null
+                ? entry.getTransactionId().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        int transactionLength = Math.min(transactionId.length, MAX_REFERENCE_BYTES);
+
+        boolean reversal = entry.getReversesSeq() > 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 8 + 1 + 8 + 8 + 8 + 1 + refLength + 1 + transferLength
+                + 1 + transactionLength + (reversal ? 8 : 0));
+        buffer.putLong(entry.getSeq());
+        buffer.putLong(entry.getUserId());
+        buffer.put((byte) (FLAG_PAISE | (entry.isCredit() ? FLAG_CREDIT : 0)
+                | (entry.isPending() ? FLAG_PENDING : 0) | (reversal ? FLAG_REVERSAL : 0)));
+        buffer.putLong(entry.getAmount());
+        buffer.putLong(entry.getBalanceAfter());
+        buffer.putLong(entry.getCreatedAtMillis());
+        buffer.put((byte) refLength);
+        buffer.put(reference, 0, refLength);
+        buffer.put((byte) transferLength);
+        buffer.put(transferId, 0, transferLength);
+        buffer.put((byte) transactionLength);
+        buffer.put(transactionId, 0, transactionLength);
+        if (reversal) {
+            buffer.putLong(entry.getReversesSeq());
+        }
+        return buffer.array();
+    }
+
+    private static LedgerEntry decode(ByteBuffer buffer) {
+        long seq = buffer.getLong();
+        long userId = buffer.getLong();
+        int flags = buffer.get();
+        boolean credit = (flags & FLAG_CREDIT) != 0;
+        long amount;
+        long balanceAfter;
+        if ((flags & FLAG_PAISE) != 0) {
+            amount = buffer.getLong();
+            balanceAfter = buffer.getLong();
+        } else {
+            amount = Money.paiseFromDouble(buffer.getDouble());
+            balanceAfter = Money.paiseFromDouble(buffer.getDouble());
+        }
+        long createdAt = buffer.getLong();
+        int refLength = buffer.get() & 0xFF;
+        byte[] reference = new byte[refLength];
+        buffer.get(reference);
+        String transferId = null;
+        if (buffer.hasRemaining()) {
+            byte[] transfer = new byte[buffer.get() & 0xFF];
+            buffer.get(transfer);
+            transferId = transfer.length > 0 ? new String(transfer, StandardCharsets.UTF_8) : null;
+        }
+        String transactionId = null;
+        if (buffer.hasRemaining()) {
+            byte[] transaction = new byte[buffer.get() & 0xFF];
+            buffer.get(transaction);
+            transactionId = transaction.length > 0 ? new String(transaction, StandardCharsets.UTF_8) : null;
+        }
+        long reversesSeq = (flags & FLAG_REVERSAL) != 0 && buffer.remaining() >= 8 ? buffer.getLong() : 0L;
+        return new LedgerEntry(seq, userId, credit, amount, balanceAfter, createdAt,
+                refLength > 0 ? new String(reference, StandardCharsets.UTF_8) : null, transferId, transactionId,
+                (flags & FLAG_PENDING) != 0, reversesSeq);
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    public static final class LedgerEntry {
+        private final long seq;
+        private final long userId;
+        private final boolean credit;
+        private final long amount;
+        private final long balanceAfter;
+        private final long createdAtMillis;
+        private final String reference;
+        private final String transferId;
+        private final String transactionId;
+        private final boolean pending;
+        private final long reversesSeq;
+
+        public LedgerEntry(long seq, long userId, boolean credit, long amount,
+                           long balanceAfter, long createdAtMillis, String reference) {
+            this(seq, userId, credit, amount, balanceAfter, createdAtMillis, reference, null);
+        }
+
+        public LedgerEntry(long seq, long userId, boolean credit, long amount,
+                           long balanceAfter, long createdAtMillis, String reference, String transferId) {
+            this(seq, userId, credit, amount, balanceAfter, createdAtMillis, reference, transferId, null);
+        }
+
+        public LedgerEntry(long seq, long userId, boolean credit, long amount, long balanceAfter,
+                           long createdAtMillis, String reference, String transferId, String transactionId) {
+            this(seq, userId, credit, amount, balanceAfter, createdAtMillis, reference, transferId, transactionId,
+                    false, 0L);
+        }
+
+        public LedgerEntry(long seq, long userId, boolean credit, long amount, long balanceAfter,
+                           long createdAtMillis, String reference, String transferId, String transactionId,
+                           boolean pending, long reversesSeq) {
+            this.seq = seq;
+            this.userId = userId;
+            this.credit = credit;
+            this.amount = amount;
+            this.balanceAfter = balanceAfter;
+            this.createdAtMillis = createdAtMillis;
+            this.reference = reference;
+            this.transferId = transferId;
+            this.transactionId = transactionId;
+            this.pending = pending;
+            this.reversesSeq = reversesSeq;
+        }
+
+        // Same posting with its balance shifted, for replay around postings that never committed
+        public LedgerEntry withBalanceAfter(long newBalanceAfter) {
+            return new LedgerEntry(seq, userId, credit, amount, newBalanceAfter, createdAtMillis, reference,
+                    transferId, transactionId, pending, reversesSeq);
+        }
+
+        public long getSeq() { return seq; }
+        public long getUserId() { return userId; }
+        public boolean isCredit() { return credit; }
+        public long getAmount() { return amount; }
+        public long getBalanceAfter() { return balanceAfter; }
+        public long getCreatedAtMillis() { return createdAtMillis; }
+        public String getReference() { return reference; }
+        public String getTransferId() { return transferId; }
+        public String getTransactionId() { return transactionId; }
+        public boolean isPending() { return pending; }
+        public long getReversesSeq() { return reversesSeq; }
+    }
+}
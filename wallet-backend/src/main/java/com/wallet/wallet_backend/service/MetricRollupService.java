@@ -0,0 +1,256 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.MetricRollup;
+import com.wallet.wallet_backend.entity.RollupWatermark;
+import com.wallet.wallet_backend.repository.MetricRollupRepository;
+import com.wallet.wallet_backend.repository.RollupWatermarkRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Hourly and daily metric buckets for the admin reports, charts and dashboard.
+ *
+ * A scheduled job folds new rows of main_transactions, users and kyc_documents into
+ * metric_rollups, tracking the highest id processed per table in rollup_watermarks.
+ * Each chunk's buckets and its watermark commit together, so a crash never double counts.
+ * Only rows older than the settle lag are taken, so that ids allocated by transactions
+ * that commit out of order are not skipped.
+ */
+@Service
+public class MetricRollupService {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    public static final String TXN = "TXN";
+    public static final String TXN_TYPE = "TXN_TYPE";
+    public static final String TXN_STATUS = "TXN_STATUS";
+    public static final String NEW_USERS = "NEW_USERS";
+    public static final String KYC_SUBMITTED = "KYC_SUBMITTED";
+
+    private static final String HOUR_BUCKET = "DATE_FORMAT(%s, '%%Y-%%m-%%d %%H:00:00')";
+    private static final String DAY_BUCKET = "DATE(%s)";
+
+    private static final List<Source> SOURCES = List.of(
+            new Source("main_transactions", "created_at", "amount", Map.of(
+                    TXN, "''",
+                    TXN_TYPE, "COALESCE(type, '')",
+                    TXN_STATUS, "COALESCE(status, '')")),
+            new Source("users", "created_at", null, Map.of(NEW_USERS, "''")),
+            new Source("kyc_documents", "submitted_at", null, Map.of(KYC_SUBMITTED, "''")));
+
+    private final MetricRollupRepository rollupRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long settleLagSeconds;
+    private final int hourlyRetentionDays;
+
+    public MetricRollupService(MetricRollupRepository rollupRepository,
+                               RollupWatermarkRepository watermarkRepository,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${wallet.rollup.chunk-size:20000}") int chunkSize,
+                               @Value("${wallet.rollup.settle-lag-seconds:30}") long settleLagSeconds,
+                               @Value("${wallet.rollup.hourly-retention-days:14}") int hourlyRetentionDays) {
+        this.rollupRepository = rollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.settleLagSeconds = settleLagSeconds;
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    @Scheduled(initialDelayString = "${wallet.rollup.initial-delay-ms:10000}",
+               fixedDelayString = "${wallet.rollup.interval-ms:60000}")
+    public void refresh() {
+        try {
+            LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(settleLagSeconds);
+            for (Source source : SOURCES) {
+                long rows;
+                do {
+                    rows = processChunk(source, settledBefore);
+                } while (rows >= chunkSize);
+            }
+            jdbcTemplate.update("DELETE FROM metric_rollups WHERE granularity = ? AND bucket_start < ?",
+                    HOUR, Timestamp.valueOf(LocalDate.now().minusDays(hourlyRetentionDays).atStartOfDay()));
+        } catch (Exception e) {
+            System.err.println("Metric rollup refresh failed: " + e.getMessage());
+        }
+    }
+
+    private long processChunk(Source source, LocalDateTime settledBefore) {
+        Long processed = transactionTemplate.execute(status -> {
+            RollupWatermark watermark = watermarkRepository.findById(source.table)
+                    .orElseGet(() -> new RollupWatermark(source.table, 0L, null));
+            long from = watermark.getLastId();
+            Long upTo = jdbcTemplate.queryForObject(
+                    "SELECT MAX(id) FROM " + source.table + " WHERE id > ? AND id <= ? AND " +
+                    source.timeColumn + " < ?",
+                    Long.class, from, from + chunkSize, Timestamp.valueOf(settledBefore));
+            if (upTo == null) {
+                // Skip over an id gap wider than one chunk instead of stalling on it
+                Long next = jdbcTemplate.queryForObject(
+                        "SELECT MIN(id) FROM " + source.table + " WHERE id > ?", Long.class, from);
+                if (next == null || next <= from + chunkSize) {
+                    return 0L;
+                }
+                upTo = next - 1;
+            }
+
+            for (Map.Entry<String, String> metric : source.metrics.entrySet()) {
+                fold(source, metric.getKey(), metric.getValue(), HOUR, HOUR_BUCKET, from, upTo);
+                fold(source, metric.getKey(), metric.getValue(), DAY, DAY_BUCKET, from, upTo);
+            }
+
+            watermark.setLastId(upTo);
+            watermark.setUpdatedAt(LocalDateTime.now());
+            watermarkRepository.save(watermark);
+            return upTo - from;
+        });
+        return processed != null ? processed : 0L;
+    }
+
+    private void fold(Source source, String metric, String dimensionExpr, String granularity,
+                      String bucketFormat, long fromId, long toId) {
+        String bucket = String.format(bucketFormat, source.timeColumn);
+        String amount = source.amountColumn != null ? "COALESCE(SUM(" + source.amountColumn + "), 0)" : "0";
+        jdbcTemplate.update(
+                "INSERT INTO metric_rollups (granularity, metric, dimension, bucket_start, event_count, total_amount) " +
+                "SELECT * FROM (" +
+                "SELECT ? AS g, ? AS m, " + dimensionExpr + " AS d, " + bucket + " AS b, COUNT(*) AS c, " + amount + " AS a " +
+                "FROM " + source.table + " WHERE id > ? AND id <= ? AND " + source.timeColumn + " IS NOT NULL " +
+                "GROUP BY d, b) AS s " +
+                "ON DUPLICATE KEY UPDATE event_count = event_count + s.c, total_amount = total_amount + s.a",
+                granularity, metric, fromId, toId);
+    }
+
+    /**
+     * Totals for [from, to). Whole days come from DAY buckets and the trailing
+     * partial day from HOUR buckets.
+     */
+    public Totals total(String metric, String dimension, LocalDateTime from, LocalDateTime to) {
+        Totals totals = new Totals();
+        for (MetricRollup row : load(metric, from, to)) {
+            if (dimension.equals(row.getDimension())) {
+                totals.add(row);
+            }
+        }
+        return totals;
+    }
+
+    public Map<String, Totals> byDimension(String metric, LocalDateTime from, LocalDateTime to) {
+        Map<String, Totals> result = new TreeMap<>();
+        for (MetricRollup row : load(metric, from, to)) {
+            result.computeIfAbsent(row.getDimension(), k -> new Totals()).add(row);
+        }
+        return result;
+    }
+
+    // One entry per day starting at firstDay, zero-filled
+    public List<Totals> dailySeries(String metric, String dimension, LocalDate firstDay, int days) {
+        Map<LocalDate, Totals> byDay = new HashMap<>();
+        for (MetricRollup row : rollupRepository
+                .findByGranularityAndMetricAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        DAY, metric, firstDay.atStartOfDay(), firstDay.plusDays(days).atStartOfDay())) {
+            if (dimension.equals(row.getDimension())) {
+                byDay.computeIfAbsent(row.getBucketStart().toLocalDate(), k -> new Totals()).add(row);
+            }
+        }
+        List<Totals> series = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            series.add(byDay.getOrDefault(firstDay.plusDays(i), new Totals()));
+        }
+        return series;
+    }
+
+    // One entry per hour for the last `hours` hours including the current one, zero-filled
+    public List<Totals> hourlySeries(String metric, String dimension, int hours) {
+        LocalDateTime firstHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(hours - 1);
+        Map<LocalDateTime, Totals> byHour = new HashMap<>();
+        for (MetricRollup row : rollupRepository
+                .findByGranularityAndMetricAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        HOUR, metric, firstHour, firstHour.plusHours(hours))) {
+            if (dimension.equals(row.getDimension())) {
+                byHour.computeIfAbsent(row.getBucketStart(), k -> new Totals()).add(row);
+            }
+        }
+        List<Totals> series = new ArrayList<>(hours);
+        for (int i = 0; i < hours; i++) {
+            series.add(byHour.getOrDefault(firstHour.plusHours(i), new Totals()));
+        }
+        return series;
+    }
+
+    public long allTimeCount(String metric) {
+        Long count = rollupRepository.sumAllTimeCount(metric);
+        return count != null ? count : 0L;
+    }
+
+    public Map<String, Object> getWatermarks() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (RollupWatermark watermark : watermarkRepository.findAll()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("lastId", watermark.getLastId());
+            entry.put("updatedAt", watermark.getUpdatedAt());
+            result.put(watermark.getSource(), entry);
+        }
+        return result;
+    }
+
+    private List<MetricRollup> load(String metric, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime firstDay = from.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime lastDay = to.truncatedTo(ChronoUnit.DAYS);
+        List<MetricRollup> rows = new ArrayList<>();
+        if (firstDay.isBefore(lastDay)) {
+            rows.addAll(rollupRepository
+                    .findByGranularityAndMetricAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                            DAY, metric, firstDay, lastDay));
+        }
+        if (to.isAfter(lastDay)) {
+            LocalDateTime hoursFrom = firstDay.isBefore(lastDay) ? lastDay : from.truncatedTo(ChronoUnit.HOURS);
+            rows.addAll(rollupRepository
+                    .findByGranularityAndMetricAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                            HOUR, metric, hoursFrom, to));
+        }
+        return rows;
+    }
+
+    private static final class Source {
+        private final String table;
+        private final String timeColumn;
+        private final String amountColumn;
+        private final Map<String, String> metrics;
+
+        private Source(String table, String timeColumn, String amountColumn, Map<String, String> metrics) {
+            this.table = table;
+            this.timeColumn = timeColumn;
+            this.amountColumn = amountColumn;
+            this.metrics = metrics;
+        }
+    }
+
+    public static final class Totals {
+        private long count;
+        private long amount;
+
+        private void add(MetricRollup row) {
+            count += row.getEventCount() != null ? row.getEventCount() : 0L;
+            amount += row.getTotalAmount() != null ? row.getTotalAmount() : 0L;
+        }
+
+        public long getCount() { return count; }
+        public long getAmount() { return amount; }
+    }
+}
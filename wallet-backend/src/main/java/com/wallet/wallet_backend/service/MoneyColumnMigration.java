@@ -0,0 +1,73 @@
+package com.wallet.wallet_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One-off conversion of the amount columns from DOUBLE rupees to BIGINT paise.
+ *
+ * ddl-auto=update never changes a column's type, so databases created before amounts
+ * became paise still hold rupee doubles. Each such column is copied into a BIGINT
+ * sibling as ROUND(value * 100), then swapped in under the original name. Columns that
+ * are already integral (or tables that do not exist yet) are left alone, so this is a
+ * no-op on every start after the first. Runs while the context is being built, before
+ * the ledger replays its journal and before the aggregate and rollup backfills.
+ */
+@Component
+public class MoneyColumnMigration {
+
+    private static final Set<String> FRACTIONAL_TYPES = Set.of("double", "float", "decimal");
+
+    // table, column, nullable
+    private static final List<String[]> COLUMNS = List.of(
+            new String[]{"users", "wallet_balance", "false"},
+            new String[]{"main_transactions", "amount", "false"},
+            new String[]{"main_transactions", "balance_after", "true"},
+            new String[]{"payment_requests", "amount", "false"},
+            new String[]{"metric_rollups", "total_amount", "false"},
+            new String[]{"user_txn_aggregates", "total_amount", "false"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String[] column : COLUMNS) {
+            String type = columnType(column[0], column[1]);
+            if (type != null && FRACTIONAL_TYPES.contains(type)) {
+                convert(column[0], column[1], Boolean.parseBoolean(column[2]));
+            }
+        }
+    }
+
+    private void convert(String table, String column, boolean nullable) {
+        long started = System.nanoTime();
+        String paise = column + "_paise";
+        // A run that stopped half way leaves the sibling behind; refill it from scratch
+        if (columnType(table, paise) == null) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + paise + " BIGINT NULL");
+        }
+        String source = nullable ? column : "COALESCE(" + column + ", 0)";
+        int rows = jdbcTemplate.update("UPDATE " + table + " SET " + paise + " = ROUND(" + source + " * 100)");
+        jdbcTemplate.execute("ALTER TABLE " + table +
+                " DROP COLUMN " + column + "," +
+                " CHANGE COLUMN " + paise + " " + column + " BIGINT " + (nullable ? "NULL" : "NOT NULL"));
+        System.out.println("Converted " + table + "." + column + " to paise: " + rows + " rows in " +
+                (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    private String columnType(String table, String column) {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT LOWER(DATA_TYPE) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table, column);
+        return types.isEmpty() ? null : types.get(0);
+    }
+}
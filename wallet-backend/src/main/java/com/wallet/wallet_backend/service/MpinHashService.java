@@ -0,0 +1,203 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * MPIN hashing and verification on the dedicated mpinHashExecutor.
+ *
+ * Request threads hand the BCrypt work to the pool and wait for it. When the pool's
+ * queue is full, or the work has not finished within the configured wait, the call fails
+ * fast with ServiceBusyException (503) instead of piling up behind a login spike.
+ * Queue wait and hash time are recorded for the admin metrics endpoint.
+ */
+@Service
+public class MpinHashService implements StatsProvider {
+
+    private static final String BENCHMARK_MPIN = "4821";
+    private static final int MAX_BENCHMARK_STRENGTH = 12;
+    private static final int MAX_BENCHMARK_STRENGTHS = 4;
+    private static final int MAX_BENCHMARK_SAMPLES = 10;
+    private static final long BENCHMARK_SAMPLE_TIMEOUT_MS = 10_000;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor mpinHashExecutor;
+    private final long maxWaitMs;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicBoolean benchmarkRunning = new AtomicBoolean();
+
+    public MpinHashService(PasswordEncoder passwordEncoder,
+                           @Qualifier("mpinHashExecutor") ThreadPoolTaskExecutor mpinHashExecutor,
+                           @Value("${wallet.mpin.max-wait-ms:2000}") long maxWaitMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.mpinHashExecutor = mpinHashExecutor;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public String encode(String mpin) {
+        return run(() -> passwordEncoder.encode(mpin));
+    }
+
+    public boolean matches(String mpin, String mpinHash) {
+        if (mpin == null || mpinHash == null) {
+            return false;
+        }
+        return run(() -> passwordEncoder.matches(mpin, mpinHash));
+    }
+
+    private <T> T run(Supplier<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = mpinHashExecutor.submit(() -> {
+                long started = System.nanoTime();
+                record(totalQueueWaitNanos, maxQueueWaitNanos, started - submitted);
+                try {
+                    return work.get();
+                } finally {
+                    record(totalHashNanos, maxHashNanos, System.nanoTime() - started);
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            throw new ServiceBusyException("Too many login attempts in progress, please retry shortly");
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            timedOut.incrementAndGet();
+            throw new ServiceBusyException("Too many login attempts in progress, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("MPIN check interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "mpinHashing";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        ThreadPoolExecutor pool = mpinHashExecutor.getThreadPoolExecutor();
+        long done = completed.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", pool.getMaximumPoolSize());
+        metrics.put("active", pool.getActiveCount());
+        metrics.put("queueDepth", pool.getQueue().size());
+        metrics.put("queueCapacity", mpinHashExecutor.getQueueCapacity());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.get());
+        metrics.put("timedOut", timedOut.get());
+        metrics.put("avgHashMs", done > 0 ? totalHashNanos.get() / 1_000_000.0 / done : 0.0);
+        metrics.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        metrics.put("avgQueueWaitMs", done > 0 ? totalQueueWaitNanos.get() / 1_000_000.0 / done : 0.0);
+        metrics.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    /**
+     * Times encode + matches at each BCrypt strength, to pick wallet.mpin.bcrypt-strength
+     * for the hardware the service runs on. Each sample is a task on mpinHashExecutor, so the
+     * benchmark queues behind logins instead of adding BCrypt work outside the pool. Work is
+     * capped: at most four distinct strengths up to 12, ten samples each, one run at a time.
+     */
+    public Map<String, Object> benchmark(List<Integer> strengths, int samples) {
+        SortedSet<Integer> distinct = new TreeSet<>();
+        for (Integer strength : strengths) {
+            if (strength == null || strength < 4 || strength > MAX_BENCHMARK_STRENGTH) {
+                throw new RuntimeException("BCrypt strength must be between 4 and " + MAX_BENCHMARK_STRENGTH);
+            }
+            distinct.add(strength);
+        }
+        if (distinct.isEmpty() || distinct.size() > MAX_BENCHMARK_STRENGTHS) {
+            throw new RuntimeException("Benchmark between 1 and " + MAX_BENCHMARK_STRENGTHS + " strengths");
+        }
+        samples = Math.max(1, Math.min(samples, MAX_BENCHMARK_SAMPLES));
+        if (!benchmarkRunning.compareAndSet(false, true)) {
+            throw new ServiceBusyException("An MPIN hashing benchmark is already running");
+        }
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Integer strength : distinct) {
+                BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+                String hash = onPool(() -> encoder.encode(BENCHMARK_MPIN));
+                long encodeNanos = 0;
+                long matchNanos = 0;
+                for (int i = 0; i < samples; i++) {
+                    long[] sample = onPool(() -> {
+                        long start = System.nanoTime();
+                        encoder.encode(BENCHMARK_MPIN);
+                        long encoded = System.nanoTime();
+                        encoder.matches(BENCHMARK_MPIN, hash);
+                        return new long[]{encoded - start, System.nanoTime() - encoded};
+                    });
+                    encodeNanos += sample[0];
+                    matchNanos += sample[1];
+                }
+                Map<String, Object> timing = new LinkedHashMap<>();
+                timing.put("encodeMs", encodeNanos / 1_000_000.0 / samples);
+                timing.put("matchesMs", matchNanos / 1_000_000.0 / samples);
+                timing.put("matchesPerSecondPerThread", matchNanos > 0 ? samples / (matchNanos / 1_000_000_000.0) : 0.0);
+                result.put(String.valueOf(strength), timing);
+            }
+            return result;
+        } finally {
+            benchmarkRunning.set(false);
+        }
+    }
+
+    // Benchmark work on the hashing pool, kept out of the login metrics that run() records
+    private <T> T onPool(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = mpinHashExecutor.submit(work);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("MPIN hashing pool is busy, retry the benchmark later");
+        }
+        try {
+            return future.get(BENCHMARK_SAMPLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new ServiceBusyException("MPIN hashing pool is busy, retry the benchmark later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("MPIN benchmark interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void record(AtomicLong total, AtomicLong max, long nanos) {
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+}
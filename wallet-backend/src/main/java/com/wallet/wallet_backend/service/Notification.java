@@ -0,0 +1,60 @@
+package com.wallet.wallet_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One message for one channel. Published by NotificationService and delivered by
+ * NotificationDispatcher after the publishing transaction commits; implements Delayed
+ * so failed deliveries can wait out their backoff in a DelayQueue.
+ */
+public final class Notification implements Delayed {
+
+    public static final String PUSH = "PUSH";
+    public static final String SMS = "SMS";
+    public static final String EMAIL = "EMAIL";
+
+    private final String type;
+    private final String channel;
+    private final Long userId;
+    private final String recipient;
+    private final String message;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private int attempts;
+    private String lastError;
+    private long notBeforeNanos;
+
+    public Notification(String type, String channel, Long userId, String recipient, String message) {
+        this.type = type;
+        this.channel = channel;
+        this.userId = userId;
+        this.recipient = recipient;
+        this.message = message;
+    }
+
+    public String getType() { return type; }
+    public String getChannel() { return channel; }
+    public Long getUserId() { return userId; }
+    public String getRecipient() { return recipient; }
+    public String getMessage() { return message; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+
+    void failed(String error, long backoffNanos) {
+        attempts++;
+        lastError = error;
+        notBeforeNanos = System.nanoTime() + backoffNanos;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(notBeforeNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,243 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.NotificationDeadLetter;
+import com.wallet.wallet_backend.repository.NotificationDeadLetterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers notifications off the request path.
+ *
+ * Notifications are captured once the publishing transaction commits (immediately when
+ * there is none) and go into a bounded queue; an overflowing queue dead-letters rather
+ * than blocking the caller. A dispatcher thread drains the queue in batches, splits them
+ * by channel and hands each batch to notificationExecutor, where a per-channel semaphore
+ * caps concurrent calls to that channel's provider. Failed batches are retried with
+ * exponential backoff and dead-lettered after the last attempt.
+ */
+@Service
+public class NotificationDispatcher implements StatsProvider {
+
+    private final List<NotificationProvider> providers;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final Executor notificationExecutor;
+    private final TransactionTemplate deadLetterTransaction;
+    private final int batchSize;
+    private final long lingerMs;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final int channelConcurrency;
+
+    private final BlockingQueue<Notification> queue;
+    private final DelayQueue<Notification> retries = new DelayQueue<>();
+    private final Map<String, Semaphore> channelPermits = new ConcurrentHashMap<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread dispatcherThread;
+
+    public NotificationDispatcher(List<NotificationProvider> providers,
+                                  NotificationDeadLetterRepository deadLetterRepository,
+                                  @Qualifier("notificationExecutor") Executor notificationExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${wallet.notification.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${wallet.notification.batch-size:100}") int batchSize,
+                                  @Value("${wallet.notification.linger-ms:50}") long lingerMs,
+                                  @Value("${wallet.notification.max-attempts:5}") int maxAttempts,
+                                  @Value("${wallet.notification.backoff-ms:500}") long backoffMs,
+                                  @Value("${wallet.notification.channel-concurrency:4}") int channelConcurrency) {
+        this.providers = providers;
+        this.deadLetterRepository = deadLetterRepository;
+        this.notificationExecutor = notificationExecutor;
+        // Dead letters can be written from an after-commit callback, where REQUIRED would
+        // join the finished transaction and never commit
+        this.deadLetterTransaction = new TransactionTemplate(transactionManager);
+        this.deadLetterTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.channelConcurrency = channelConcurrency;
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcherThread = new Thread(this::dispatchLoop, "notification-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    // Rolled-back transactions publish nothing
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotification(Notification notification) {
+        if (queue.offer(notification)) {
+            enqueued.incrementAndGet();
+        } else {
+            deadLetter(List.of(notification), "Notification queue full");
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Notification first = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                retries.drainTo(batch, Math.max(0, batchSize * 2 - batch.size()));
+                if (!batch.isEmpty()) {
+                    dispatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Notification dispatch failed: " + e.getMessage());
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void dispatch(List<Notification> batch) {
+        Map<String, List<Notification>> byChannel = new LinkedHashMap<>();
+        for (Notification notification : batch) {
+            byChannel.computeIfAbsent(notification.getChannel(), k -> new ArrayList<>()).add(notification);
+        }
+        for (Map.Entry<String, List<Notification>> entry : byChannel.entrySet()) {
+            String channel = entry.getKey();
+            List<Notification> channelBatch = entry.getValue();
+            NotificationProvider provider = providerFor(channel);
+            if (provider == null) {
+                deadLetter(channelBatch, "No provider for channel " + channel);
+                continue;
+            }
+            batches.incrementAndGet();
+            // A full executor queue makes the dispatcher deliver this batch itself (back-pressure)
+            notificationExecutor.execute(() -> deliver(provider, channel, channelBatch));
+        }
+    }
+
+    private void deliver(NotificationProvider provider, String channel, List<Notification> batch) {
+        Semaphore permits = channelPermits.computeIfAbsent(channel, k -> new Semaphore(channelConcurrency));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            retryOrDeadLetter(batch, "Interrupted");
+            return;
+        }
+        try {
+            provider.send(channel, batch);
+            delivered.addAndGet(batch.size());
+        } catch (Exception e) {
+            retryOrDeadLetter(batch, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void retryOrDeadLetter(List<Notification> batch, String error) {
+        List<Notification> exhausted = new ArrayList<>();
+        for (Notification notification : batch) {
+            long backoff = backoffMs * (1L << Math.min(notification.getAttempts(), 16));
+            notification.failed(error, TimeUnit.MILLISECONDS.toNanos(backoff));
+            if (notification.getAttempts() >= maxAttempts) {
+                exhausted.add(notification);
+            } else {
+                retried.incrementAndGet();
+                retries.add(notification);
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            deadLetter(exhausted, error);
+        }
+    }
+
+    private NotificationProvider providerFor(String channel) {
+        for (NotificationProvider provider : providers) {
+            if (provider.supports(channel)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    private void deadLetter(List<Notification> notifications, String error) {
+        deadLettered.addAndGet(notifications.size());
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationDeadLetter> rows = new ArrayList<>(notifications.size());
+            for (Notification n : notifications) {
+                String lastError = n.getLastError() != null ? n.getLastError() : error;
+                rows.add(new NotificationDeadLetter(null, n.getType(), n.getChannel(), n.getUserId(),
+                        n.getRecipient(), n.getMessage(), n.getAttempts(),
+                        lastError != null && lastError.length() > 500 ? lastError.substring(0, 500) : lastError,
+                        n.getCreatedAt(), now));
+            }
+            deadLetterTransaction.executeWithoutResult(status -> deadLetterRepository.saveAll(rows));
+        } catch (Exception e) {
+            System.err.println("Could not store " + notifications.size() + " dead-lettered notifications: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "notifications";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("retryPending", retries.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("delivered", delivered.get());
+        stats.put("batches", batches.get());
+        stats.put("retried", retried.get());
+        stats.put("deadLettered", deadLettered.get());
+        return stats;
+    }
+
+    // Whatever has not been delivered by now is kept as dead letters rather than lost
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+            try {
+                dispatcherThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Notification> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.addAll(retries);
+        retries.clear();
+        if (!pending.isEmpty()) {
+            deadLetter(pending, "Undelivered at shutdown");
+        }
+    }
+}
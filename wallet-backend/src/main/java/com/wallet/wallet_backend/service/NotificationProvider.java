@@ -0,0 +1,14 @@
+package com.wallet.wallet_backend.service;
+
+import java.util.List;
+
+/**
+ * Delivers notifications for one or more channels (PUSH, SMS, EMAIL). A batch always
+ * holds a single channel; throwing fails the whole batch, which is then retried.
+ */
+public interface NotificationProvider {
+
+    boolean supports(String channel);
+
+    void send(String channel, List<Notification> batch) throws Exception;
+}
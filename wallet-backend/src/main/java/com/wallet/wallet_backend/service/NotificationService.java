@@ -1,25 +1,47 @@
 package com.wallet.wallet_backend.service;
 
 import com.wallet.wallet_backend.entity.User;
+import com.wallet.wallet_backend.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+/**
+ * Turns payment events into one Notification per configured channel and publishes
+ * them. Nothing is sent here: NotificationDispatcher picks them up after the caller's
+ * transaction commits, so a payment never waits on SMS/email/push I/O.
+ */
 @Service
 public class NotificationService {
     
-    public void sendPaymentNotification(User payer, User payee, Double amount) {
-        // In real app, send push notification/email/SMS
-        System.out.println("💸 Payment Notification:");
-        System.out.println("To: " + payee.getMobile());
-        System.out.println("From: " + payer.getMobile());
-        System.out.println("Amount: ₹" + amount);
-        System.out.println("Message: You received ₹" + amount + " from " + payer.getName());
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<String> channels;
+    
+    public NotificationService(ApplicationEventPublisher eventPublisher,
+                               @Value("${wallet.notification.channels:PUSH,SMS}") List<String> channels) {
+        this.eventPublisher = eventPublisher;
+        this.channels = channels;
+    }
+    
+    public void sendPaymentNotification(User payer, User payee, long amount) {
+        publish("PAYMENT_RECEIVED", payee,
+                "You received " + Money.format(amount) + " from " + payer.getName() + " (" + payer.getMobile() + ")");
+    }
+    
+    public void sendPaymentRequestNotification(User requester, User target, long amount) {
+        publish("PAYMENT_REQUESTED", target,
+                requester.getName() + " (" + requester.getMobile() + ") requested " + Money.format(amount));
     }
     
-    public void sendPaymentRequestNotification(User requester, User target, Double amount) {
-        System.out.println("📩 Payment Request:");
-        System.out.println("To: " + target.getMobile());
-        System.out.println("From: " + requester.getMobile());
-        System.out.println("Amount: ₹" + amount);
-        System.out.println("Message: " + requester.getName() + " requested ₹" + amount);
+    private void publish(String type, User recipient, String message) {
+        for (String channel : channels) {
+            String address = Notification.EMAIL.equals(channel) ? recipient.getEmail() : recipient.getMobile();
+            if (address == null || address.isBlank()) {
+                continue;
+            }
+            eventPublisher.publishEvent(new Notification(type, channel, recipient.getId(), address, message));
+        }
     }
-}
\ No newline at end of file
+}
@@ -20,20 +20,27 @@ public class OtpService {
     }
 
     public String generateTempToken(Long userId, String mobile) {
-        String rawToken = "TEMP:" + userId + ":" + mobile + ":" + System.currentTimeMillis();
+        String rawToken = "TEMP:" + userId + ":" + mobile + ":" + System.currentTimeMillis() + ":" + nonce();
         return Base64.getEncoder().encodeToString(rawToken.getBytes());
     }
 
     public String generateTempToken(long timestamp, String mobile) {
-        String rawToken = "TEMP_NEW:" + timestamp + ":" + mobile;
+        String rawToken = "TEMP_NEW:" + timestamp + ":" + mobile + ":" + nonce();
         return Base64.getEncoder().encodeToString(rawToken.getBytes());
     }
 
     public String generatePermanentToken(Long userId, String mobile) {
-        String rawToken = "PERM:" + userId + ":" + mobile + ":" + System.currentTimeMillis() + ":30days";
+        String rawToken = "PERM:" + userId + ":" + mobile + ":" + System.currentTimeMillis() + ":30days:" + nonce();
         return Base64.getEncoder().encodeToString(rawToken.getBytes());
     }
 
+    // Tokens are looked up by hash, so they must not be guessable from user id, mobile and time
+    private static String nonce() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
     public LocalDateTime getOtpExpiryTime() {
         return LocalDateTime.now().plusMinutes(10);
     }
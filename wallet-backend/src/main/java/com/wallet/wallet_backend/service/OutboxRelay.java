@@ -0,0 +1,175 @@
+package com.wallet.wallet_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Moves committed outbox rows into the local WalletEventLog and serves consumers from it.
+ *
+ * Each pass appends the oldest rows in id order, forces the log, then deletes those rows;
+ * rows committed late with a lower id are simply picked up by a later pass. A crash
+ * between the append and the delete is covered by skipping event ids already present
+ * at the log's tail, and consumers should still treat eventId as the dedup key.
+ * Run the relay on one node only (wallet.events.relay.enabled), since every node
+ * appends to its own local log.
+ */
+@Service
+public class OutboxRelay {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final int batchSize;
+
+    private WalletEventLog eventLog;
+    private Set<Long> alreadyAppended = Set.of();
+    private long relayed;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${wallet.events.relay.enabled:true}") boolean enabled,
+                       @Value("${wallet.events.dir:data/events}") String directory,
+                       @Value("${wallet.events.segment-bytes:67108864}") int segmentBytes,
+                       @Value("${wallet.events.max-segments:16}") int maxSegments,
+                       @Value("${wallet.events.relay.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void open() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        eventLog = new WalletEventLog(directory, segmentBytes, maxSegments);
+        alreadyAppended = eventLog.recentEventIds(batchSize);
+        System.out.println("Wallet event log opened at offset " + eventLog.nextOffset() +
+                " (" + eventLog.segmentCount() + " segments)");
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.events.relay.interval-ms:200}")
+    public synchronized void relay() {
+        if (eventLog == null) {
+            return;
+        }
+        try {
+            int rows;
+            do {
+                rows = relayBatch();
+            } while (rows >= batchSize);
+        } catch (Exception e) {
+            System.err.println("Outbox relay failed: " + e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, event_type, aggregate_id, payload, created_at FROM outbox_events ORDER BY id LIMIT ?",
+                batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Object> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            long id = ((Number) row.get("id")).longValue();
+            ids.add(id);
+            if (alreadyAppended.contains(id)) {
+                continue;
+            }
+            Map<String, Object> envelope = new LinkedHashMap<>();
+            envelope.put("eventId", id);
+            envelope.put("type", row.get("event_type"));
+            envelope.put("aggregateId", row.get("aggregate_id"));
+            Object createdAt = row.get("created_at");
+            envelope.put("createdAt", createdAt instanceof Timestamp ? ((Timestamp) createdAt).toLocalDateTime() : createdAt);
+            envelope.put("payload", objectMapper.readTree((String) row.get("payload")));
+            eventLog.append(id, objectMapper.writeValueAsBytes(envelope));
+        }
+        eventLog.flush();
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE id IN (" +
+                String.join(",", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+        relayed += rows.size();
+        return rows.size();
+    }
+
+    /**
+     * Next events for a consumer from its committed offset. Nothing is committed here:
+     * call commit with the offset after the last event processed.
+     */
+    public Map<String, Object> poll(String consumer, int max) {
+        WalletEventLog log = requireLog();
+        long from = log.committedOffset(consumer);
+        List<Map<String, Object>> events = new ArrayList<>();
+        long next = from;
+        for (WalletEventLog.Record record : log.read(from, max)) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("offset", record.getOffset());
+            event.put("event", objectMapper.readTree(record.getPayload()));
+            events.add(event);
+            next = record.getOffset() + 1;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consumer", consumer);
+        result.put("fromOffset", from);
+        result.put("nextOffset", next);
+        result.put("events", events);
+        return result;
+    }
+
+    public void commit(String consumer, long offset) {
+        WalletEventLog log = requireLog();
+        if (offset < log.firstOffset() || offset > log.nextOffset()) {
+            throw new RuntimeException("Offset out of range");
+        }
+        log.commitOffset(consumer, offset);
+    }
+
+    // In-process readers tail the log directly
+    public WalletEventLog getEventLog() {
+        return requireLog();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", eventLog != null);
+        if (eventLog != null) {
+            stats.put("firstOffset", eventLog.firstOffset());
+            stats.put("nextOffset", eventLog.nextOffset());
+            stats.put("segments", eventLog.segmentCount());
+            stats.put("relayedSinceStart", relayed);
+        }
+        stats.put("outboxBacklog", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events", Long.class));
+        return stats;
+    }
+
+    private WalletEventLog requireLog() {
+        if (eventLog == null) {
+            throw new RuntimeException("Wallet event log is not enabled on this node");
+        }
+        return eventLog;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (eventLog != null) {
+            eventLog.close();
+        }
+    }
+}
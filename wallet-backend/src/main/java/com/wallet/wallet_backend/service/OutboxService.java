@@ -0,0 +1,88 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.util.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes outbox rows through the caller's JDBC connection, so each event commits or rolls
+ * back with the posting or decision it describes. Call it inside that transaction.
+ */
+@Service
+public class OutboxService {
+
+    public static final String WALLET_CREDITED = "WALLET_CREDITED";
+    public static final String WALLET_DEBITED = "WALLET_DEBITED";
+    public static final String KYC_APPROVED = "KYC_APPROVED";
+    public static final String KYC_REJECTED = "KYC_REJECTED";
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_events (event_type, aggregate_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void record(String eventType, Long aggregateId, Map<String, Object> payload) {
+        jdbcTemplate.update(INSERT_EVENT, eventType, aggregateId,
+                objectMapper.writeValueAsString(payload), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void recordPostings(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(postings.size());
+        for (Posting posting : postings) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("userId", posting.userId);
+            // Events keep their rupee amounts; the ledger itself counts paise
+            payload.put("amount", Money.rupees(posting.amount));
+            payload.put("balanceAfter", Money.rupees(posting.balanceAfter));
+            payload.put("reference", posting.reference);
+            payload.put("transferId", posting.transferId);
+            payload.put("postedAt", posting.postedAt);
+            rows.add(new Object[]{posting.credit ? WALLET_CREDITED : WALLET_DEBITED, posting.userId,
+                    objectMapper.writeValueAsString(payload), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    public void recordPosting(Posting posting) {
+        recordPostings(List.of(posting));
+    }
+
+    public static final class Posting {
+        private final Long userId;
+        private final boolean credit;
+        private final long amount;
+        private final long balanceAfter;
+        private final String reference;
+        private final String transferId;
+        private final LocalDateTime postedAt;
+
+        public Posting(Long userId, boolean credit, long amount, long balanceAfter,
+                       String reference, String transferId, LocalDateTime postedAt) {
+            this.userId = userId;
+            this.credit = credit;
+            this.amount = amount;
+            this.balanceAfter = balanceAfter;
+            this.reference = reference;
+            this.transferId = transferId;
+            this.postedAt = postedAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.wallet.wallet_backend.service;
 
+import com.wallet.wallet_backend.dto.PaymentRequestResponseDto;
 import com.wallet.wallet_backend.dto.PaymentResponseDto;
 import com.wallet.wallet_backend.entity.PaymentRequest;
 import com.wallet.wallet_backend.entity.User;
@@ -11,47 +12,49 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class PaymentService {
     
-    private final WalletService walletService;
+    private final TransferService transferService;
     private final UserRepository userRepository;
     private final PaymentRequestRepository paymentRequestRepository;
     private final NotificationService notificationService;
+    private final RiskScoringService riskScoringService;
     
-    public PaymentService(WalletService walletService, UserRepository userRepository,
+    public PaymentService(TransferService transferService, UserRepository userRepository,
                          PaymentRequestRepository paymentRequestRepository,
-                         NotificationService notificationService) {
-        this.walletService = walletService;
+                         NotificationService notificationService,
+                         RiskScoringService riskScoringService) {
+        this.transferService = transferService;
         this.userRepository = userRepository;
         this.paymentRequestRepository = paymentRequestRepository;
         this.notificationService = notificationService;
+        this.riskScoringService = riskScoringService;
     }
     
-    @Transactional
-    public PaymentResponseDto payByMobile(Long payerId, String payeeMobile, Double amount, String reference) {
-        User payer = userRepository.findById(payerId)
-                .orElseThrow(() -> new RuntimeException("Payer not found"));
-        
-        User payee = userRepository.findByMobile(payeeMobile)
+    // Not @Transactional: TransferService runs (and retries) its own short transaction
+    public PaymentResponseDto payByMobile(Long payerId, String payeeMobile, long amount, String reference) {
+        Long payeeId = userRepository.findByMobile(payeeMobile)
+                .map(User::getId)
                 .orElseThrow(() -> new RuntimeException("Payee not found"));
         
-        // Check if payee wallet is frozen
-        if (payee.getWalletFrozen()) {
-            throw new RuntimeException("Payee wallet is frozen");
-        }
+        // Scored in memory before any lock is taken; throws when the payment is blocked
+        RiskScoringService.Assessment assessment = riskScoringService.assess(payerId, payeeId, amount);
         
-        // Process payment
-        walletService.debit(payerId, amount, "PAYMENT_TO_" + payeeMobile);
-        walletService.credit(payee.getId(), amount, "PAYMENT_FROM_" + payer.getMobile());
+        // Lock both wallets, move the money and write both legs in one transaction
+        TransferService.TransferResult transfer = transferService.transfer(payerId, payeeId, amount);
+        riskScoringService.record(assessment);
+        User payer = transfer.getPayer();
+        User payee = transfer.getPayee();
         
-        // Send notification
+        // Queued for delivery after commit
         notificationService.sendPaymentNotification(payer, payee, amount);
         
         return PaymentResponseDto.builder()
                 .success(true)
-                .transactionId("TXN" + System.currentTimeMillis())
+                .transactionId(transfer.getTransferId())
                 .amount(amount)
                 .payerName(payer.getName())
                 .payeeName(payee.getName())
@@ -60,8 +63,7 @@ public class PaymentService {
                 .build();
     }
     
-    @Transactional
-    public PaymentResponseDto payByQR(Long payerId, String qrData, Double amount) {
+    public PaymentResponseDto payByQR(Long payerId, String qrData, long amount) {
         // Parse QR data to get payee information
         // For simplicity, assume QR contains payee mobile number
         String payeeMobile = extractMobileFromQR(qrData);
@@ -70,7 +72,10 @@ public class PaymentService {
     
     @Transactional
     public PaymentResponseDto requestPayment(Long requesterId, String targetMobile, 
-                                           Double amount, String note) {
+                                           long amount, String note) {
+        if (amount <= 0) {
+            throw new RuntimeException("Amount must be greater than zero");
+        }
         User requester = userRepository.findById(requesterId)
                 .orElseThrow(() -> new RuntimeException("Requester not found"));
         
@@ -90,7 +95,7 @@ public class PaymentService {
         
         paymentRequestRepository.save(paymentRequest);
         
-        // Send notification
+        // Queued for delivery after commit
         notificationService.sendPaymentRequestNotification(requester, targetUser, amount);
         
         return PaymentResponseDto.builder()
@@ -134,8 +139,19 @@ public class PaymentService {
         paymentRequestRepository.save(paymentRequest);
     }
     
-    public List<PaymentRequest> getPaymentRequests(Long userId) {
-        return paymentRequestRepository.findByTargetIdAndStatus(userId, "PENDING");
+    public List<PaymentRequestResponseDto> getPaymentRequests(Long userId) {
+        return paymentRequestRepository.findByTargetIdAndStatus(userId, "PENDING").stream()
+                .map(request -> PaymentRequestResponseDto.builder()
+                        .id(request.getId())
+                        .requesterId(request.getRequesterId())
+                        .targetId(request.getTargetId())
+                        .amount(request.getAmount())
+                        .note(request.getNote())
+                        .status(request.getStatus())
+                        .createdAt(request.getCreatedAt())
+                        .expiresAt(request.getExpiresAt())
+                        .build())
+                .collect(Collectors.toList());
     }
     
     public Map<String, Object> getTransactionHistory(Long userId, int page, int size) {
@@ -1,19 +1,43 @@
 package com.wallet.wallet_backend.service;
 
+import com.wallet.wallet_backend.util.Money;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * QR rendering. Static (UPI) codes are rendered through an LRU cache keyed by the
+ * SHA-256 of the payload plus the image size, so repeat requests skip encoding
+ * entirely. Payment codes embed a timestamp and are never repeated, so they bypass it.
+ */
 @Service
 public class QRCodeService {
     
-    public String generatePaymentQR(Long userId, String mobile, String name, Double amount) {
+    public static final int STATIC_QR_SIZE = 250;
+    
+    private final Map<String, RenderedQr> renderCache;
+    
+    public QRCodeService(@Value("${wallet.qr.cache.max-entries:2000}") int maxEntries) {
+        this.renderCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderedQr> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    // amount in paise, optional; the QR payload carries it in rupees
+    public String generatePaymentQR(Long userId, String mobile, String name, Long amount) {
         try {
             // Create QR data structure
             Map<String, Object> qrData = new HashMap<>();
@@ -22,49 +46,78 @@ public class QRCodeService {
             qrData.put("name", name);
             qrData.put("type", "PAYMENT_REQUEST");
             if (amount != null) {
-                qrData.put("amount", amount);
+                qrData.put("amount", Money.rupees(amount));
             }
             qrData.put("timestamp", System.currentTimeMillis());
             
             String qrContent = convertMapToJsonString(qrData);
             
-            // Generate QR code
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(qrContent, 
-                    BarcodeFormat.QR_CODE, 200, 200);
-            
-            ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-            byte[] pngData = pngOutputStream.toByteArray();
-            
-            return Base64.getEncoder().encodeToString(pngData);
+            return Base64.getEncoder().encodeToString(render(qrContent, 200));
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate QR code", e);
         }
     }
     
+    // Served by QrCodeController as a cacheable PNG. No file extension: JwtAuthFilter skips
+    // *.png paths as static files, which would leave the request without a principal.
+    public static String staticQrUrl(Long userId) {
+        return "/api/qr/" + userId + "/image";
+    }
+    
     public String generateStaticQR(Long userId, String mobile, String name, String upiId) {
-        try {
-            // Create UPI payment string (standard format)
-            String upiString;
-            if (upiId != null && !upiId.isEmpty()) {
-                upiString = String.format("upi://pay?pa=%s&pn=%s&tn=Wallet Payment&am=&cu=INR", 
-                        upiId, name);
-            } else {
-                upiString = String.format("upi://pay?pa=%s@wallet&pn=%s&tn=Wallet Payment&am=&cu=INR", 
-                        mobile, name);
+        return Base64.getEncoder().encodeToString(renderStaticQR(mobile, name, upiId).getPng());
+    }
+    
+    public RenderedQr renderStaticQR(String mobile, String name, String upiId) {
+        // Create UPI payment string (standard format)
+        String upiString;
+        if (upiId != null && !upiId.isEmpty()) {
+            upiString = String.format("upi://pay?pa=%s&pn=%s&tn=Wallet Payment&am=&cu=INR", 
+                    upiId, name);
+        } else {
+            upiString = String.format("upi://pay?pa=%s@wallet&pn=%s&tn=Wallet Payment&am=&cu=INR", 
+                    mobile, name);
+        }
+        return renderCached(upiString, STATIC_QR_SIZE);
+    }
+    
+    public RenderedQr renderCached(String content, int size) {
+        String key = sha256Hex(content) + ":" + size;
+        synchronized (renderCache) {
+            RenderedQr cached = renderCache.get(key);
+            if (cached != null) {
+                return cached;
             }
-            
-            // Generate QR code
+        }
+        // Encode outside the lock; a concurrent miss on the same key just renders twice
+        RenderedQr rendered = new RenderedQr(render(content, size), "\"" + key.replace(':', '-') + "\"");
+        synchronized (renderCache) {
+            renderCache.put(key, rendered);
+        }
+        return rendered;
+    }
+    
+    private byte[] render(String content, int size) {
+        try {
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(upiString, 
-                    BarcodeFormat.QR_CODE, 250, 250);
+            BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, size, size);
             
             ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
             MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-            byte[] pngData = pngOutputStream.toByteArray();
-            
-            return Base64.getEncoder().encodeToString(pngData);
+            return pngOutputStream.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate QR code", e);
+        }
+    }
+    
+    private static String sha256Hex(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate QR code", e);
         }
@@ -85,4 +138,17 @@ public class QRCodeService {
         json.append("}");
         return json.toString();
     }
+    
+    public static final class RenderedQr {
+        private final byte[] png;
+        private final String etag;
+        
+        private RenderedQr(byte[] png, String etag) {
+            this.png = png;
+            this.etag = etag;
+        }
+        
+        public byte[] getPng() { return png; }
+        public String getEtag() { return etag; }
+    }
 }
\ No newline at end of file
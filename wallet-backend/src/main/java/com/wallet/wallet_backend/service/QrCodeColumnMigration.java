@@ -0,0 +1,42 @@
+package com.wallet.wallet_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Clears the Base64 PNGs left in users.qr_code_data.
+ *
+ * The static QR is now rendered on demand and served from /qr/{userId}/image, so the
+ * column is no longer mapped, but ddl-auto=update never drops it and rows written
+ * before the change still carry a few KB each. Only non-null rows are touched, so this
+ * is a no-op on every start after the first (and on databases that never had the column).
+ */
+@Component
+public class QrCodeColumnMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QrCodeColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        List<Integer> exists = jdbcTemplate.queryForList(
+                "SELECT 1 FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND COLUMN_NAME = 'qr_code_data'",
+                Integer.class);
+        if (exists.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        int rows = jdbcTemplate.update("UPDATE users SET qr_code_data = NULL WHERE qr_code_data IS NOT NULL");
+        if (rows > 0) {
+            System.out.println("Cleared stored QR codes: " + rows + " rows in " +
+                    (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+}
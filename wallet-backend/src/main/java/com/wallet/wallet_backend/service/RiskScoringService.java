@@ -0,0 +1,458 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.repository.UserRepository;
+import com.wallet.wallet_backend.util.Money;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scores every outgoing payment and wallet debit against rolling per-user and per-device
+ * features held in memory, before any money moves.
+ *
+ * Features: how far the amount sits from the user's usual amount (an exponentially
+ * weighted mean and variance), whether the payee is new and how often payees have been
+ * new lately, attempts in the last minute, distinct payees in the last hour, and distinct
+ * users seen on the same device in the last day. Each rule that fires adds points; a
+ * score at or above wallet.risk.block-score rejects the posting and one at or above
+ * wallet.risk.flag-score lets it through but records it as flagged.
+ *
+ * Scoring takes one stripe lock and reads no database. Features are only folded in once
+ * the posting commits; attempts count straight away so a burst of rejected tries still
+ * shows up. Scores also accumulate per user with a one-day half-life, and when that
+ * total crosses the MEDIUM or HIGH threshold the user's riskLevel is raised on
+ * riskExecutor. It is never lowered here; that stays an admin decision.
+ */
+@Service
+public class RiskScoringService implements StatsProvider {
+
+    private static final String[] LEVELS = {"LOW", "MEDIUM", "HIGH"};
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final double AMOUNT_ALPHA = 0.1;
+    private static final double NEW_PAYEE_ALPHA = 0.2;
+    private static final int KNOWN_PAYEES = 64;
+    private static final int DEVICE_USERS = 16;
+    private static final int ATTEMPTS = 16;
+    private static final int RECENT_FLAGS = 50;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor riskExecutor;
+    private final boolean enabled;
+    private final int flagScore;
+    private final int blockScore;
+    private final double mediumScore;
+    private final double highScore;
+    private final long idleMillis;
+
+    private final ReentrantLock[] stripes;
+    private final Map<Long, UserFeatures> users = new ConcurrentHashMap<>();
+    private final Map<String, DeviceFeatures> devices = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> recentFlags = new ArrayDeque<>();
+
+    private final AtomicLong scored = new AtomicLong();
+    private final AtomicLong flagged = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong escalations = new AtomicLong();
+    private final AtomicLong scoringNanos = new AtomicLong();
+
+    public RiskScoringService(UserRepository userRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Qualifier("riskExecutor") Executor riskExecutor,
+                              @Value("${wallet.risk.enabled:true}") boolean enabled,
+                              @Value("${wallet.risk.flag-score:40}") int flagScore,
+                              @Value("${wallet.risk.block-score:80}") int blockScore,
+                              @Value("${wallet.risk.medium-score:120}") double mediumScore,
+                              @Value("${wallet.risk.high-score:240}") double highScore,
+                              @Value("${wallet.risk.idle-hours:48}") long idleHours,
+                              @Value("${wallet.risk.stripes:256}") int stripeCount) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.riskExecutor = riskExecutor;
+        this.enabled = enabled;
+        this.flagScore = flagScore;
+        this.blockScore = blockScore;
+        this.mediumScore = mediumScore;
+        this.highScore = highScore;
+        this.idleMillis = idleHours * HOUR_MILLIS;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Scores a posting of amount paise from userId; payeeId is null for withdrawals.
+     * Throws when the posting is blocked. Pass the result to record() once the posting
+     * has gone through.
+     */
+    public Assessment assess(Long userId, Long payeeId, long amount) {
+        if (!enabled) {
+            return null;
+        }
+        long started = System.nanoTime();
+        long now = System.currentTimeMillis();
+        String device = currentDevice();
+        List<String> reasons = new ArrayList<>(4);
+        int score = 0;
+
+        UserFeatures user = users.computeIfAbsent(userId, id -> new UserFeatures());
+        ReentrantLock lock = stripeFor(userId.hashCode());
+        lock.lock();
+        try {
+            user.lastSeen = now;
+            int burst = user.attempts.record(now, MINUTE_MILLIS);
+            if (burst >= 10) {
+                score += 50;
+                reasons.add(burst + " attempts in a minute");
+            } else if (burst >= 5) {
+                score += 25;
+                reasons.add(burst + " attempts in a minute");
+            }
+
+            if (user.postings >= 5) {
+                double deviation = Math.sqrt(user.amountVariance);
+                double z = deviation > 0 ? (amount - user.amountMean) / deviation : 0;
+                if (z >= 5) {
+                    score += 50;
+                    reasons.add(String.format("amount %.1f deviations above usual", z));
+                } else if (z >= 3) {
+                    score += 30;
+                    reasons.add(String.format("amount %.1f deviations above usual", z));
+                }
+            }
+
+            if (payeeId != null && !user.payees.containsKey(payeeId)) {
+                score += 10;
+                reasons.add("new payee");
+                if (user.postings >= 5 && user.newPayeeRate > 0.6) {
+                    score += 20;
+                    reasons.add("mostly new payees");
+                }
+                int fanOut = user.distinctPayeesSince(now - HOUR_MILLIS) + 1;
+                if (fanOut >= 10) {
+                    score += 25;
+                    reasons.add(fanOut + " payees in an hour");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Device locks share the stripes; the user's stripe is released first so the two never nest
+        if (device != null) {
+            DeviceFeatures features = devices.computeIfAbsent(device, d -> new DeviceFeatures());
+            ReentrantLock deviceLock = stripeFor(device.hashCode());
+            deviceLock.lock();
+            try {
+                features.lastSeen = now;
+                features.users.put(userId, now);
+                int sharedWith = features.distinctUsersSince(now - DAY_MILLIS);
+                if (sharedWith >= 3) {
+                    score += 30;
+                    reasons.add(sharedWith + " users on one device");
+                }
+                int deviceBurst = features.attempts.record(now, MINUTE_MILLIS);
+                if (deviceBurst >= 10 && sharedWith >= 2) {
+                    score += 25;
+                    reasons.add(deviceBurst + " attempts from one device in a minute");
+                }
+            } finally {
+                deviceLock.unlock();
+            }
+        }
+
+        scored.incrementAndGet();
+        Assessment assessment = new Assessment(userId, payeeId, amount, score, reasons);
+        if (score >= blockScore) {
+            blocked.incrementAndGet();
+            remember(assessment, "BLOCKED");
+            accumulate(assessment);
+            scoringNanos.addAndGet(System.nanoTime() - started);
+            throw new RuntimeException("Payment blocked by risk checks");
+        }
+        if (score >= flagScore) {
+            flagged.incrementAndGet();
+            remember(assessment, "FLAGGED");
+        }
+        scoringNanos.addAndGet(System.nanoTime() - started);
+        return assessment;
+    }
+
+    /**
+     * Folds a posting that went through into the user's features. Inside a transaction
+     * this waits for the commit, so a rolled-back debit leaves no trace.
+     */
+    public void record(Assessment assessment) {
+        if (assessment == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(assessment);
+                }
+            });
+        } else {
+            apply(assessment);
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "riskScoring";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = scored.get();
+        stats.put("enabled", enabled);
+        stats.put("trackedUsers", users.size());
+        stats.put("trackedDevices", devices.size());
+        stats.put("scored", count);
+        stats.put("flagged", flagged.get());
+        stats.put("blocked", blocked.get());
+        stats.put("escalations", escalations.get());
+        stats.put("avgScoringMicros", count > 0 ? scoringNanos.get() / count / 1000.0 : 0);
+        synchronized (recentFlags) {
+            stats.put("recentFlags", new ArrayList<>(recentFlags));
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.risk.eviction-interval-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        users.entrySet().removeIf(entry -> entry.getValue().lastSeen < cutoff);
+        devices.entrySet().removeIf(entry -> entry.getValue().lastSeen < cutoff);
+    }
+
+    private void apply(Assessment assessment) {
+        UserFeatures user = users.computeIfAbsent(assessment.userId, id -> new UserFeatures());
+        ReentrantLock lock = stripeFor(assessment.userId.hashCode());
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            double delta = assessment.amount - user.amountMean;
+            if (user.postings == 0) {
+                user.amountMean = assessment.amount;
+            } else {
+                user.amountMean += AMOUNT_ALPHA * delta;
+                user.amountVariance = (1 - AMOUNT_ALPHA) * (user.amountVariance + AMOUNT_ALPHA * delta * delta);
+            }
+            if (assessment.payeeId != null) {
+                boolean newPayee = user.payees.put(assessment.payeeId, now) == null;
+                user.newPayeeRate += NEW_PAYEE_ALPHA * ((newPayee ? 1 : 0) - user.newPayeeRate);
+            }
+            user.postings++;
+        } finally {
+            lock.unlock();
+        }
+        accumulate(assessment);
+    }
+
+    // Adds the posting's score to the user's decaying total and raises riskLevel when it crosses a threshold
+    private void accumulate(Assessment assessment) {
+        if (assessment.score == 0) {
+            return;
+        }
+        UserFeatures user = users.computeIfAbsent(assessment.userId, id -> new UserFeatures());
+        int level;
+        ReentrantLock lock = stripeFor(assessment.userId.hashCode());
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            user.riskScore = user.riskScore * Math.pow(0.5, (now - user.riskScoreAt) / (double) DAY_MILLIS)
+                    + assessment.score;
+            user.riskScoreAt = now;
+            level = user.riskScore >= highScore ? 2 : user.riskScore >= mediumScore ? 1 : 0;
+            if (level <= user.escalatedLevel) {
+                return;
+            }
+            user.escalatedLevel = level;
+        } finally {
+            lock.unlock();
+        }
+        escalate(assessment.userId, user, level);
+    }
+
+    private void escalate(Long userId, UserFeatures user, int level) {
+        try {
+            riskExecutor.execute(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> userRepository.findById(userId)
+                            .filter(u -> levelOf(u.getRiskLevel()) < level)
+                            .ifPresent(u -> {
+                                // Saved through JPA so SpendLimitListener and the user caches see the change
+                                u.setRiskLevel(LEVELS[level]);
+                                userRepository.save(u);
+                                escalations.incrementAndGet();
+                                System.out.println("Risk level of user " + userId + " raised to " + LEVELS[level]);
+                            }));
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to raise risk level of user " + userId + ": " + e.getMessage());
+                    user.escalatedLevel = 0;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Retried on the user's next scored posting
+            user.escalatedLevel = 0;
+        }
+    }
+
+    private void remember(Assessment assessment, String outcome) {
+        Map<String, Object> flag = new LinkedHashMap<>();
+        flag.put("userId", assessment.userId);
+        flag.put("payeeId", assessment.payeeId);
+        flag.put("amount", Money.rupees(assessment.amount));
+        flag.put("score", assessment.score);
+        flag.put("outcome", outcome);
+        flag.put("reasons", assessment.reasons);
+        flag.put("at", LocalDateTime.now());
+        synchronized (recentFlags) {
+            recentFlags.addFirst(flag);
+            if (recentFlags.size() > RECENT_FLAGS) {
+                recentFlags.removeLast();
+            }
+        }
+        System.out.println("Risk " + outcome.toLowerCase() + " posting of " + Money.format(assessment.amount) +
+                " by user " + assessment.userId + " (score " + assessment.score + "): " + assessment.reasons);
+    }
+
+    private ReentrantLock stripeFor(int hash) {
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private static int levelOf(String riskLevel) {
+        int level = Arrays.asList(LEVELS).indexOf(riskLevel);
+        return Math.max(level, 0);
+    }
+
+    // Device fingerprint from the current request: X-Device-Id, else user agent and client address
+    private static String currentDevice() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        String deviceId = request.getHeader("X-Device-Id");
+        if (deviceId != null && !deviceId.isBlank()) {
+            return deviceId;
+        }
+        String forwarded = request.getHeader("X-Forwarded-For");
+        String address = forwarded != null && !forwarded.isBlank()
+                ? forwarded.split(",")[0].trim()
+                : request.getRemoteAddr();
+        return request.getHeader("User-Agent") + "@" + address;
+    }
+
+    private static final class UserFeatures {
+        private final AttemptRing attempts = new AttemptRing();
+        private final LinkedHashMap<Long, Long> payees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > KNOWN_PAYEES;
+            }
+        };
+        private double amountMean;
+        private double amountVariance;
+        private double newPayeeRate;
+        private long postings;
+        private double riskScore;
+        private long riskScoreAt = System.currentTimeMillis();
+        private volatile int escalatedLevel;
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private int distinctPayeesSince(long since) {
+            int count = 0;
+            for (long seen : payees.values()) {
+                if (seen >= since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static final class DeviceFeatures {
+        private final AttemptRing attempts = new AttemptRing();
+        private final LinkedHashMap<Long, Long> users = new LinkedHashMap<>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > DEVICE_USERS;
+            }
+        };
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private int distinctUsersSince(long since) {
+            int count = 0;
+            for (long seen : users.values()) {
+                if (seen >= since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    // The last ATTEMPTS attempt times; counts saturate at ATTEMPTS, which is above every rule's threshold
+    private static final class AttemptRing {
+        private final long[] times = new long[ATTEMPTS];
+        private int next;
+
+        private int record(long now, long window) {
+            times[next] = now;
+            next = (next + 1) % ATTEMPTS;
+            return countSince(now - window);
+        }
+
+        private int countSince(long since) {
+            int count = 0;
+            for (long time : times) {
+                if (time > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public static final class Assessment {
+        private final Long userId;
+        private final Long payeeId;
+        private final long amount;
+        private final int score;
+        private final List<String> reasons;
+
+        private Assessment(Long userId, Long payeeId, long amount, int score, List<String> reasons) {
+            this.userId = userId;
+            this.payeeId = payeeId;
+            this.amount = amount;
+            this.score = score;
+            this.reasons = reasons;
+        }
+
+        public int getScore() { return score; }
+        public List<String> getReasons() { return reasons; }
+    }
+}
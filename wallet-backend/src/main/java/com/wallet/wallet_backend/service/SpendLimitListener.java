@@ -0,0 +1,41 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.User;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on User that hands a changed KYC status or risk level to SpendLimitService
+ * once the update commits, so a rolled-back approval never loosens a user's caps. Looked
+ * up lazily for the same reason as UserSummaryCacheListener.
+ */
+@Component
+public class SpendLimitListener {
+
+    private final ObjectProvider<SpendLimitService> spendLimitService;
+
+    public SpendLimitListener(ObjectProvider<SpendLimitService> spendLimitService) {
+        this.spendLimitService = spendLimitService;
+    }
+
+    @PostUpdate
+    public void onUpdated(User user) {
+        Long id = user.getId();
+        String kycStatus = user.getKycStatus();
+        String riskLevel = user.getRiskLevel();
+        SpendLimitService limits = spendLimitService.getObject();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    limits.updateTier(id, kycStatus, riskLevel);
+                }
+            });
+        } else {
+            limits.updateTier(id, kycStatus, riskLevel);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory spend limits: per-user sliding windows of debited amount and count over the
+ * last minute, hour and day, checked on every wallet debit and outgoing transfer.
+ *
+ * Each window is a ring of buckets (12 x 5s, 12 x 5min, 24 x 1h), so a check advances at
+ * most one ring and compares three running totals; expiry is accurate to one bucket.
+ * Users are lock-striped: a reserve checks and records under the stripe lock, so two
+ * concurrent debits cannot both squeeze under a cap. A reservation made inside a
+ * transaction is released if the transaction rolls back; callers without one release it
+ * themselves when the posting fails.
+ *
+ * Caps come from wallet.limits.kyc.{kycStatus} and wallet.limits.risk.{riskLevel}, written
+ * as window:maxRupees:maxCount entries ("*" for no cap); where both apply the stricter
+ * wins. A user's tier is read once when their windows are created and kept current by
+ * SpendLimitListener. Windows are rebuilt from the last day of postings at startup, and
+ * idle users are evicted.
+ */
+@Service
+public class SpendLimitService implements ApplicationRunner, StatsProvider {
+
+    private static final String[] WINDOW_NAMES = {"minute", "hour", "day"};
+    private static final long[] BUCKET_MILLIS = {5_000L, 300_000L, 3_600_000L};
+    private static final int[] BUCKETS = {12, 12, 24};
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+    private final boolean enabled;
+
+    private final ReentrantLock[] stripes;
+    private final Map<Long, UserWindows> users = new ConcurrentHashMap<>();
+    private final Map<String, Rule> rules = new ConcurrentHashMap<>();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+
+    public SpendLimitService(JdbcTemplate jdbcTemplate,
+                             Environment environment,
+                             @Value("${wallet.limits.enabled:true}") boolean enabled,
+                             @Value("${wallet.limits.stripes:256}") int stripeCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int[] postings = {0};
+        jdbcTemplate.query(
+                "SELECT t.user_id, t.amount, t.created_at, u.kyc_status, u.risk_level " +
+                "FROM main_transactions t JOIN users u ON u.id = t.user_id " +
+                "WHERE t.created_at >= ? AND t.type NOT IN ('CREDIT', 'DEPOSIT') " +
+                "AND (t.reference IS NULL OR t.reference NOT LIKE 'ADMIN\\_%')",
+                rs -> {
+                    long userId = rs.getLong("user_id");
+                    long at = rs.getTimestamp("created_at").getTime();
+                    String kycStatus = rs.getString("kyc_status");
+                    String riskLevel = rs.getString("risk_level");
+                    ReentrantLock lock = stripeFor(userId);
+                    lock.lock();
+                    try {
+                        UserWindows windows = users.computeIfAbsent(userId, id -> new UserWindows(kycStatus, riskLevel));
+                        windows.add(at, rs.getLong("amount"));
+                    } finally {
+                        lock.unlock();
+                    }
+                    postings[0]++;
+                },
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        System.out.println("Spend limits rebuilt from " + postings[0] + " postings for " + users.size() +
+                " users in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    /**
+     * Checks the user's caps for one more debit of amount paise and counts it.
+     * Throws when a cap would be exceeded.
+     */
+    public Reservation reserve(Long userId, long amount) {
+        if (!enabled) {
+            return Reservation.NONE;
+        }
+        checks.incrementAndGet();
+        UserWindows windows = windowsFor(userId);
+        long now = System.currentTimeMillis();
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            windows.advance(now);
+            Rule rule = ruleFor(windows.kycStatus, windows.riskLevel);
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                if (rule.maxAmount[w] >= 0 && windows.amount[w] + amount > rule.maxAmount[w]) {
+                    rejections.incrementAndGet();
+                    throw new RuntimeException("Spend limit exceeded: at most " + Money.format(rule.maxAmount[w]) +
+                            " per " + WINDOW_NAMES[w]);
+                }
+                if (rule.maxCount[w] >= 0 && windows.count[w] + 1 > rule.maxCount[w]) {
+                    rejections.incrementAndGet();
+                    throw new RuntimeException("Spend limit exceeded: at most " + rule.maxCount[w] +
+                            " payments per " + WINDOW_NAMES[w]);
+                }
+            }
+            windows.add(now, amount);
+        } finally {
+            lock.unlock();
+        }
+
+        Reservation reservation = new Reservation(this, userId, amount, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Called when a user's KYC status or risk level changes; users without windows pick
+     * the new tier up when they are next loaded.
+     */
+    public void updateTier(Long userId, String kycStatus, String riskLevel) {
+        UserWindows windows = users.get(userId);
+        if (windows != null) {
+            windows.kycStatus = kycStatus;
+            windows.riskLevel = riskLevel;
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "spendLimits";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("trackedUsers", users.size());
+        stats.put("checks", checks.get());
+        stats.put("rejections", rejections.get());
+        stats.put("releases", releases.get());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.limits.eviction-interval-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - DAY_MILLIS;
+        users.entrySet().removeIf(entry -> entry.getValue().lastTouched < cutoff);
+    }
+
+    private void release(Long userId, long amount, long at) {
+        releases.incrementAndGet();
+        UserWindows windows = users.get(userId);
+        if (windows == null) {
+            return;
+        }
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            windows.remove(at, amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UserWindows windowsFor(Long userId) {
+        UserWindows windows = users.get(userId);
+        if (windows != null) {
+            return windows;
+        }
+        // Read the tier outside the stripe lock; a racing loader's copy is simply discarded
+        List<UserWindows> loaded = jdbcTemplate.query(
+                "SELECT kyc_status, risk_level FROM users WHERE id = ?",
+                (rs, rowNum) -> new UserWindows(rs.getString("kyc_status"), rs.getString("risk_level")),
+                userId);
+        if (loaded.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        UserWindows existing = users.putIfAbsent(userId, loaded.get(0));
+        return existing != null ? existing : loaded.get(0);
+    }
+
+    private Rule ruleFor(String kycStatus, String riskLevel) {
+        Rule kyc = rule("wallet.limits.kyc." + kycStatus);
+        Rule risk = rule("wallet.limits.risk." + riskLevel);
+        return kyc.stricter(risk);
+    }
+
+    private Rule rule(String key) {
+        return rules.computeIfAbsent(key, k -> Rule.parse(k, environment.getProperty(k)));
+    }
+
+    private ReentrantLock stripeFor(long userId) {
+        return stripes[(int) ((userId & Long.MAX_VALUE) % stripes.length)];
+    }
+
+    private static final class UserWindows {
+        private volatile String kycStatus;
+        private volatile String riskLevel;
+        private final long[][] bucketIds = new long[WINDOW_NAMES.length][];
+        private final long[][] bucketAmounts = new long[WINDOW_NAMES.length][];
+        private final int[][] bucketCounts = new int[WINDOW_NAMES.length][];
+        private final long[] amount = new long[WINDOW_NAMES.length];
+        private final int[] count = new int[WINDOW_NAMES.length];
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        private UserWindows(String kycStatus, String riskLevel) {
+            this.kycStatus = kycStatus;
+            this.riskLevel = riskLevel;
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                bucketIds[w] = new long[BUCKETS[w]];
+                Arrays.fill(bucketIds[w], -1);
+                bucketAmounts[w] = new long[BUCKETS[w]];
+                bucketCounts[w] = new int[BUCKETS[w]];
+            }
+        }
+
+        // Drops buckets that have slid out of each window
+        private void advance(long now) {
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                long oldest = now / BUCKET_MILLIS[w] - BUCKETS[w] + 1;
+                for (int slot = 0; slot < BUCKETS[w]; slot++) {
+                    long id = bucketIds[w][slot];
+                    if (id >= 0 && id < oldest) {
+                        amount[w] -= bucketAmounts[w][slot];
+                        count[w] -= bucketCounts[w][slot];
+                        bucketIds[w][slot] = -1;
+                        bucketAmounts[w][slot] = 0;
+                        bucketCounts[w][slot] = 0;
+                    }
+                }
+            }
+        }
+
+        private void add(long at, long value) {
+            advance(Math.max(at, lastTouched));
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                long id = at / BUCKET_MILLIS[w];
+                int slot = (int) (id % BUCKETS[w]);
+                if (bucketIds[w][slot] != id) {
+                    if (bucketIds[w][slot] > id) {
+                        continue; // older than the window
+                    }
+                    amount[w] -= bucketAmounts[w][slot];
+                    count[w] -= bucketCounts[w][slot];
+                    bucketIds[w][slot] = id;
+                    bucketAmounts[w][slot] = 0;
+                    bucketCounts[w][slot] = 0;
+                }
+                bucketAmounts[w][slot] += value;
+                bucketCounts[w][slot]++;
+                amount[w] += value;
+                count[w]++;
+            }
+            lastTouched = Math.max(at, lastTouched);
+        }
+
+        // Undoes add(at, value) in the windows whose bucket for `at` is still live
+        private void remove(long at, long value) {
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                long id = at / BUCKET_MILLIS[w];
+                int slot = (int) (id % BUCKETS[w]);
+                if (bucketIds[w][slot] == id && bucketCounts[w][slot] > 0) {
+                    bucketAmounts[w][slot] -= value;
+                    bucketCounts[w][slot]--;
+                    amount[w] -= value;
+                    count[w]--;
+                }
+            }
+        }
+    }
+
+    private static final class Rule {
+        private static final Rule NONE = new Rule(new long[]{-1, -1, -1}, new int[]{-1, -1, -1});
+
+        private final long[] maxAmount;
+        private final int[] maxCount;
+
+        private Rule(long[] maxAmount, int[] maxCount) {
+            this.maxAmount = maxAmount;
+            this.maxCount = maxCount;
+        }
+
+        private static Rule parse(String key, String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            long[] maxAmount = {-1, -1, -1};
+            int[] maxCount = {-1, -1, -1};
+            for (String entry : value.split(",")) {
+                String[] parts = entry.trim().split(":");
+                int w = Arrays.asList(WINDOW_NAMES).indexOf(parts[0].trim());
+                if (parts.length != 3 || w < 0) {
+                    throw new IllegalStateException("Invalid spend limit '" + entry + "' in " + key);
+                }
+                maxAmount[w] = "*".equals(parts[1].trim()) ? -1 : Money.paise(parts[1]);
+                maxCount[w] = "*".equals(parts[2].trim()) ? -1 : Integer.parseInt(parts[2].trim());
+            }
+            return new Rule(maxAmount, maxCount);
+        }
+
+        private Rule stricter(Rule other) {
+            long[] amounts = new long[WINDOW_NAMES.length];
+            int[] counts = new int[WINDOW_NAMES.length];
+            for (int w = 0; w < WINDOW_NAMES.length; w++) {
+                amounts[w] = min(maxAmount[w], other.maxAmount[w]);
+                counts[w] = (int) min(maxCount[w], other.maxCount[w]);
+            }
+            return new Rule(amounts, counts);
+        }
+
+        // -1 means no cap
+        private static long min(long a, long b) {
+            return a < 0 ? b : b < 0 ? a : Math.min(a, b);
+        }
+    }
+
+    /**
+     * A counted debit. release() is idempotent, so a failure path and a rollback
+     * callback can both call it.
+     */
+    public static final class Reservation {
+        private static final Reservation NONE = new Reservation(null, null, 0, 0);
+
+        private final SpendLimitService owner;
+        private final Long userId;
+        private final long amount;
+        private final long at;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(SpendLimitService owner, Long userId, long amount, long at) {
+            this.owner = owner;
+            this.userId = userId;
+            this.amount = amount;
+            this.at = at;
+        }
+
+        public void release() {
+            if (owner != null && released.compareAndSet(false, true)) {
+                owner.release(userId, amount, at);
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.wallet.wallet_backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * One user's closed month of wallet postings, written once and then only read through a
+ * read-only memory map.
+ *
+ * Layout: a 32-byte header [int magic][short version][short reserved][long userId]
+ * [int yyyymm][int count][int stringsOffset][int crc32 of everything after the header],
+ * then `count` fixed 36-byte records [long id][long amountPaise][long epochSecond]
+ * [int nanos][int typeOffset][int referenceOffset], newest first, then a string pool of
+ * [int length][utf-8 bytes] entries. Types are pooled once per segment; a null
+ * reference has offset -1. Fixed-size records let a date range be located by binary
+ * search without decoding the rows outside it.
+ */
+public final class StatementSegment {
+
+    private static final int MAGIC = 0x5753544D; // "WSTM"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 36;
+
+    private final ByteBuffer buffer;
+    private final long userId;
+    private final YearMonth month;
+    private final int count;
+
+    private StatementSegment(ByteBuffer buffer, long userId, YearMonth month, int count) {
+        this.buffer = buffer;
+        this.userId = userId;
+        this.month = month;
+        this.count = count;
+    }
+
+    /**
+     * Writes rows (newest first) to a temp file and moves it into place, so a reader
+     * never maps a half-written segment.
+     */
+    public static void write(Path file, long userId, YearMonth month, List<Row> rows) throws IOException {
+        Map<String, Integer> pooled = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] typeOffsets = new int[rows.size()];
+        int[] referenceOffsets = new int[rows.size()];
+        int poolBytes = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            for (int field = 0; field < 2; field++) {
+                String value = field == 0 ? row.type : row.reference;
+                int offset = -1;
+                if (value != null) {
+                    Integer existing = field == 0 ? pooled.get(value) : null;
+                    if (existing != null) {
+                        offset = existing;
+                    } else {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        offset = poolBytes;
+                        strings.add(bytes);
+                        poolBytes += 4 + bytes.length;
+                        if (field == 0) {
+                            pooled.put(value, offset);
+                        }
+                    }
+                }
+                if (field == 0) {
+                    typeOffsets[i] = offset;
+                } else {
+                    referenceOffsets[i] = offset;
+                }
+            }
+        }
+
+        int stringsOffset = HEADER_BYTES + rows.size() * RECORD_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(stringsOffset + poolBytes);
+        out.position(HEADER_BYTES);
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            out.putLong(row.id);
+            out.putLong(row.amount);
+            out.putLong(row.createdAt.toEpochSecond(ZoneOffset.UTC));
+            out.putInt(row.createdAt.getNano());
+            out.putInt(typeOffsets[i]);
+            out.putInt(referenceOffsets[i]);
+        }
+        for (byte[] bytes : strings) {
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), HEADER_BYTES, out.capacity() - HEADER_BYTES);
+        out.putInt(0, MAGIC);
+        out.putShort(4, VERSION);
+        out.putLong(8, userId);
+        out.putInt(16, month.getYear() * 100 + month.getMonthValue());
+        out.putInt(20, rows.size());
+        out.putInt(24, stringsOffset);
+        out.putInt(28, (int) crc.getValue());
+
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a segment and checks its header and checksum once; after that every read is
+     * served from the page cache. The channel is closed straight away, the mapping stays valid.
+     */
+    public static StatementSegment open(Path file, long userId, YearMonth month) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Statement segment " + file + " is truncated");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.getInt(0) != MAGIC || mapped.getShort(4) != VERSION) {
+            throw new IOException("Statement segment " + file + " has an unknown format");
+        }
+        if (mapped.getLong(8) != userId || mapped.getInt(16) != month.getYear() * 100 + month.getMonthValue()) {
+            throw new IOException("Statement segment " + file + " belongs to another user or month");
+        }
+        int count = mapped.getInt(20);
+        if (mapped.getInt(24) != HEADER_BYTES + count * RECORD_BYTES || mapped.getInt(24) > mapped.capacity()) {
+            throw new IOException("Statement segment " + file + " is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(mapped.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != mapped.getInt(28)) {
+            throw new IOException("Statement segment " + file + " failed its checksum");
+        }
+        return new StatementSegment(mapped, userId, month, count);
+    }
+
+    public long getUserId() { return userId; }
+    public YearMonth getMonth() { return month; }
+    public int size() { return count; }
+
+    /**
+     * Rows with from <= createdAt < to, newest first; null bounds are open.
+     */
+    public List<Row> read(LocalDateTime from, LocalDateTime to) {
+        // Records are newest first, so rows before `to` start at the first index older than it
+        int start = to != null ? firstOlderThan(to) : 0;
+        int end = from != null ? firstOlderThan(from) : count;
+        List<Row> rows = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            rows.add(row(i));
+        }
+        return rows;
+    }
+
+    // First index whose createdAt is strictly before the bound
+    private int firstOlderThan(LocalDateTime bound) {
+        long boundSecond = bound.toEpochSecond(ZoneOffset.UTC);
+        int boundNanos = bound.getNano();
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int position = HEADER_BYTES + mid * RECORD_BYTES;
+            long second = buffer.getLong(position + 16);
+            int nanos = buffer.getInt(position + 24);
+            if (second < boundSecond || (second == boundSecond && nanos < boundNanos)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private Row row(int index) {
+        int position = HEADER_BYTES + index * RECORD_BYTES;
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(
+                buffer.getLong(position + 16), buffer.getInt(position + 24), ZoneOffset.UTC);
+        return new Row(buffer.getLong(position), buffer.getLong(position + 8),
+                string(buffer.getInt(position + 28)), string(buffer.getInt(position + 32)), createdAt);
+    }
+
+    private String string(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int position = buffer.getInt(24) + offset;
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Row {
+        private final long id;
+        private final long amount;
+        private final String type;
+        private final String reference;
+        private final LocalDateTime createdAt;
+
+        public Row(long id, long amount, String type, String reference, LocalDateTime createdAt) {
+            this.id = id;
+            this.amount = amount;
+            this.type = type;
+            this.reference = reference;
+            this.createdAt = createdAt;
+        }
+
+        public long getId() { return id; }
+        public long getAmount() { return amount; }
+        public String getType() { return type; }
+        public String getReference() { return reference; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+}
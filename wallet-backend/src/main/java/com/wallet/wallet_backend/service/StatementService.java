@@ -0,0 +1,327 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.service.StatementSegment.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Wallet statements served from closed monthly segments plus the open month from MySQL.
+ *
+ * A month is closed once it ended more than close-grace-minutes ago (so late ledger
+ * flushes still land in it). Closed months are written once per user as a
+ * StatementSegment under {directory}/{userId % 100}/{userId}/{yyyy-MM}.seg, next to a
+ * `closed` marker holding the last closed month. Months are closed lazily on the first
+ * statement read after they end, and ahead of time by a monthly job for every user who
+ * posted in the month that just ended. Only the open month(s) are queried on each read.
+ *
+ * Mapped segments are kept in a bounded LRU; evicted mappings are released by the GC.
+ */
+@Service
+public class StatementService implements StatsProvider {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String MARKER = "closed";
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String SELECT_POSTINGS =
+            "SELECT id, amount, type, reference, created_at FROM main_transactions " +
+            "WHERE user_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at DESC, id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final long closeGraceMinutes;
+    private final int maxMappedSegments;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+    private final Map<Path, StatementSegment> mapped;
+    private final AtomicLong segmentsWritten = new AtomicLong();
+    private final AtomicLong mapHits = new AtomicLong();
+    private final AtomicLong mapMisses = new AtomicLong();
+
+    public StatementService(JdbcTemplate jdbcTemplate,
+                            @Value("${wallet.statement.directory:data/statements}") String directory,
+                            @Value("${wallet.statement.close-grace-minutes:60}") long closeGraceMinutes,
+                            @Value("${wallet.statement.max-mapped-segments:2048}") int maxMappedSegments) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Path.of(directory);
+        this.closeGraceMinutes = closeGraceMinutes;
+        this.maxMappedSegments = maxMappedSegments;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mapped = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, StatementSegment> eldest) {
+                return size() > StatementService.this.maxMappedSegments;
+            }
+        };
+    }
+
+    /**
+     * One calendar month (yyyy-MM), newest first.
+     */
+    public List<Row> getMonth(Long userId, String month) {
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid month, expected yyyy-MM");
+        }
+        return getRange(userId, yearMonth.atDay(1).atStartOfDay(), yearMonth.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Postings with from <= createdAt < to, newest first. Null bounds are open, so
+     * (null, null) is the whole history.
+     */
+    public List<Row> getRange(Long userId, LocalDateTime from, LocalDateTime to) {
+        YearMonth lastClosed = lastClosedMonth();
+        LocalDateTime openStart = lastClosed.plusMonths(1).atDay(1).atStartOfDay();
+        ensureClosed(userId, lastClosed);
+
+        List<Row> rows = new ArrayList<>();
+        if (to == null || to.isAfter(openStart)) {
+            LocalDateTime openFrom = from != null && from.isAfter(openStart) ? from : openStart;
+            rows.addAll(query(userId, openFrom, to != null ? to : END_OF_TIME));
+        }
+        if (from == null || from.isBefore(openStart)) {
+            for (YearMonth month : closedMonths(userId)) {
+                LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+                LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+                if ((to != null && !monthStart.isBefore(to)) || (from != null && !monthEnd.isAfter(from))) {
+                    continue;
+                }
+                rows.addAll(segment(userId, month).read(from, to));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Months with postings, newest first, for paging a statement month by month.
+     */
+    public List<String> getMonths(Long userId) {
+        YearMonth lastClosed = lastClosedMonth();
+        ensureClosed(userId, lastClosed);
+        List<String> months = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT DISTINCT DATE_FORMAT(created_at, '%Y-%m') AS month FROM main_transactions " +
+                "WHERE user_id = ? AND created_at >= ? ORDER BY month DESC",
+                rs -> {
+                    months.add(rs.getString("month"));
+                },
+                userId, Timestamp.valueOf(lastClosed.plusMonths(1).atDay(1).atStartOfDay()));
+        for (YearMonth month : closedMonths(userId)) {
+            months.add(month.toString());
+        }
+        return months;
+    }
+
+    // Pre-generates last month's segments for everyone who posted in it
+    @Scheduled(cron = "${wallet.statement.close-cron:0 30 1 1 * *}")
+    public void closeLastMonth() {
+        long started = System.nanoTime();
+        YearMonth lastClosed = lastClosedMonth();
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM main_transactions WHERE created_at >= ? AND created_at < ?",
+                Long.class,
+                Timestamp.valueOf(lastClosed.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(lastClosed.plusMonths(1).atDay(1).atStartOfDay()));
+        int failed = 0;
+        for (Long userId : userIds) {
+            try {
+                ensureClosed(userId, lastClosed);
+            } catch (Exception e) {
+                failed++;
+                System.err.println("Statement close failed for user " + userId + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Closed statements for " + lastClosed + ": " + (userIds.size() - failed) + " users in " +
+                (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public String getStatsName() {
+        return "statements";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (mapped) {
+            stats.put("mappedSegments", mapped.size());
+        }
+        stats.put("segmentsWritten", segmentsWritten.get());
+        stats.put("mapHits", mapHits.get());
+        stats.put("mapMisses", mapMisses.get());
+        stats.put("lastClosedMonth", lastClosedMonth().toString());
+        return stats;
+    }
+
+    private YearMonth lastClosedMonth() {
+        return YearMonth.from(LocalDateTime.now().minusMinutes(closeGraceMinutes)).minusMonths(1);
+    }
+
+    // Writes segments for every month after the marker up to lastClosed, streaming one month at a time
+    private void ensureClosed(Long userId, YearMonth lastClosed) {
+        YearMonth closedThrough = readMarker(userId);
+        if (closedThrough != null && !closedThrough.isBefore(lastClosed)) {
+            return;
+        }
+        ReentrantLock lock = stripes[(int) (userId % stripes.length)];
+        lock.lock();
+        try {
+            closedThrough = readMarker(userId);
+            if (closedThrough != null && !closedThrough.isBefore(lastClosed)) {
+                return;
+            }
+            LocalDateTime from = closedThrough != null
+                    ? closedThrough.plusMonths(1).atDay(1).atStartOfDay()
+                    : START_OF_TIME;
+            LocalDateTime to = lastClosed.plusMonths(1).atDay(1).atStartOfDay();
+
+            List<Row> monthRows = new ArrayList<>();
+            YearMonth[] current = {null};
+            jdbcTemplate.query(SELECT_POSTINGS, rs -> {
+                Row row = toRow(rs);
+                YearMonth month = YearMonth.from(row.getCreatedAt());
+                if (current[0] != null && !month.equals(current[0])) {
+                    writeSegment(userId, current[0], monthRows);
+                    monthRows.clear();
+                }
+                current[0] = month;
+                monthRows.add(row);
+            }, userId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+            if (current[0] != null) {
+                writeSegment(userId, current[0], monthRows);
+            }
+            writeMarker(userId, lastClosed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StatementSegment segment(Long userId, YearMonth month) {
+        Path file = segmentPath(userId, month);
+        synchronized (mapped) {
+            StatementSegment segment = mapped.get(file);
+            if (segment != null) {
+                mapHits.incrementAndGet();
+                return segment;
+            }
+        }
+        mapMisses.incrementAndGet();
+        StatementSegment segment;
+        try {
+            segment = StatementSegment.open(file, userId, month);
+        } catch (IOException e) {
+            // A damaged segment is rebuilt from the database; the month is closed, so the rows are final
+            System.err.println("Rebuilding statement segment: " + e.getMessage());
+            segment = rebuild(userId, month);
+        }
+        synchronized (mapped) {
+            mapped.put(file, segment);
+        }
+        return segment;
+    }
+
+    private StatementSegment rebuild(Long userId, YearMonth month) {
+        ReentrantLock lock = stripes[(int) (userId % stripes.length)];
+        lock.lock();
+        try {
+            List<Row> rows = query(userId, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+            writeSegment(userId, month, rows);
+            return StatementSegment.open(segmentPath(userId, month), userId, month);
+        } catch (IOException e) {
+            throw new RuntimeException("Statement for " + month + " is unavailable", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Row> query(Long userId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_POSTINGS, (rs, rowNum) -> toRow(rs),
+                userId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private static Row toRow(ResultSet rs) throws SQLException {
+        return new Row(rs.getLong("id"), rs.getLong("amount"), rs.getString("type"),
+                rs.getString("reference"), rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    // Segment months on disk, newest first
+    private List<YearMonth> closedMonths(Long userId) {
+        Path userDirectory = userDirectory(userId);
+        if (!Files.isDirectory(userDirectory)) {
+            return List.of();
+        }
+        List<YearMonth> months = new ArrayList<>();
+        try (Stream<Path> files = Files.list(userDirectory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> months.add(YearMonth.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list statements for user " + userId, e);
+        }
+        months.sort(Comparator.reverseOrder());
+        return months;
+    }
+
+    private void writeSegment(Long userId, YearMonth month, List<Row> rows) {
+        try {
+            StatementSegment.write(segmentPath(userId, month), userId, month, rows);
+            segmentsWritten.incrementAndGet();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write statement segment for " + month, e);
+        }
+    }
+
+    private YearMonth readMarker(Long userId) {
+        Path marker = userDirectory(userId).resolve(MARKER);
+        try {
+            return Files.exists(marker) ? YearMonth.parse(Files.readString(marker, StandardCharsets.UTF_8).trim()) : null;
+        } catch (IOException | DateTimeParseException e) {
+            // Closing again only rewrites identical segments
+            return null;
+        }
+    }
+
+    private void writeMarker(Long userId, YearMonth month) {
+        Path marker = userDirectory(userId).resolve(MARKER);
+        Path temp = marker.resolveSibling(MARKER + ".tmp");
+        try {
+            Files.createDirectories(marker.getParent());
+            Files.writeString(temp, month.toString(), StandardCharsets.UTF_8);
+            Files.move(temp, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not record closed statements for user " + userId, e);
+        }
+    }
+
+    private Path userDirectory(Long userId) {
+        return directory.resolve(String.format("%02d", userId % 100)).resolve(Long.toString(userId));
+    }
+
+    private Path segmentPath(Long userId, YearMonth month) {
+        return userDirectory(userId).resolve(month + SEGMENT_SUFFIX);
+    }
+}
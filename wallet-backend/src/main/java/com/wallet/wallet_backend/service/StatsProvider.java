@@ -0,0 +1,15 @@
+package com.wallet.wallet_backend.service;
+
+import java.util.Map;
+
+/**
+ * A subsystem's operational counters for admins. Every bean implementing this is listed
+ * under /admin/stats by name, so a feature exposes its stats without touching the dashboard.
+ */
+public interface StatsProvider {
+
+    // Key under /admin/stats, e.g. "mpinHashing"
+    String getStatsName();
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,43 @@
+package com.wallet.wallet_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for SMS/email/push gateways: prints each message. Latency and a
+ * failure rate can be injected to exercise batching, retries and the dead-letter store.
+ */
+@Component
+public class StubNotificationProvider implements NotificationProvider {
+
+    private final long latencyMs;
+    private final double failureRate;
+
+    public StubNotificationProvider(@Value("${wallet.notification.stub.latency-ms:0}") long latencyMs,
+                                    @Value("${wallet.notification.stub.failure-rate:0}") double failureRate) {
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public boolean supports(String channel) {
+        return true;
+    }
+
+    @Override
+    public void send(String channel, List<Notification> batch) throws Exception {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new RuntimeException("Stub " + channel + " gateway unavailable");
+        }
+        for (Notification notification : batch) {
+            System.out.println("📨 [" + channel + "] To: " + notification.getRecipient() +
+                    " | " + notification.getMessage());
+        }
+    }
+}
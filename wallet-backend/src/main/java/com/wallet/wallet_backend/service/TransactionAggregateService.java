@@ -0,0 +1,293 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.UserTransactionAggregate;
+import com.wallet.wallet_backend.repository.UserTransactionAggregateRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incrementally maintained per-user transaction totals (lifetime and per month),
+ * so dashboards and stats read a handful of rows instead of scanning main_transactions.
+ *
+ * Request-path postings are not upserted in the posting transaction: that would hold the
+ * payee's ALL/CREDIT rows locked until commit and serialize every payment to a popular
+ * payee on them. They are queued after commit instead and applied every flush interval,
+ * coalesced per row, in one short transaction. The trade-offs: totals lag the postings by
+ * up to one interval, and a crash loses what was still queued (recompute with
+ * POST /admin/users/aggregates/rebuild). The ledger flusher and bulk jobs already write
+ * off the request path and keep using recordAll inside their own batch transaction.
+ */
+@Service
+public class TransactionAggregateService implements ApplicationRunner, StatsProvider {
+
+    public static final String LIFETIME = "ALL";
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private static final String UPSERT =
+            "INSERT INTO user_txn_aggregates (user_id, period_key, type, total_amount, txn_count) " +
+            "VALUES (?, ?, ?, ?, 1) " +
+            "ON DUPLICATE KEY UPDATE total_amount = total_amount + ?, txn_count = txn_count + 1";
+
+    private static final String UPSERT_DELTA =
+            "INSERT INTO user_txn_aggregates (user_id, period_key, type, total_amount, txn_count) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_amount = total_amount + ?, txn_count = txn_count + ?";
+
+    // Rows are upserted in this order so concurrent writers lock them in the same order
+    private static final Comparator<RowKey> ROW_ORDER = Comparator.comparing((RowKey k) -> k.userId)
+            .thenComparing(k -> k.periodKey)
+            .thenComparing(k -> k.type);
+
+    private final UserTransactionAggregateRepository aggregateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRowsPerFlush;
+
+    private final Queue<Posting> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedPostings = new AtomicLong();
+    private final AtomicLong appliedPostings = new AtomicLong();
+    private final AtomicLong appliedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public TransactionAggregateService(UserTransactionAggregateRepository aggregateRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${wallet.aggregates.max-rows-per-flush:2000}") int maxRowsPerFlush) {
+        this.aggregateRepository = aggregateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRowsPerFlush = maxRowsPerFlush;
+    }
+
+    public void record(Long userId, String type, long amount, LocalDateTime at) {
+        recordAfterCommit(List.of(new Posting(userId, type, amount, at)));
+    }
+
+    /**
+     * Queues postings for the next flush once the caller's transaction commits; a rollback
+     * drops them. Outside a transaction they are queued straight away.
+     */
+    public void recordAfterCommit(List<Posting> postings) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(postings);
+                }
+            });
+        } else {
+            enqueue(postings);
+        }
+    }
+
+    /**
+     * Adds postings to the lifetime and monthly totals now. Joins the caller's transaction,
+     * so the totals commit or roll back with it; meant for batch writers, not request paths.
+     */
+    public void recordAll(List<Posting> postings) {
+        List<Object[]> args = new ArrayList<>(postings.size() * 2);
+        for (Posting p : postings) {
+            args.add(new Object[]{p.userId, LIFETIME, p.type, p.amount, p.amount});
+            args.add(new Object[]{p.userId, monthKey(p.at), p.type, p.amount, p.amount});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, args);
+    }
+
+    private void enqueue(List<Posting> postings) {
+        queued.addAll(postings);
+        queuedPostings.addAndGet(postings.size());
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.aggregates.flush-interval-ms:200}")
+    public synchronized void flush() {
+        List<Posting> drained = new ArrayList<>();
+        Map<RowKey, long[]> deltas = new TreeMap<>(ROW_ORDER);
+        Posting posting;
+        while (deltas.size() < maxRowsPerFlush && (posting = queued.poll()) != null) {
+            drained.add(posting);
+            add(deltas, new RowKey(posting.userId, LIFETIME, posting.type), posting.amount);
+            add(deltas, new RowKey(posting.userId, monthKey(posting.at), posting.type), posting.amount);
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) ->
+                args.add(new Object[]{key.userId, key.periodKey, key.type, delta[0], delta[1], delta[0], delta[1]}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_DELTA, args));
+            queuedPostings.addAndGet(-drained.size());
+            appliedPostings.addAndGet(drained.size());
+            appliedRows.addAndGet(args.size());
+        } catch (Exception e) {
+            // Nothing was applied; put the postings back for the next pass
+            failedFlushes.incrementAndGet();
+            queued.addAll(drained);
+            System.err.println("Aggregate flush failed, " + drained.size() + " postings requeued: " + e.getMessage());
+        }
+    }
+
+    private static void add(Map<RowKey, long[]> deltas, RowKey key, long amount) {
+        long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+        delta[0] += amount;
+        delta[1]++;
+    }
+
+    @Override
+    public String getStatsName() {
+        return "transactionAggregates";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long applied = appliedPostings.get();
+        stats.put("queuedPostings", queuedPostings.get());
+        stats.put("appliedPostings", applied);
+        stats.put("upsertedRows", appliedRows.get());
+        // Below 2 rows per posting means hot rows were coalesced
+        stats.put("rowsPerPosting", applied == 0 ? 0.0 : (double) appliedRows.get() / applied);
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void drain() {
+        while (!queued.isEmpty()) {
+            long before = appliedPostings.get();
+            flush();
+            if (appliedPostings.get() == before) {
+                break;
+            }
+        }
+    }
+
+    public Totals getTotals(Long userId) {
+        String currentMonth = monthKey(LocalDateTime.now());
+        List<UserTransactionAggregate> rows =
+                aggregateRepository.findByUserIdAndPeriodKeyIn(userId, List.of(LIFETIME, currentMonth));
+        Totals totals = new Totals();
+        for (UserTransactionAggregate row : rows) {
+            Map<String, UserTransactionAggregate> target =
+                    LIFETIME.equals(row.getPeriodKey()) ? totals.lifetime : totals.thisMonth;
+            target.put(row.getType(), row);
+        }
+        return totals;
+    }
+
+    /**
+     * Rebuilds every aggregate from main_transactions. Postings that commit while this
+     * runs may be counted twice or missed, so run it in a quiet window.
+     */
+    @Transactional
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+        // The backfill reads every committed posting, including the queued ones
+        int dropped = 0;
+        while (queued.poll() != null) {
+            dropped++;
+        }
+        queuedPostings.addAndGet(-dropped);
+        int deleted = aggregateRepository.deleteAllRows();
+        int lifetimeRows = aggregateRepository.backfillLifetime();
+        int monthlyRows = aggregateRepository.backfillMonthly();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("deletedRows", deleted);
+        result.put("lifetimeRows", lifetimeRows);
+        result.put("monthlyRows", monthlyRows);
+        result.put("droppedQueuedPostings", dropped);
+        result.put("tookMs", System.currentTimeMillis() - started);
+        return result;
+    }
+
+    // Backfill once when the store is introduced on a database that already has history
+    @Override
+    public void run(ApplicationArguments args) {
+        if (aggregateRepository.count() == 0) {
+            Long postings = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM main_transactions", Long.class);
+            if (postings != null && postings > 0) {
+                System.out.println("Backfilling transaction aggregates: " + rebuild());
+            }
+        }
+    }
+
+    private static String monthKey(LocalDateTime at) {
+        return (at != null ? at : LocalDateTime.now()).format(MONTH_KEY);
+    }
+
+    private static final class RowKey {
+        private final Long userId;
+        private final String periodKey;
+        private final String type;
+
+        private RowKey(Long userId, String periodKey, String type) {
+            this.userId = userId;
+            this.periodKey = periodKey;
+            this.type = type;
+        }
+    }
+
+    public static final class Posting {
+        private final Long userId;
+        private final String type;
+        private final long amount;
+        private final LocalDateTime at;
+
+        public Posting(Long userId, String type, long amount, LocalDateTime at) {
+            this.userId = userId;
+            this.type = type;
+            this.amount = amount;
+            this.at = at;
+        }
+    }
+
+    public static final class Totals {
+        private final Map<String, UserTransactionAggregate> lifetime = new HashMap<>();
+        private final Map<String, UserTransactionAggregate> thisMonth = new HashMap<>();
+
+        public long sum(String type) {
+            return amountOf(lifetime.get(type));
+        }
+
+        public long count(String type) {
+            return countOf(lifetime.get(type));
+        }
+
+        public long totalCount() {
+            return lifetime.values().stream().mapToLong(Totals::countOf).sum();
+        }
+
+        public long monthSum(String type) {
+            return amountOf(thisMonth.get(type));
+        }
+
+        public long monthCount() {
+            return thisMonth.values().stream().mapToLong(Totals::countOf).sum();
+        }
+
+        private static long amountOf(UserTransactionAggregate row) {
+            return row != null && row.getTotalAmount() != null ? row.getTotalAmount() : 0L;
+        }
+
+        private static long countOf(UserTransactionAggregate row) {
+            return row != null && row.getTxnCount() != null ? row.getTxnCount() : 0L;
+        }
+    }
+}
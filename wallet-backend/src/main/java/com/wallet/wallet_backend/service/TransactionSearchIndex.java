@@ -0,0 +1,443 @@
+package com.wallet.wallet_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index behind transaction search, replacing LIKE '%k%' scans of main_transactions.
+ *
+ * Terms are the transaction id (and its digits without the TXN prefix), the reference and
+ * its tokens, the counterparty taken from PAYMENT_TO_/PAYMENT_FROM_ references and, for the
+ * admin index only, the words of the user name. Each term maps to an ascending list of row
+ * ids. There is one global partition for the admin screen and one partition per user for
+ * the user endpoint, so a user's search never touches anyone else's postings.
+ *
+ * Every whitespace-separated query word must prefix-match a term (words shorter than min-prefix-length must
+ * match a whole term). The most selective word drives a newest-first merge of its posting
+ * lists and the others are checked by binary search; the walk stops once offset + limit + 1
+ * hits are found, so a page costs the same whatever the total number of matches, and the
+ * result only says whether another page exists.
+ *
+ * The index is fed from main_transactions by id: everything at startup, then rows above
+ * the watermark on every poll, whichever path wrote them (JPA, transfers, bulk jobs, the
+ * ledger flusher). Each poll re-reads the last overlap-rows ids so postings whose insert
+ * committed after a higher id are still picked up. Until the first build finishes,
+ * isReady() is false and callers use the SQL search.
+ */
+@Service
+public class TransactionSearchIndex implements StatsProvider {
+
+    private static final String SELECT_ROWS =
+            "SELECT t.id, t.user_id, t.transaction_id, t.reference, COALESCE(t.user_name, u.name) AS user_name " +
+            "FROM main_transactions t LEFT JOIN users u ON u.id = t.user_id " +
+            "WHERE t.id > ? ORDER BY t.id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int overlapRows;
+    private final int minPrefixLength;
+    private final int maxPrefixTerms;
+
+    private final Partition global = new Partition();
+    private final Map<Long, Partition> byUser = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Ids read in the overlap window, so re-reading them is a no-op (writer thread only)
+    private final Set<Long> recentIds;
+
+    private volatile boolean ready;
+    private volatile long watermark;
+    private volatile long indexedRows;
+
+    public TransactionSearchIndex(JdbcTemplate jdbcTemplate,
+                                  @Value("${wallet.txn-search.batch-size:5000}") int batchSize,
+                                  @Value("${wallet.txn-search.overlap-rows:1000}") int overlapRows,
+                                  @Value("${wallet.txn-search.min-prefix-length:2}") int minPrefixLength,
+                                  @Value("${wallet.txn-search.max-prefix-terms:512}") int maxPrefixTerms) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.overlapRows = overlapRows;
+        this.minPrefixLength = minPrefixLength;
+        this.maxPrefixTerms = maxPrefixTerms;
+        this.recentIds = Collections.newSetFromMap(new LinkedHashMap<>(overlapRows * 2, 0.75f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > overlapRows * 2;
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(this::build, "txn-search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void build() {
+        try {
+            long started = System.nanoTime();
+            while (catchUp() >= batchSize) {
+                // keep reading until a short batch
+            }
+            ready = true;
+            System.out.println("Transaction search index built: " + indexedRows + " rows, " + global.terms.size() +
+                    " terms, " + byUser.size() + " user partitions in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.err.println("Transaction search index build failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${wallet.txn-search.poll-interval-ms:1000}",
+               fixedDelayString = "${wallet.txn-search.poll-interval-ms:1000}")
+    public void poll() {
+        if (!ready) {
+            return;
+        }
+        try {
+            while (catchUp() >= batchSize) {
+                // a burst of postings; drain it before sleeping again
+            }
+        } catch (Exception e) {
+            System.err.println("Transaction search index poll failed: " + e.getMessage());
+        }
+    }
+
+    // Reads one batch above the watermark (plus the overlap window) and returns the number of new rows
+    private int catchUp() {
+        writeLock.lock();
+        try {
+            long previous = watermark;
+            int[] fresh = {0};
+            jdbcTemplate.query(SELECT_ROWS, rs -> {
+                long id = rs.getLong("id");
+                if (id > previous) {
+                    fresh[0]++;
+                    watermark = Math.max(watermark, id);
+                }
+                if (!recentIds.add(id)) {
+                    return;
+                }
+                index(id, rs.getLong("user_id"), rs.getString("transaction_id"),
+                        rs.getString("reference"), rs.getString("user_name"));
+            }, Math.max(0, previous - overlapRows), batchSize + overlapRows);
+            return fresh[0];
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void index(long id, long userId, String transactionId, String reference, String userName) {
+        Set<String> ownTerms = new HashSet<>();
+        String txnId = normalize(transactionId);
+        if (!txnId.isEmpty()) {
+            ownTerms.add(txnId);
+            String digits = txnId.replaceFirst("^[a-z]+", "");
+            if (!digits.isEmpty()) {
+                ownTerms.add(digits);
+            }
+        }
+        String ref = normalize(reference);
+        if (!ref.isEmpty()) {
+            ownTerms.add(ref);
+            ownTerms.addAll(words(ref));
+            String counterparty = counterparty(ref);
+            if (counterparty != null) {
+                ownTerms.add(counterparty);
+            }
+        }
+
+        Partition partition = byUser.computeIfAbsent(userId, k -> new Partition());
+        for (String term : ownTerms) {
+            partition.add(term, id);
+            global.add(term, id);
+        }
+        for (String word : words(normalize(userName))) {
+            global.add(word, id);
+        }
+        indexedRows++;
+    }
+
+    /**
+     * Newest-first page of matching row ids from one user's transactions.
+     */
+    public SearchResult searchUser(Long userId, String query, int offset, int limit) {
+        Partition partition = byUser.get(userId);
+        return partition != null ? search(partition, query, offset, limit) : SearchResult.EMPTY;
+    }
+
+    /**
+     * Newest-first page of matching row ids across all users.
+     */
+    public SearchResult searchAll(String query, int offset, int limit) {
+        return search(global, query, offset, limit);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "transactionSearch";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("rows", indexedRows);
+        stats.put("terms", global.terms.size());
+        stats.put("userPartitions", byUser.size());
+        stats.put("watermark", watermark);
+        return stats;
+    }
+
+    private SearchResult search(Partition partition, String query, int offset, int limit) {
+        long started = System.nanoTime();
+        List<String> words = queryWords(query);
+        if (words.isEmpty() || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+
+        List<List<Postings.View>> clauses = new ArrayList<>();
+        for (String word : words) {
+            List<Postings.View> lists = partition.expand(word, minPrefixLength, maxPrefixTerms);
+            if (lists.isEmpty()) {
+                return new SearchResult(List.of(), false, (System.nanoTime() - started) / 1_000);
+            }
+            clauses.add(lists);
+        }
+        clauses.sort(Comparator.comparingLong(TransactionSearchIndex::totalSize));
+        List<Postings.View> driver = clauses.get(0);
+        List<List<Postings.View>> filters = clauses.subList(1, clauses.size());
+
+        int skip = Math.max(offset, 0);
+        int wanted = skip + limit + 1;
+        List<Long> hits = new ArrayList<>(Math.min(wanted, 1024));
+        PriorityQueue<Postings.Cursor> heap = new PriorityQueue<>(
+                Comparator.comparingLong(Postings.Cursor::current).reversed());
+        for (Postings.View view : driver) {
+            Postings.Cursor cursor = view.descending();
+            if (cursor.valid()) {
+                heap.add(cursor);
+            }
+        }
+        long last = Long.MAX_VALUE;
+        while (!heap.isEmpty() && hits.size() < wanted) {
+            Postings.Cursor cursor = heap.poll();
+            long id = cursor.current();
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+            if (id == last) {
+                continue;
+            }
+            last = id;
+            if (matchesAll(filters, id)) {
+                hits.add(id);
+            }
+        }
+
+        boolean hasMore = hits.size() == wanted;
+        int from = Math.min(skip, hits.size());
+        int to = Math.min(skip + limit, hits.size());
+        return new SearchResult(new ArrayList<>(hits.subList(from, to)), hasMore,
+                (System.nanoTime() - started) / 1_000);
+    }
+
+    private static boolean matchesAll(List<List<Postings.View>> filters, long id) {
+        outer:
+        for (List<Postings.View> clause : filters) {
+            for (Postings.View view : clause) {
+                if (view.contains(id)) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static long totalSize(List<Postings.View> views) {
+        long total = 0;
+        for (Postings.View view : views) {
+            total += view.size;
+        }
+        return total;
+    }
+
+    // Counterparty of a PAYMENT_TO_x / PAYMENT_FROM_x style reference, as shown in history
+    private static String counterparty(String ref) {
+        int to = ref.indexOf("to_");
+        if (to >= 0 && to + 3 < ref.length()) {
+            return ref.substring(to + 3);
+        }
+        int from = ref.indexOf("from_");
+        if (from >= 0 && from + 5 < ref.length()) {
+            return ref.substring(from + 5);
+        }
+        return null;
+    }
+
+    // Query words are split on whitespace only, so "PAYMENT_TO_98" or an email still prefix-match whole terms
+    private static List<String> queryWords(String query) {
+        List<String> words = new ArrayList<>();
+        for (String word : normalize(query).split("\\s+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        for (String word : value.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Partition {
+        private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+
+        private void add(String term, long id) {
+            terms.computeIfAbsent(term, k -> new Postings()).add(id);
+        }
+
+        // Posting lists of every term starting with word, or of the exact term for short words
+        private List<Postings.View> expand(String word, int minPrefixLength, int maxPrefixTerms) {
+            List<Postings.View> views = new ArrayList<>();
+            if (word.length() < minPrefixLength) {
+                Postings exact = terms.get(word);
+                if (exact != null) {
+                    views.add(exact.view());
+                }
+                return views;
+            }
+            ConcurrentNavigableMap<String, Postings> range = terms.subMap(word, true, word + Character.MAX_VALUE, false);
+            for (Postings postings : range.values()) {
+                views.add(postings.view());
+                if (views.size() >= maxPrefixTerms) {
+                    break;
+                }
+            }
+            return views;
+        }
+    }
+
+    /**
+     * Ascending row ids of one term. One writer; readers take a (size, array) snapshot
+     * without locking: the writer fills a slot before publishing the larger size, and an
+     * out-of-order id is inserted into a fresh copy that is published before the size.
+     */
+    private static final class Postings {
+        private volatile long[] ids = new long[2];
+        private volatile int size;
+
+        private void add(long id) {
+            int n = size;
+            long[] current = ids;
+            if (n > 0 && current[n - 1] >= id) {
+                int at = Arrays.binarySearch(current, 0, n, id);
+                if (at >= 0) {
+                    return;
+                }
+                int insert = -at - 1;
+                long[] copy = new long[Math.max(current.length, n + 1)];
+                System.arraycopy(current, 0, copy, 0, insert);
+                copy[insert] = id;
+                System.arraycopy(current, insert, copy, insert + 1, n - insert);
+                ids = copy;
+                size = n + 1;
+                return;
+            }
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n + (n >> 1) + 1);
+            }
+            current[n] = id;
+            ids = current;
+            size = n + 1;
+        }
+
+        private View view() {
+            int n = size;
+            return new View(ids, n);
+        }
+
+        private static final class View {
+            private final long[] ids;
+            private final int size;
+
+            private View(long[] ids, int size) {
+                this.ids = ids;
+                this.size = size;
+            }
+
+            private boolean contains(long id) {
+                return Arrays.binarySearch(ids, 0, size, id) >= 0;
+            }
+
+            private Cursor descending() {
+                return new Cursor(ids, size - 1);
+            }
+        }
+
+        private static final class Cursor {
+            private final long[] ids;
+            private int position;
+
+            private Cursor(long[] ids, int position) {
+                this.ids = ids;
+                this.position = position;
+            }
+
+            private boolean valid() {
+                return position >= 0;
+            }
+
+            private long current() {
+                return ids[position];
+            }
+
+            private boolean advance() {
+                return --position >= 0;
+            }
+        }
+    }
+
+    public static final class SearchResult {
+        private static final SearchResult EMPTY = new SearchResult(List.of(), false, 0);
+
+        private final List<Long> ids;
+        private final boolean hasMore;
+        private final long tookMicros;
+
+        private SearchResult(List<Long> ids, boolean hasMore, long tookMicros) {
+            this.ids = ids;
+            this.hasMore = hasMore;
+            this.tookMicros = tookMicros;
+        }
+
+        public List<Long> getIds() { return ids; }
+        public boolean isHasMore() { return hasMore; }
+        public long getTookMicros() { return tookMicros; }
+    }
+}
@@ -5,15 +5,19 @@ import com.wallet.wallet_backend.dto.TransactionSummaryDto;
 import com.wallet.wallet_backend.entity.Transaction;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.entity.WalletTransaction;
+import com.wallet.wallet_backend.exception.InvalidCursorException;
 import com.wallet.wallet_backend.repository.TransactionRepository;
 import com.wallet.wallet_backend.repository.UserRepository;
 import com.wallet.wallet_backend.repository.WalletTransactionRepository;
+import com.wallet.wallet_backend.util.Money;
+import com.wallet.wallet_backend.util.TransactionIds;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -26,98 +30,214 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final WalletTransactionRepository walletTransactionRepository;
     private final UserRepository userRepository;
+    private final TransactionAggregateService aggregateService;
+    private final TransactionSearchIndex searchIndex;
     
     public TransactionService(
             TransactionRepository transactionRepository,
             WalletTransactionRepository walletTransactionRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            TransactionAggregateService aggregateService,
+            TransactionSearchIndex searchIndex) {
         this.transactionRepository = transactionRepository;
         this.walletTransactionRepository = walletTransactionRepository;
         this.userRepository = userRepository;
+        this.aggregateService = aggregateService;
+        this.searchIndex = searchIndex;
     }
     
     // ==================== HISTORY METHODS - FULL VERSION ====================
     
-    public Map<String, Object> getUserTransactions(Long userId, int page, int size, 
-                                               String type, String fromDate, String toDate) {
-    
-    // SIMPLE APPROACH - Direct list le lo
-    List<Transaction> mainTxns = transactionRepository.findByUserId(userId);
-    List<WalletTransaction> walletTxns = walletTransactionRepository.findByUserIdOrderByCreatedAtDesc(userId);
-    
-    // Combine all transactions
-    List<TransactionSummaryDto> allTransactions = new ArrayList<>();
-    
-    // Add main transactions
-    for (Transaction tx : mainTxns) {
-        allTransactions.add(mapToSummaryDto(tx));
-    }
-    
-    // Add wallet transactions
-    for (WalletTransaction tx : walletTxns) {
-        allTransactions.add(mapToSummaryDto(tx, userId));
+    /**
+     * Keyset-paginated history. Both sources are sliced in the database (filters, order and
+     * limit pushed down) and only the first size+1 rows of each are merged in memory.
+     * Pass the returned nextCursor to fetch the following page and stop when hasMore is false;
+     * page is only used without a cursor. There is no total count, which would need a full scan.
+     */
+    public Map<String, Object> getUserTransactions(Long userId, int page, int size,
+                                                   String type, String fromDate, String toDate,
+                                                   String cursor) {
+        String typeFilter = normalizeTypeFilter(type);
+        LocalDateTime from = fromDate != null && !fromDate.isEmpty()
+                ? LocalDate.parse(fromDate, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay() : null;
+        LocalDateTime to = toDate != null && !toDate.isEmpty()
+                ? LocalDate.parse(toDate, DateTimeFormatter.ISO_LOCAL_DATE).atTime(23, 59, 59) : null;
+        
+        HistoryCursor after = HistoryCursor.decode(cursor);
+        int skip = after == null ? page * size : 0;
+        
+        HistorySlice slice = loadHistorySlice(userId, typeFilter, from, to, after, skip, size);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", slice.transactions);
+        response.put("currentPage", page);
+        response.put("size", size);
+        response.put("hasMore", slice.hasMore);
+        response.put("nextCursor", slice.nextCursor);
+        
+        return response;
     }
-    
-    // Sort by date (newest first)
-    allTransactions.sort((a, b) -> b.getDate().compareTo(a.getDate()));
-    
-    // Paginate
-    int start = page * size;
-    int end = Math.min(start + size, allTransactions.size());
-    List<TransactionSummaryDto> paginatedList = start < allTransactions.size() 
-            ? allTransactions.subList(start, end) 
-            : new ArrayList<>();
-    
-    Map<String, Object> response = new HashMap<>();
-    response.put("transactions", paginatedList);
-    response.put("currentPage", page);
-    response.put("totalPages", (int) Math.ceil((double) allTransactions.size() / size));
-    response.put("totalTransactions", allTransactions.size());
-    
-    return response;
-}
     // ==================== HISTORY METHODS - SIMPLE VERSION ====================
     
     public Map<String, Object> getUserTransactionsSimple(Long userId, int page, int size) {
-        // Simple approach - direct lists
-        List<Transaction> mainTxns = transactionRepository.findByUserId(userId);
-        List<WalletTransaction> walletTxns = walletTransactionRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        
-        // Combine
-        List<TransactionSummaryDto> allTxns = new ArrayList<>();
-        mainTxns.forEach(tx -> allTxns.add(mapToSummaryDto(tx)));
-        walletTxns.forEach(tx -> allTxns.add(mapToSummaryDto(tx, userId)));
-        
-        // Sort
-        allTxns.sort((a, b) -> b.getDate().compareTo(a.getDate()));
+        HistorySlice slice = loadHistorySlice(userId, null, null, null, null, page * size, size);
         
-        // Paginate
-        int start = page * size;
-        int end = Math.min(start + size, allTxns.size());
-        List<TransactionSummaryDto> pageTxns = start < allTxns.size() ? 
-                allTxns.subList(start, end) : new ArrayList<>();
+        TransactionAggregateService.Totals totals = aggregateService.getTotals(userId);
+        long totalCount = totals.totalCount();
         
         // Stats
         Map<String, Object> stats = new HashMap<>();
-        stats.put("total", allTxns.size());
-        stats.put("totalReceived", calculateTotal(mainTxns, "CREDIT"));
-        stats.put("totalSent", calculateTotal(mainTxns, "DEBIT"));
+        stats.put("total", totalCount);
+        stats.put("totalReceived", Money.rupees(totals.sum("CREDIT")));
+        stats.put("totalSent", Money.rupees(totals.sum("DEBIT")));
         
         Map<String, Object> response = new HashMap<>();
-        response.put("transactions", pageTxns);
+        response.put("transactions", slice.transactions);
         response.put("stats", stats);
         response.put("page", page);
-        response.put("totalPages", (int) Math.ceil((double) allTxns.size() / size));
-        response.put("totalTransactions", allTxns.size());
+        response.put("hasMore", slice.hasMore);
+        response.put("nextCursor", slice.nextCursor);
+        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("totalTransactions", totalCount);
         
         return response;
     }
     
-    private Double calculateTotal(List<Transaction> txns, String type) {
-        return txns.stream()
-                .filter(t -> type.equals(t.getType()))
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+    private HistorySlice loadHistorySlice(Long userId, String type, LocalDateTime from, LocalDateTime to,
+                                          HistoryCursor after, int skip, int size) {
+        // One extra row per source tells us whether another page exists
+        Pageable limit = PageRequest.of(0, skip + size + 1);
+        LocalDateTime cursorAt = after != null ? after.createdAt : null;
+        Long cursorId = after != null ? after.id : null;
+        
+        List<HistoryRow> mainRows = transactionRepository
+                .findHistorySlice(userId, type, from, to, cursorAt, cursorId, limit)
+                .stream()
+                .map(tx -> new HistoryRow(tx.getCreatedAt(), tx.getId(), mapToSummaryDto(tx)))
+                .collect(Collectors.toList());
+        List<HistoryRow> walletRows = walletTransactionRepository
+                .findHistorySlice(userId, type, from, to, cursorAt, cursorId, limit)
+                .stream()
+                .map(tx -> new HistoryRow(tx.getCreatedAt(), tx.getId(), mapToSummaryDto(tx, userId)))
+                .collect(Collectors.toList());
+        
+        List<HistoryRow> merged = mergeNewestFirst(List.of(mainRows, walletRows), skip + size + 1);
+        
+        List<TransactionSummaryDto> transactions = new ArrayList<>();
+        HistoryRow last = null;
+        for (int i = skip; i < merged.size() && i < skip + size; i++) {
+            last = merged.get(i);
+            transactions.add(last.dto);
+        }
+        
+        boolean hasMore = merged.size() > skip + size;
+        String nextCursor = hasMore && last != null
+                ? new HistoryCursor(last.createdAt, last.id).encode()
+                : null;
+        return new HistorySlice(transactions, hasMore, nextCursor);
+    }
+    
+    // K-way merge of sources that are each already sorted by (createdAt, id) descending
+    private List<HistoryRow> mergeNewestFirst(List<List<HistoryRow>> sources, int limit) {
+        List<HistoryRow> merged = new ArrayList<>(limit);
+        PriorityQueue<HeadEntry> queue = new PriorityQueue<>(sources.size() + 1);
+        for (List<HistoryRow> source : sources) {
+            Iterator<HistoryRow> it = source.iterator();
+            if (it.hasNext()) {
+                queue.add(new HeadEntry(it.next(), it));
+            }
+        }
+        
+        while (!queue.isEmpty() && merged.size() < limit) {
+            HeadEntry head = queue.poll();
+            merged.add(head.row);
+            if (head.rest.hasNext()) {
+                queue.add(new HeadEntry(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+    
+    private String normalizeTypeFilter(String type) {
+        if (type == null || type.isEmpty() || "all".equalsIgnoreCase(type)) {
+            return null;
+        }
+        String upper = type.toUpperCase();
+        if ("CREDIT".equals(upper) || "DEPOSIT".equals(upper)) {
+            return "CREDIT";
+        }
+        return "DEBIT";
+    }
+    
+    private static final class HistoryRow {
+        private final LocalDateTime createdAt;
+        private final Long id;
+        private final TransactionSummaryDto dto;
+        
+        private HistoryRow(LocalDateTime createdAt, Long id, TransactionSummaryDto dto) {
+            this.createdAt = createdAt;
+            this.id = id;
+            this.dto = dto;
+        }
+    }
+    
+    private static final class HeadEntry implements Comparable<HeadEntry> {
+        private final HistoryRow row;
+        private final Iterator<HistoryRow> rest;
+        
+        private HeadEntry(HistoryRow row, Iterator<HistoryRow> rest) {
+            this.row = row;
+            this.rest = rest;
+        }
+        
+        @Override
+        public int compareTo(HeadEntry other) {
+            int byDate = other.row.createdAt.compareTo(row.createdAt);
+            return byDate != 0 ? byDate : other.row.id.compareTo(row.id);
+        }
+    }
+    
+    private static final class HistorySlice {
+        private final List<TransactionSummaryDto> transactions;
+        private final boolean hasMore;
+        private final String nextCursor;
+        
+        private HistorySlice(List<TransactionSummaryDto> transactions, boolean hasMore, String nextCursor) {
+            this.transactions = transactions;
+            this.hasMore = hasMore;
+            this.nextCursor = nextCursor;
+        }
+    }
+    
+    // Opaque (createdAt, id) position; clients only ever echo it back
+    private static final class HistoryCursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+        
+        private HistoryCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+        
+        private String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static HistoryCursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new HistoryCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                        Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+        }
     }
     
     // ==================== STATS METHODS ====================
@@ -125,22 +245,14 @@ public class TransactionService {
     public Map<String, Object> getTransactionStats(Long userId) {
         Map<String, Object> stats = new HashMap<>();
         
-        Double totalReceived = transactionRepository.sumAmountByUserIdAndType(userId, "CREDIT");
-        Double totalSent = transactionRepository.sumAmountByUserIdAndType(userId, "DEBIT");
-        Long totalCount = transactionRepository.countByUserId(userId);
-        
-        // Get this month's transactions
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        Double thisMonthReceived = transactionRepository.sumAmountByUserIdAndTypeAndDateAfter(userId, "CREDIT", startOfMonth);
-        Double thisMonthSent = transactionRepository.sumAmountByUserIdAndTypeAndDateAfter(userId, "DEBIT", startOfMonth);
-        Long thisMonthCount = transactionRepository.countByUserIdAndDateAfter(userId, startOfMonth);
+        TransactionAggregateService.Totals totals = aggregateService.getTotals(userId);
         
-        stats.put("totalReceived", totalReceived != null ? totalReceived : 0.0);
-        stats.put("totalSent", totalSent != null ? totalSent : 0.0);
-        stats.put("totalTransactions", totalCount != null ? totalCount : 0);
-        stats.put("thisMonthReceived", thisMonthReceived != null ? thisMonthReceived : 0.0);
-        stats.put("thisMonthSent", thisMonthSent != null ? thisMonthSent : 0.0);
-        stats.put("thisMonthTransactions", thisMonthCount != null ? thisMonthCount : 0);
+        stats.put("totalReceived", Money.rupees(totals.sum("CREDIT")));
+        stats.put("totalSent", Money.rupees(totals.sum("DEBIT")));
+        stats.put("totalTransactions", totals.totalCount());
+        stats.put("thisMonthReceived", Money.rupees(totals.monthSum("CREDIT")));
+        stats.put("thisMonthSent", Money.rupees(totals.monthSum("DEBIT")));
+        stats.put("thisMonthTransactions", totals.monthCount());
         
         return stats;
     }
@@ -149,24 +261,34 @@ public class TransactionService {
     
     public TransactionDetailDto getTransactionDetails(String transactionId, Long userId) {
         
-        // Try to find in main Transaction table
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElse(null);
+        // The id's prefix names the source, so each lookup is a single indexed probe
+        if (TransactionIds.WALLET.equals(TransactionIds.typeOf(transactionId))) {
+            WalletTransaction walletTransaction = walletTransactionRepository.findByTransactionId(transactionId)
+                    .orElseThrow(() -> new RuntimeException("Transaction not found"));
+            return mapToDetailDto(walletTransaction, userId);
+        }
         
-        if (transaction != null) {
-            return mapToDetailDto(transaction, userId);
+        // Payments return the transfer id; resolve it to the caller's own leg
+        if (TransactionIds.TRANSFER.equals(TransactionIds.typeOf(transactionId))) {
+            WalletTransaction leg = walletTransactionRepository.findByTransferIdAndUserId(transactionId, userId)
+                    .orElseThrow(() -> new RuntimeException("Transaction not found"));
+            return mapToDetailDto(leg, userId);
         }
         
-        // If not found, try WalletTransaction table
-        WalletTransaction walletTransaction = walletTransactionRepository.findByTransactionId(transactionId)
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
-        
-        return mapToDetailDto(walletTransaction, userId);
+        return mapToDetailDto(transaction, userId);
     }
     
     // ==================== SEARCH METHODS ====================
     
     public List<TransactionSummaryDto> searchTransactions(Long userId, String keyword, int page, int size) {
+        if (searchIndex.isReady()) {
+            TransactionSearchIndex.SearchResult result = searchIndex.searchUser(userId, keyword, page * size, size);
+            return transactionRepository.findAllByIdInOrder(result.getIds()).stream()
+                    .map(this::mapToSummaryDto)
+                    .collect(Collectors.toList());
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         Page<Transaction> transactionPage = transactionRepository.searchUserTransactions(userId, keyword, pageable);
         
@@ -175,34 +297,6 @@ public class TransactionService {
                 .collect(Collectors.toList());
     }
     
-    // ==================== HELPER METHODS ====================
-    
-    private List<TransactionSummaryDto> filterByDate(List<TransactionSummaryDto> transactions, 
-                                                     String fromDate, String toDate) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        
-        LocalDateTime from = null;
-        LocalDateTime to = null;
-        
-        if (fromDate != null) {
-            from = LocalDate.parse(fromDate, formatter).atStartOfDay();
-        }
-        if (toDate != null) {
-            to = LocalDate.parse(toDate, formatter).atTime(23, 59, 59);
-        }
-        
-        LocalDateTime finalFrom = from;
-        LocalDateTime finalTo = to;
-        
-        return transactions.stream()
-                .filter(t -> {
-                    boolean afterFrom = finalFrom == null || !t.getDate().isBefore(finalFrom);
-                    boolean beforeTo = finalTo == null || !t.getDate().isAfter(finalTo);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.toList());
-    }
-    
     // ==================== MAPPING METHODS ====================
     
     private TransactionSummaryDto mapToSummaryDto(Transaction tx) {
@@ -241,7 +335,7 @@ public class TransactionService {
         }
         
         return TransactionSummaryDto.builder()
-                .id("WLT" + tx.getId())
+                .id(walletTransactionId(tx))
                 .type(type)
                 .amount(tx.getAmount())
                 .counterparty(counterparty)
@@ -327,7 +421,7 @@ public class TransactionService {
         }
         
         return TransactionDetailDto.builder()
-                .transactionId("WLT" + tx.getId())
+                .transactionId(walletTransactionId(tx))
                 .type(tx.getType())
                 .amount(tx.getAmount())
                 .status(tx.getStatus())
@@ -344,6 +438,10 @@ public class TransactionService {
                 .build();
     }
     
+    private static String walletTransactionId(WalletTransaction tx) {
+        return tx.getTransactionId() != null ? tx.getTransactionId() : TransactionIds.WALLET + tx.getId();
+    }
+    
     private TransactionDetailDto.CounterpartyDto mapToCounterpartyDto(User user) {
         if (user == null) return null;
         
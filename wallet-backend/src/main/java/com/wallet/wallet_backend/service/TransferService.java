@@ -0,0 +1,192 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.User;
+import com.wallet.wallet_backend.repository.UserRepository;
+import com.wallet.wallet_backend.util.TransactionIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wallet-to-wallet transfers as a single database transaction.
+ *
+ * Both wallets are locked with one SELECT ... FOR UPDATE in primary-key order, so two
+ * opposite transfers between the same pair queue up instead of deadlocking. Both legs
+ * are written with one batched insert and share a transfer id. Lock timeouts and
+ * deadlock victims are retried with jittered exponential backoff; business failures
+ * (insufficient balance, frozen wallet) are not.
+ */
+@Service
+public class TransferService {
+
+    private static final String INSERT_LEG =
+            "INSERT INTO main_transactions (user_id, amount, balance_after, type, reference, status, created_at, " +
+            "transfer_id, transaction_id) VALUES (?, ?, ?, ?, ?, 'COMPLETED', ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceLedger balanceLedger;
+    private final TransactionAggregateService aggregateService;
+    private final OutboxService outboxService;
+    private final SpendLimitService spendLimitService;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public TransferService(UserRepository userRepository,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           BalanceLedger balanceLedger,
+                           TransactionAggregateService aggregateService,
+                           OutboxService outboxService,
+                           SpendLimitService spendLimitService,
+                           @Value("${wallet.transfer.max-attempts:3}") int maxAttempts,
+                           @Value("${wallet.transfer.backoff-ms:25}") long backoffMs) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceLedger = balanceLedger;
+        this.aggregateService = aggregateService;
+        this.outboxService = outboxService;
+        this.spendLimitService = spendLimitService;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    /**
+     * Debits the payer and credits the payee by an amount in paise. Legs are referenced
+     * PAYMENT_TO_{payee mobile} and PAYMENT_FROM_{payer mobile}, as wallet payments always have been.
+     */
+    public TransferResult transfer(Long payerId, Long payeeId, long amount) {
+        if (amount <= 0) {
+            throw new RuntimeException("Amount must be greater than zero");
+        }
+        if (payerId.equals(payeeId)) {
+            throw new RuntimeException("Cannot transfer to the same wallet");
+        }
+        String transferId = newTransferId();
+
+        // Counted before any lock is taken; a caller's rollback releases it too
+        SpendLimitService.Reservation reservation = spendLimitService.reserve(payerId, amount);
+        try {
+            return transferWithinLimit(payerId, payeeId, amount, transferId);
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+    }
+
+    private TransferResult transferWithinLimit(Long payerId, Long payeeId, long amount, String transferId) {
+        if (balanceLedger.isEnabled()) {
+            List<User> users = userRepository.findAllById(List.of(payerId, payeeId));
+            User payer = pick(users, payerId, "Payer not found");
+            User payee = pick(users, payeeId, "Payee not found");
+            balanceLedger.transfer(payerId, payeeId, amount, "PAYMENT_TO_" + payee.getMobile(),
+                    "PAYMENT_FROM_" + payer.getMobile(), transferId);
+            return new TransferResult(transferId, payer, payee);
+        }
+
+        // Inside a caller's transaction a failed attempt poisons the whole unit: the lock failure
+        // is rethrown as-is for the caller's boundary (IdempotencyService) to retry
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status ->
+                        transferOnce(payerId, payeeId, amount, transferId));
+            } catch (PessimisticLockingFailureException e) {
+                if (joined) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("Transfer could not be completed, please retry", e);
+                }
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private TransferResult transferOnce(Long payerId, Long payeeId, long amount, String transferId) {
+        List<User> locked = userRepository.findAllByIdInForUpdate(List.of(payerId, payeeId));
+        User payer = pick(locked, payerId, "Payer not found");
+        User payee = pick(locked, payeeId, "Payee not found");
+
+        if (payer.getWalletFrozen()) {
+            throw new RuntimeException("Wallet is frozen");
+        }
+        if (payee.getWalletFrozen()) {
+            throw new RuntimeException("Payee wallet is frozen");
+        }
+        if (payer.getWalletBalance() < amount) {
+            throw new RuntimeException("Insufficient balance");
+        }
+
+        long payerAfter = payer.getWalletBalance() - amount;
+        long payeeAfter = payee.getWalletBalance() + amount;
+        payer.setWalletBalance(payerAfter);
+        payee.setWalletBalance(payeeAfter);
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        String debitReference = "PAYMENT_TO_" + payee.getMobile();
+        String creditReference = "PAYMENT_FROM_" + payer.getMobile();
+        jdbcTemplate.batchUpdate(INSERT_LEG, List.of(
+                new Object[]{payerId, amount, payerAfter, "DEBIT", debitReference, createdAt, transferId,
+                        TransactionIds.next(TransactionIds.WALLET)},
+                new Object[]{payeeId, amount, payeeAfter, "CREDIT", creditReference, createdAt, transferId,
+                        TransactionIds.next(TransactionIds.WALLET)}));
+        aggregateService.recordAfterCommit(List.of(
+                new TransactionAggregateService.Posting(payerId, "DEBIT", amount, now),
+                new TransactionAggregateService.Posting(payeeId, "CREDIT", amount, now)));
+        outboxService.recordPostings(List.of(
+                new OutboxService.Posting(payerId, false, amount, payerAfter, debitReference, transferId, now),
+                new OutboxService.Posting(payeeId, true, amount, payeeAfter, creditReference, transferId, now)));
+
+        // The balance changes on the locked entities are flushed at commit
+        return new TransferResult(transferId, payer, payee);
+    }
+
+    private static User pick(List<User> users, Long id, String notFound) {
+        return users.stream()
+                .filter(u -> u.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException(notFound));
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        long delay = backoffMs * (1L << (attempt - 1));
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Transfer interrupted", e);
+        }
+    }
+
+    private static String newTransferId() {
+        return TransactionIds.next(TransactionIds.TRANSFER);
+    }
+
+    public static final class TransferResult {
+        private final String transferId;
+        private final User payer;
+        private final User payee;
+
+        private TransferResult(String transferId, User payer, User payee) {
+            this.transferId = transferId;
+            this.payer = payer;
+            this.payee = payee;
+        }
+
+        public String getTransferId() { return transferId; }
+        public User getPayer() { return payer; }
+        public User getPayee() { return payee; }
+    }
+}
@@ -0,0 +1,327 @@
+package com.wallet.wallet_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index behind the admin user search box (name, email, mobile).
+ *
+ * Queries of three or more characters are answered from trigram postings: the posting
+ * sets of the query's trigrams are intersected, smallest first, and each candidate is
+ * checked against the real field text, which keeps LIKE '%q%' semantics. Shorter queries
+ * use word-prefix keys. Matches are ranked (exact mobile/email, field prefix, word
+ * prefix, substring; newest first within a rank) and only the requested page of ids is
+ * returned, to be hydrated with one findAllById.
+ *
+ * The index is built from the users table at startup, kept current by
+ * UserSearchIndexListener after each committed insert or update on this node, and
+ * re-synced from rows created or touched since the last scan for changes made elsewhere.
+ * Until the first build finishes, isReady() is false and callers use the SQL search.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final String PREFIX_KEY = "^";
+    private static final int MAX_PREFIX = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long resyncOverlapSeconds;
+
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean ready;
+    private volatile LocalDateTime lastSync;
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${wallet.user-search.resync-overlap-seconds:60}") long resyncOverlapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.resyncOverlapSeconds = resyncOverlapSeconds;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "user-search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void rebuild() {
+        try {
+            long started = System.nanoTime();
+            LocalDateTime syncPoint = LocalDateTime.now();
+            int[] count = {0};
+            jdbcTemplate.query("SELECT id, name, email, mobile FROM users", rs -> {
+                index(rs.getLong("id"), rs.getString("name"), rs.getString("email"), rs.getString("mobile"));
+                count[0]++;
+            });
+            lastSync = syncPoint;
+            ready = true;
+            System.out.println("User search index built: " + count[0] + " users, " + postings.size() +
+                    " keys in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.err.println("User search index build failed: " + e.getMessage());
+        }
+    }
+
+    // Picks up users created or updated through other nodes
+    @Scheduled(initialDelayString = "${wallet.user-search.resync-interval-ms:30000}",
+               fixedDelayString = "${wallet.user-search.resync-interval-ms:30000}")
+    public void resync() {
+        if (!ready) {
+            return;
+        }
+        try {
+            LocalDateTime syncPoint = LocalDateTime.now();
+            Timestamp since = Timestamp.valueOf(lastSync.minusSeconds(resyncOverlapSeconds));
+            jdbcTemplate.query(
+                    "SELECT id, name, email, mobile FROM users WHERE created_at > ? OR last_active > ?",
+                    rs -> {
+                        index(rs.getLong("id"), rs.getString("name"), rs.getString("email"), rs.getString("mobile"));
+                    },
+                    since, since);
+            lastSync = syncPoint;
+        } catch (Exception e) {
+            System.err.println("User search index resync failed: " + e.getMessage());
+        }
+    }
+
+    public void index(Long userId, String name, String email, String mobile) {
+        Doc doc = new Doc(userId, normalize(name), normalize(email), normalize(mobile));
+        writeLock.lock();
+        try {
+            Doc previous = docs.put(userId, doc);
+            Set<String> oldKeys = previous != null ? keys(previous) : Set.of();
+            Set<String> newKeys = keys(doc);
+            for (String key : oldKeys) {
+                if (!newKeys.contains(key)) {
+                    Set<Long> ids = postings.get(key);
+                    if (ids != null) {
+                        ids.remove(userId);
+                        if (ids.isEmpty()) {
+                            postings.remove(key);
+                        }
+                    }
+                }
+            }
+            for (String key : newKeys) {
+                if (!oldKeys.contains(key)) {
+                    postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(userId);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        writeLock.lock();
+        try {
+            Doc previous = docs.remove(userId);
+            if (previous == null) {
+                return;
+            }
+            for (String key : keys(previous)) {
+                Set<Long> ids = postings.get(key);
+                if (ids != null) {
+                    ids.remove(userId);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Ranked page of matching user ids. limit <= 0 returns every match.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        long started = System.nanoTime();
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new SearchResult(List.of(), 0, 0);
+        }
+
+        Collection<Long> candidates = q.length() >= 3 ? trigramCandidates(q) : postingsFor(PREFIX_KEY + q);
+        List<Hit> hits = new ArrayList<>();
+        for (Long id : candidates) {
+            Doc doc = docs.get(id);
+            if (doc == null) {
+                continue;
+            }
+            int rank = doc.rank(q);
+            if (rank >= 0) {
+                hits.add(new Hit(id, rank));
+            }
+        }
+        hits.sort(Comparator.comparingInt((Hit h) -> h.rank).thenComparing(h -> h.userId, Comparator.reverseOrder()));
+
+        int from = Math.min(Math.max(offset, 0), hits.size());
+        int to = limit > 0 ? Math.min(from + limit, hits.size()) : hits.size();
+        List<Long> ids = new ArrayList<>(to - from);
+        for (Hit hit : hits.subList(from, to)) {
+            ids.add(hit.userId);
+        }
+        return new SearchResult(ids, hits.size(), (System.nanoTime() - started) / 1_000);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("users", docs.size());
+        stats.put("keys", postings.size());
+        stats.put("lastSync", lastSync);
+        return stats;
+    }
+
+    private Collection<Long> trigramCandidates(String q) {
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : trigrams(q)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<Long> result = new ArrayList<>();
+        outer:
+        for (Long id : sets.get(0)) {
+            for (int i = 1; i < sets.size(); i++) {
+                if (!sets.get(i).contains(id)) {
+                    continue outer;
+                }
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    private Collection<Long> postingsFor(String key) {
+        Set<Long> ids = postings.get(key);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    private static Set<String> keys(Doc doc) {
+        Set<String> keys = new HashSet<>();
+        for (String field : doc.fields()) {
+            keys.addAll(trigrams(field));
+            for (String word : words(field)) {
+                for (int length = 1; length <= Math.min(MAX_PREFIX, word.length()); length++) {
+                    keys.add(PREFIX_KEY + word.substring(0, length));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            grams.add(value.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Words of a field, plus the whole field so "ab" also matches the start of "ab@x.com"
+    private static List<String> words(String field) {
+        List<String> words = new ArrayList<>();
+        if (!field.isEmpty()) {
+            words.add(field);
+        }
+        for (String word : field.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc {
+        private final Long userId;
+        private final String name;
+        private final String email;
+        private final String mobile;
+
+        private Doc(Long userId, String name, String email, String mobile) {
+            this.userId = userId;
+            this.name = name;
+            this.email = email;
+            this.mobile = mobile;
+        }
+
+        private List<String> fields() {
+            return List.of(name, email, mobile);
+        }
+
+        // 0 exact mobile/email, 1 field prefix, 2 word prefix, 3 substring, -1 no match
+        private int rank(String q) {
+            if (q.equals(mobile) || q.equals(email)) {
+                return 0;
+            }
+            int best = -1;
+            for (String field : fields()) {
+                if (field.startsWith(q)) {
+                    return 1;
+                }
+                for (String word : words(field)) {
+                    if (word.startsWith(q)) {
+                        best = 2;
+                    }
+                }
+                if (best < 0 && q.length() >= 3 && field.contains(q)) {
+                    best = 3;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class Hit {
+        private final Long userId;
+        private final int rank;
+
+        private Hit(Long userId, int rank) {
+            this.userId = userId;
+            this.rank = rank;
+        }
+    }
+
+    public static final class SearchResult {
+        private final List<Long> userIds;
+        private final long total;
+        private final long tookMicros;
+
+        private SearchResult(List<Long> userIds, long total, long tookMicros) {
+            this.userIds = userIds;
+            this.total = total;
+            this.tookMicros = tookMicros;
+        }
+
+        public List<Long> getUserIds() { return userIds; }
+        public long getTotal() { return total; }
+        public long getTookMicros() { return tookMicros; }
+    }
+}
@@ -0,0 +1,53 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on User (instantiated by Spring through Hibernate's bean container) that
+ * feeds UserSearchIndex once the surrounding transaction commits, so rolled-back changes
+ * never reach the index.
+ */
+@Component
+public class UserSearchIndexListener {
+
+    private final UserSearchIndex userSearchIndex;
+
+    public UserSearchIndexListener(UserSearchIndex userSearchIndex) {
+        this.userSearchIndex = userSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(User user) {
+        Long id = user.getId();
+        String name = user.getName();
+        String email = user.getEmail();
+        String mobile = user.getMobile();
+        afterCommit(() -> userSearchIndex.index(id, name, email, mobile));
+    }
+
+    @PostRemove
+    public void onRemoved(User user) {
+        Long id = user.getId();
+        afterCommit(() -> userSearchIndex.remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,10 +1,11 @@
 package com.wallet.wallet_backend.service;
 
 import com.wallet.wallet_backend.dto.*;
+import com.wallet.wallet_backend.entity.AuthSession;
 import com.wallet.wallet_backend.entity.User;
 import com.wallet.wallet_backend.repository.UserRepository;
 import com.wallet.wallet_backend.security.JwtUtil;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,16 +15,21 @@ import java.util.Optional;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final MpinHashService mpinHashService;
     private final OtpService otpService;
+    private final AuthSessionService authSessionService;
+    private final long tempSessionMinutes;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, OtpService otpService) {
+    public UserService(UserRepository userRepository, MpinHashService mpinHashService, OtpService otpService,
+                       AuthSessionService authSessionService,
+                       @Value("${wallet.auth.temp-session-minutes:15}") long tempSessionMinutes) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.mpinHashService = mpinHashService;
         this.otpService = otpService;
+        this.authSessionService = authSessionService;
+        this.tempSessionMinutes = tempSessionMinutes;
     }
 
-    @Transactional
     public LoginResponseDto sendOtp(String mobile) {
         Optional<User> existingUser = userRepository.findByMobile(mobile);
         String otp = otpService.generateOtp();
@@ -31,16 +37,10 @@ public class UserService {
         if (existingUser.isPresent()) {
             User user = existingUser.get();
             String tempToken = otpService.generateTempToken(user.getId(), user.getMobile());
-
-            user.setOtp(otp);
-            user.setOtpExpiry(otpService.getOtpExpiryTime());
-            user.setTempToken(tempToken);
-            user.setStep("VERIFY_OTP");
-
-            userRepository.save(user);
+            authSessionService.create(tempToken, AuthSessionService.TEMP, "VERIFY_OTP", mobile, user.getId(),
+                    otp, otpService.getOtpExpiryTime());
 
             System.out.println("✅ OTP for existing user " + mobile + ": " + otp);
-            System.out.println("✅ Temp Token saved to DB: " + tempToken);
 
             return new LoginResponseDto(
                     tempToken,
@@ -50,9 +50,10 @@ public class UserService {
                     "OTP sent for login");
         } else {
             String tempToken = otpService.generateTempToken(System.currentTimeMillis(), mobile);
+            authSessionService.create(tempToken, AuthSessionService.TEMP, "VERIFY_OTP", mobile, null,
+                    otp, otpService.getOtpExpiryTime());
 
             System.out.println("✅ OTP for new user " + mobile + ": " + otp);
-            System.out.println("✅ Temp Token (not in DB yet): " + tempToken);
 
             return new LoginResponseDto(
                     tempToken,
@@ -65,43 +66,28 @@ public class UserService {
 
     @Transactional
     public LoginResponseDto verifyOtp(String mobile, String otp, String tempToken) {
+        AuthSession session = authSessionService.find(tempToken);
+        if (session == null || !AuthSessionService.TEMP.equals(session.getKind())
+                || !mobile.equals(session.getMobile())) {
+            throw new RuntimeException("Invalid or expired temporary token");
+        }
+        if (!"VERIFY_OTP".equals(session.getStep())) {
+            throw new RuntimeException("User not in VERIFY_OTP step. Current step: " + session.getStep());
+        }
+        if (!authSessionService.otpMatches(session, otp)) {
+            throw new RuntimeException("Invalid OTP");
+        }
+        if (!authSessionService.consume(session)) {
+            throw new RuntimeException("OTP already used");
+        }
+
         Optional<User> existingUser = userRepository.findByMobile(mobile);
 
         if (existingUser.isPresent()) {
             User user = existingUser.get();
-
-            System.out.println("🔍 VERIFY OTP - DB Temp Token: " + user.getTempToken());
-            System.out.println("🔍 VERIFY OTP - Received Temp Token: " + tempToken);
-            System.out.println("🔍 VERIFY OTP - DB OTP: " + user.getOtp());
-            System.out.println("🔍 VERIFY OTP - Received OTP: " + otp);
-            System.out.println("🔍 VERIFY OTP - User Step: " + user.getStep());
-
-            if (!"VERIFY_OTP".equals(user.getStep())) {
-                throw new RuntimeException("User not in VERIFY_OTP step. Current step: " + user.getStep());
-            }
-
-            if (user.getTempToken() == null || !tempToken.equals(user.getTempToken())) {
-                throw new RuntimeException("Invalid or expired temporary token");
-            }
-
-            if (user.getOtp() == null || !otp.equals(user.getOtp())) {
-                throw new RuntimeException("Invalid OTP");
-            }
-
-            if (user.getOtpExpiry() == null || LocalDateTime.now().isAfter(user.getOtpExpiry())) {
-                throw new RuntimeException("OTP expired");
-            }
-
             String newTempToken = otpService.generateTempToken(user.getId(), user.getMobile());
-
-            user.setTempToken(newTempToken);
-            user.setStep("VERIFY_MPIN");
-            user.setOtp(null);
-            user.setOtpExpiry(null);
-
-            userRepository.save(user);
-
-            System.out.println("✅ Generated new temp token for verify-mpin: " + newTempToken);
+            authSessionService.create(newTempToken, AuthSessionService.TEMP, "VERIFY_MPIN", mobile, user.getId(),
+                    null, tempSessionExpiry());
 
             return new LoginResponseDto(
                     newTempToken,
@@ -111,6 +97,8 @@ public class UserService {
                     "OTP verified. Please enter MPIN");
         } else {
             String newTempToken = otpService.generateTempToken(System.currentTimeMillis(), mobile);
+            authSessionService.create(newTempToken, AuthSessionService.TEMP, "REGISTER", mobile, null,
+                    null, tempSessionExpiry());
 
             return new LoginResponseDto(
                     newTempToken,
@@ -127,21 +115,31 @@ public class UserService {
             throw new RuntimeException("User already exists with this mobile");
         }
 
+        // Clients that pass the REGISTER token from verify-otp have it consumed here
+        if (tempToken != null && !tempToken.isBlank()) {
+            AuthSession session = authSessionService.find(tempToken);
+            if (session == null || !"REGISTER".equals(session.getStep()) || !mobile.equals(session.getMobile())
+                    || !authSessionService.consume(session)) {
+                throw new RuntimeException("Invalid or expired temporary token");
+            }
+        }
+
         User user = new User();
         user.setMobile(mobile);
         user.setName(name);
         user.setKycStatus("PENDING");
-        user.setWalletBalance(0.0);
+        user.setWalletBalance(0L);
         user.setWalletFrozen(false);
         user.setRole("USER");
         user.setStep("SET_MPIN");
         user.setCreatedAt(LocalDateTime.now());
 
-        String newTempToken = otpService.generateTempToken(System.currentTimeMillis(), mobile);
-        user.setTempToken(newTempToken);
-
         user = userRepository.save(user);
 
+        String newTempToken = otpService.generateTempToken(user.getId(), mobile);
+        authSessionService.create(newTempToken, AuthSessionService.TEMP, "SET_MPIN", mobile, user.getId(),
+                null, tempSessionExpiry());
+
         return new LoginResponseDto(
                 newTempToken,
                 null,
@@ -152,33 +150,29 @@ public class UserService {
 
     @Transactional
     public LoginResponseDto setMpin(String token, String mpin) {
-        User user = userRepository.findByTempToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token. Token: " + token));
-
-        System.out.println("=== DEBUG SET MPIN ===");
-        System.out.println("Looking for token: " + token);
-        System.out.println("Found user: " + user.getMobile());
-        System.out.println("User step: " + user.getStep());
-        System.out.println("=====================");
-
-        if (!"SET_MPIN".equals(user.getStep())) {
-            throw new RuntimeException("Invalid step. Expected SET_MPIN, found: " + user.getStep());
+        AuthSession session = authSessionService.find(token);
+        if (session == null || !AuthSessionService.TEMP.equals(session.getKind())) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+        if (!"SET_MPIN".equals(session.getStep())) {
+            throw new RuntimeException("Invalid step. Expected SET_MPIN, found: " + session.getStep());
         }
 
         if (mpin.length() != 4) {
             throw new RuntimeException("MPIN must be 4 digits");
         }
 
-        user.setMpinHash(passwordEncoder.encode(mpin));
-        user.setStep("DASHBOARD");
-
-        String permanentToken = otpService.generatePermanentToken(user.getId(), user.getMobile());
-        user.setPermanentToken(permanentToken);
-        user.setPermanentTokenExpiry(otpService.getTokenExpiryTime());
-        user.setTempToken(null);
+        if (!authSessionService.consume(session)) {
+            throw new RuntimeException("Invalid or expired token");
+        }
 
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setMpinHash(mpinHashService.encode(mpin));
+        user.setStep("DASHBOARD");
         userRepository.save(user);
 
+        String permanentToken = issuePermanentToken(user);
         String jwtToken = JwtUtil.generateToken(user.getId(), user.getRole());
 
         return new LoginResponseDto(
@@ -191,125 +185,73 @@ public class UserService {
 
     @Transactional
     public LoginResponseDto verifyMpin(String token, String mpin) {
-        System.out.println("=== DEBUG VERIFY MPIN ===");
-        System.out.println("Looking for token: " + token);
-        
-        User user;
-        boolean isTempTokenFlow = true;
-        
-        // First try to find by TEMP token (normal OTP flow)
-        Optional<User> tempTokenUser = userRepository.findByTempToken(token);
-        
-        if (tempTokenUser.isPresent()) {
-            user = tempTokenUser.get();
-            System.out.println("✅ Found user by TEMP token: " + user.getMobile());
-            
-            // Validate step for temp token flow
-            if (!"VERIFY_MPIN".equals(user.getStep())) {
-                throw new RuntimeException("Invalid step. Expected VERIFY_MPIN, found: " + user.getStep());
-            }
-        } 
-        // If not found by temp token, try PERMANENT token
-        else {
-            Optional<User> permTokenUser = userRepository.findByPermanentToken(token);
-            if (permTokenUser.isPresent()) {
-                user = permTokenUser.get();
-                isTempTokenFlow = false;
-                System.out.println("✅ Found user by PERMANENT token: " + user.getMobile());
-            } else {
-                throw new RuntimeException("Invalid token. Not found in temp or permanent tokens");
+        // Either a VERIFY_MPIN temp token from the OTP flow or a device's permanent token
+        AuthSession session = authSessionService.find(token);
+        if (session == null) {
+            throw new RuntimeException("Invalid token. Not found in temp or permanent tokens");
+        }
+        boolean isTempTokenFlow = AuthSessionService.TEMP.equals(session.getKind());
+        if (isTempTokenFlow) {
+            if (!"VERIFY_MPIN".equals(session.getStep())) {
+                throw new RuntimeException("Invalid step. Expected VERIFY_MPIN, found: " + session.getStep());
             }
+        } else if (!AuthSessionService.PERMANENT.equals(session.getKind())) {
+            throw new RuntimeException("Invalid token. Not found in temp or permanent tokens");
         }
 
-        System.out.println("User step: " + user.getStep());
-        System.out.println("Flow type: " + (isTempTokenFlow ? "TEMP_TOKEN" : "PERMANENT_TOKEN"));
-        System.out.println("========================");
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Validate MPIN for both flows
         if (user.getMpinHash() == null) {
             throw new RuntimeException("MPIN not set for user");
         }
 
-        if (!passwordEncoder.matches(mpin, user.getMpinHash())) {
+        if (!mpinHashService.matches(mpin, user.getMpinHash())) {
             throw new RuntimeException("Invalid MPIN");
         }
 
-        user.setStep("DASHBOARD");
-
         String permanentToken;
-        
         if (isTempTokenFlow) {
-            // Temp token flow: Clear temp token
-            user.setTempToken(null);
-        }
-        
-        // Check if we need to generate new permanent token
-        if (user.getPermanentToken() != null && 
-            user.getPermanentTokenExpiry() != null &&
-            LocalDateTime.now().isBefore(user.getPermanentTokenExpiry())) {
-            
-            // Keep existing permanent token
-            permanentToken = user.getPermanentToken();
-            System.out.println("✅ Keeping existing permanent token");
+            if (!authSessionService.consume(session)) {
+                throw new RuntimeException("Invalid or expired token");
+            }
+            permanentToken = issuePermanentToken(user);
         } else {
-            // Generate new permanent token
-            permanentToken = otpService.generatePermanentToken(user.getId(), user.getMobile());
-            user.setPermanentToken(permanentToken);
-            user.setPermanentTokenExpiry(otpService.getTokenExpiryTime());
-            System.out.println("✅ Generated new permanent token");
+            // The device keeps the permanent token it presented
+            permanentToken = token;
         }
 
-        userRepository.save(user);
-
         String jwtToken = JwtUtil.generateToken(user.getId(), user.getRole());
 
         return new LoginResponseDto(
                 jwtToken,
                 permanentToken,
-                mapToDto(user),
+                mapToDto(user, "DASHBOARD"),
                 "DASHBOARD",
                 "Login successful");
     }
 
-    @Transactional
     public LoginResponseDto loginWithPermanentToken(String mobile, String permanentToken) {
-        User user = userRepository.findByMobile(mobile)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        System.out.println("=== PERMANENT TOKEN LOGIN ===");
-        System.out.println("DB Perm Token: " + user.getPermanentToken());
-        System.out.println("Received Perm Token: " + permanentToken);
-        System.out.println("Token Expiry: " + user.getPermanentTokenExpiry());
-        System.out.println("Current Time: " + LocalDateTime.now());
-        System.out.println("=============================");
-
-        if (user.getPermanentToken() == null) {
-            throw new RuntimeException("No permanent token found for user");
-        }
-
-        if (!user.getPermanentToken().equals(permanentToken)) {
-            throw new RuntimeException("Invalid permanent token");
+        AuthSession session = authSessionService.find(permanentToken);
+        if (session == null || !AuthSessionService.PERMANENT.equals(session.getKind())
+                || !mobile.equals(session.getMobile())) {
+            throw new RuntimeException("Invalid or expired permanent token");
         }
 
-        if (user.getPermanentTokenExpiry() == null ||
-                LocalDateTime.now().isAfter(user.getPermanentTokenExpiry())) {
-            throw new RuntimeException("Permanent token expired");
-        }
-
-        user.setStep("DASHBOARD");
-        userRepository.save(user);
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
         String jwtToken = JwtUtil.generateToken(user.getId(), user.getRole());
 
         return new LoginResponseDto(
                 jwtToken,
                 permanentToken,
-                mapToDto(user),
+                mapToDto(user, "DASHBOARD"),
                 "DASHBOARD",
                 "Login successful with saved token");
     }
 
-    @Transactional
     public LoginResponseDto loginWithMpin(String mobile, String mpin) {
         User user = userRepository.findByMobile(mobile)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -318,40 +260,36 @@ public class UserService {
             throw new RuntimeException("MPIN not set");
         }
 
-        if (!passwordEncoder.matches(mpin, user.getMpinHash())) {
+        if (!mpinHashService.matches(mpin, user.getMpinHash())) {
             throw new RuntimeException("Invalid MPIN");
         }
 
-        user.setStep("DASHBOARD");
-
-        String permanentToken;
-        
-        // Keep existing token if valid
-        if (user.getPermanentToken() != null && 
-            user.getPermanentTokenExpiry() != null &&
-            LocalDateTime.now().isBefore(user.getPermanentTokenExpiry())) {
-            
-            permanentToken = user.getPermanentToken();
-            System.out.println("✅ Keeping existing permanent token for login-mpin");
-        } else {
-            permanentToken = otpService.generatePermanentToken(user.getId(), user.getMobile());
-            user.setPermanentToken(permanentToken);
-            user.setPermanentTokenExpiry(otpService.getTokenExpiryTime());
-            System.out.println("✅ Generated new permanent token for login-mpin");
-        }
-
-        userRepository.save(user);
-
+        String permanentToken = issuePermanentToken(user);
         String jwtToken = JwtUtil.generateToken(user.getId(), user.getRole());
 
         return new LoginResponseDto(
                 jwtToken,
                 permanentToken,
-                mapToDto(user),
+                mapToDto(user, "DASHBOARD"),
                 "DASHBOARD",
                 "Login successful");
     }
 
+    /**
+     * New device token for a user. Only its hash is stored, so the raw value is
+     * returned to the client once and cannot be read back later.
+     */
+    public String issuePermanentToken(User user) {
+        String permanentToken = otpService.generatePermanentToken(user.getId(), user.getMobile());
+        authSessionService.create(permanentToken, AuthSessionService.PERMANENT, null, user.getMobile(), user.getId(),
+                null, otpService.getTokenExpiryTime());
+        return permanentToken;
+    }
+
+    private LocalDateTime tempSessionExpiry() {
+        return LocalDateTime.now().plusMinutes(tempSessionMinutes);
+    }
+
     // Profile Management Methods
     @Transactional
     public UserResponseDto updateProfile(Long userId, UpdateProfileRequestDto request) {
@@ -386,7 +324,7 @@ public class UserService {
             throw new RuntimeException("MPIN not set");
         }
         
-        if (!passwordEncoder.matches(oldMpin, user.getMpinHash())) {
+        if (!mpinHashService.matches(oldMpin, user.getMpinHash())) {
             throw new RuntimeException("Invalid old MPIN");
         }
         
@@ -394,7 +332,7 @@ public class UserService {
             throw new RuntimeException("MPIN must be 4 digits");
         }
         
-        user.setMpinHash(passwordEncoder.encode(newMpin));
+        user.setMpinHash(mpinHashService.encode(newMpin));
         userRepository.save(user);
         
         return "MPIN changed successfully";
@@ -404,10 +342,12 @@ public class UserService {
         User user = userRepository.findByMobile(mobile)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
+        // A new OTP replaces any outstanding one for this mobile
+        String key = AuthSessionService.forgotMpinKey(mobile);
+        authSessionService.revoke(key);
         String otp = otpService.generateOtp();
-        user.setOtp(otp);
-        user.setOtpExpiry(otpService.getOtpExpiryTime());
-        userRepository.save(user);
+        authSessionService.create(key, AuthSessionService.FORGOT_MPIN, null, mobile, user.getId(),
+                otp, otpService.getOtpExpiryTime());
         
         System.out.println("Forgot MPIN OTP for " + mobile + ": " + otp);
         return otp;
@@ -415,34 +355,36 @@ public class UserService {
 
     @Transactional
     public String forgotMpin(String mobile, String otp, String newMpin) {
-        User user = userRepository.findByMobile(mobile)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        AuthSession session = authSessionService.find(AuthSessionService.forgotMpinKey(mobile));
         
         // Validate OTP
-        if (user.getOtp() == null || !otp.equals(user.getOtp())) {
-            throw new RuntimeException("Invalid OTP");
-        }
-        
-        if (user.getOtpExpiry() == null || LocalDateTime.now().isAfter(user.getOtpExpiry())) {
+        if (session == null) {
             throw new RuntimeException("OTP expired");
         }
+        if (!authSessionService.otpMatches(session, otp)) {
+            throw new RuntimeException("Invalid OTP");
+        }
         
         if (newMpin.length() != 4) {
             throw new RuntimeException("MPIN must be 4 digits");
         }
         
-        user.setMpinHash(passwordEncoder.encode(newMpin));
-        user.setOtp(null);
-        user.setOtpExpiry(null);
+        if (!authSessionService.consume(session)) {
+            throw new RuntimeException("OTP already used");
+        }
+        
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setMpinHash(mpinHashService.encode(newMpin));
         userRepository.save(user);
         
         return "MPIN reset successfully";
     }
 
-    public String getPermanentToken(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getPermanentToken();
+    private UserResponseDto mapToDto(User user, String step) {
+        UserResponseDto dto = mapToDto(user);
+        dto.setStep(step);
+        return dto;
     }
 
     private UserResponseDto mapToDto(User user) {
@@ -457,7 +399,7 @@ public class UserService {
         dto.setCreatedAt(user.getCreatedAt());
         dto.setStep(user.getStep());
         dto.setUpiId(user.getUpiId());
-        dto.setQrCodeData(user.getQrCodeData());
+        dto.setQrCodeUrl(QRCodeService.staticQrUrl(user.getId()));
         return dto;
     }
 }
\ No newline at end of file
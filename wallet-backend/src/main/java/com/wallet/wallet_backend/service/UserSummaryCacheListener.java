@@ -0,0 +1,41 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on User that drops the cached UserSummary when a user changes. The entry is
+ * dropped at flush and again after commit, so a page read while the update was in flight
+ * cannot leave the old name cached. The resolver is looked up lazily because it depends on
+ * UserRepository, which needs the entity manager factory that creates this listener.
+ */
+@Component
+public class UserSummaryCacheListener {
+
+    private final ObjectProvider<UserSummaryResolver> userSummaryResolver;
+
+    public UserSummaryCacheListener(ObjectProvider<UserSummaryResolver> userSummaryResolver) {
+        this.userSummaryResolver = userSummaryResolver;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChanged(User user) {
+        Long id = user.getId();
+        UserSummaryResolver resolver = userSummaryResolver.getObject();
+        resolver.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    resolver.invalidate(id);
+                }
+            });
+        }
+    }
+}
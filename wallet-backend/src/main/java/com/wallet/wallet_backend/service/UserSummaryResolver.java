@@ -0,0 +1,114 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.dto.UserSummary;
+import com.wallet.wallet_backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the users behind a page of admin rows (KYC requests, wallet transactions) in
+ * one query instead of one findById per row.
+ *
+ * Callers pass every user id of the page at once. Hits come from a bounded LRU of
+ * UserSummary projections; the misses are loaded with a single IN query that reads only
+ * id, name, email and avatar. Entries are dropped by UserSummaryCacheListener when a user
+ * is updated or deleted on this node, and expire after ttl-seconds for changes made elsewhere.
+ */
+@Service
+public class UserSummaryResolver implements StatsProvider {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<Long, Entry> cache;
+
+    // Bumped on every invalidation so a load that raced with an update does not cache the old row
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    public UserSummaryResolver(UserRepository userRepository,
+                               @Value("${wallet.user-summary.cache.max-entries:10000}") int maxEntries,
+                               @Value("${wallet.user-summary.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Summaries by user id. Ids that do not exist are absent from the map.
+     */
+    public Map<Long, UserSummary> resolve(Collection<Long> userIds) {
+        Map<Long, UserSummary> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (Long id : userIds) {
+            if (id == null || result.containsKey(id) || missing.contains(id)) {
+                continue;
+            }
+            Entry entry = cache.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                result.put(id, entry.summary);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.addAndGet(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.addAndGet(missing.size());
+        queries.incrementAndGet();
+        long version = invalidations.get();
+        List<UserSummary> loaded = userRepository.findSummariesByIdIn(missing);
+        for (UserSummary summary : loaded) {
+            result.put(summary.getId(), summary);
+        }
+        if (invalidations.get() == version) {
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            for (UserSummary summary : loaded) {
+                cache.put(summary.getId(), new Entry(summary, expiresAt));
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        cache.remove(userId);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "userSummaryCache";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("queries", queries.get());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final UserSummary summary;
+        private final long expiresAt;
+
+        private Entry(UserSummary summary, long expiresAt) {
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
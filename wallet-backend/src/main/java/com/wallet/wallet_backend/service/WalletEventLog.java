@@ -0,0 +1,319 @@
+package com.wallet.wallet_backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented event log on local disk, read and written through memory maps.
+ *
+ * Each segment is a fixed-size file named after the offset of its first record
+ * (00000000000000000000.log). Record layout: [int payloadLength][int crc32]
+ * [long offset][long eventId][payload]; a zero length marks the end of written data.
+ * Offsets are contiguous across segments. When the segment count exceeds the retention
+ * limit the oldest file is deleted. Consumers track their position in
+ * offsets/{consumer}.offset, so sidecar processes can read the same files and offsets.
+ *
+ * One writer at a time; any number of concurrent readers.
+ */
+public class WalletEventLog {
+
+    private static final int HEADER_BYTES = 24;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final Path offsetsDirectory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private volatile long nextOffset;
+
+    public WalletEventLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.offsetsDirectory = directory.resolve("offsets");
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(offsetsDirectory);
+        open();
+    }
+
+    private void open() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> bases.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        Collections.sort(bases);
+        long expected = bases.isEmpty() ? 0 : bases.get(0);
+        for (Long base : bases) {
+            if (base != expected) {
+                // A gap means later segments cannot be trusted; keep the contiguous prefix
+                break;
+            }
+            Segment segment = Segment.open(segmentPath(base), base, segmentBytes);
+            segments.put(base, segment);
+            expected = base + segment.count;
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, Segment.open(segmentPath(0), 0, segmentBytes));
+        }
+        Segment last = segments.lastEntry().getValue();
+        nextOffset = last.baseOffset + last.count;
+    }
+
+    /**
+     * Appends one record and returns its offset. Call flush() to make appended records durable.
+     */
+    public long append(long eventId, byte[] payload) {
+        if (HEADER_BYTES + payload.length + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Event of " + payload.length + " bytes does not fit in a segment");
+        }
+        writeLock.lock();
+        try {
+            Segment active = segments.lastEntry().getValue();
+            if (!active.hasRoom(payload.length)) {
+                active.buffer.force();
+                active = roll();
+            }
+            long offset = nextOffset;
+            active.write(offset, eventId, payload);
+            nextOffset = offset + 1;
+            return offset;
+        } catch (IOException e) {
+            throw new RuntimeException("Event log append failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void flush() {
+        segments.lastEntry().getValue().buffer.force();
+    }
+
+    /**
+     * Up to max records starting at fromOffset. Offsets that have been dropped by
+     * retention are skipped, so a slow consumer resumes at the oldest retained record.
+     */
+    public List<Record> read(long fromOffset, int max) {
+        List<Record> records = new ArrayList<>();
+        long end = nextOffset;
+        long offset = Math.max(fromOffset, firstOffset());
+        while (offset < end && records.size() < max) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            long segmentEnd = Math.min(end, segment.baseOffset + segment.count);
+            if (offset >= segmentEnd) {
+                break;
+            }
+            for (; offset < segmentEnd && records.size() < max; offset++) {
+                records.add(segment.read(offset));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Event ids of the last `count` records, used to skip events that were appended
+     * but not yet removed from the outbox when the process stopped.
+     */
+    public Set<Long> recentEventIds(int count) {
+        Set<Long> ids = new HashSet<>();
+        for (Record record : read(Math.max(firstOffset(), nextOffset - count), count)) {
+            ids.add(record.getEventId());
+        }
+        return ids;
+    }
+
+    public long firstOffset() {
+        return segments.firstKey();
+    }
+
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long committedOffset(String consumer) {
+        Path file = offsetFile(consumer);
+        try {
+            if (!Files.exists(file)) {
+                return firstOffset();
+            }
+            return Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Could not read offset for consumer " + consumer, e);
+        }
+    }
+
+    // Offset of the next record the consumer wants; written atomically via a temp file
+    public void commitOffset(String consumer, long offset) {
+        Path file = offsetFile(consumer);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, Long.toString(offset), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not commit offset for consumer " + consumer, e);
+        }
+    }
+
+    public void close() {
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Event log close failed: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Segment roll() throws IOException {
+        Segment segment = Segment.open(segmentPath(nextOffset), nextOffset, segmentBytes);
+        segments.put(nextOffset, segment);
+        while (segments.size() > maxSegments) {
+            Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+            // Readers holding the old mapping keep working; the pages go when it is collected
+            oldest.getValue().channel.close();
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+        }
+        return segment;
+    }
+
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    private Path offsetFile(String consumer) {
+        if (!consumer.matches("[A-Za-z0-9_.-]{1,64}")) {
+            throw new RuntimeException("Invalid consumer name");
+        }
+        return offsetsDirectory.resolve(consumer + ".offset");
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long baseOffset;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int[] positions = new int[1024];
+        private volatile int count;
+        private int writePosition;
+
+        private Segment(long baseOffset, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseOffset = baseOffset;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // Maps the file and indexes every intact record; a torn tail is overwritten by later appends
+        private static Segment open(Path path, long baseOffset, int segmentBytes) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            Segment segment = new Segment(baseOffset, channel, buffer);
+
+            ByteBuffer view = buffer.duplicate();
+            int position = 0;
+            while (position + HEADER_BYTES <= segmentBytes) {
+                int length = view.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+                    break;
+                }
+                int crc = view.getInt(position + 4);
+                long offset = view.getLong(position + 8);
+                if (offset != baseOffset + segment.count) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                view.get(position + HEADER_BYTES, payload);
+                if (crc32(payload) != crc) {
+                    break;
+                }
+                segment.index(position);
+                position += HEADER_BYTES + length;
+            }
+            segment.writePosition = position;
+            return segment;
+        }
+
+        private boolean hasRoom(int payloadLength) {
+            // Keep 4 bytes for the zero end marker
+            return writePosition + HEADER_BYTES + payloadLength + 4 <= buffer.capacity();
+        }
+
+        private void write(long offset, long eventId, byte[] payload) {
+            int position = writePosition;
+            buffer.putInt(position + 4, crc32(payload));
+            buffer.putLong(position + 8, offset);
+            buffer.putLong(position + 16, eventId);
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position + HEADER_BYTES + payload.length, 0);
+            // Length last: a reader of the file never sees a header without its payload
+            buffer.putInt(position, payload.length);
+            writePosition = position + HEADER_BYTES + payload.length;
+            index(position);
+        }
+
+        private void index(int position) {
+            int[] current = positions;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[count] = position;
+            positions = current;
+            count = count + 1;
+        }
+
+        private Record read(long offset) {
+            int position = positions[(int) (offset - baseOffset)];
+            ByteBuffer view = buffer.duplicate();
+            int length = view.getInt(position);
+            long eventId = view.getLong(position + 16);
+            byte[] payload = new byte[length];
+            view.get(position + HEADER_BYTES, payload);
+            return new Record(offset, eventId, payload);
+        }
+    }
+
+    public static final class Record {
+        private final long offset;
+        private final long eventId;
+        private final byte[] payload;
+
+        private Record(long offset, long eventId, byte[] payload) {
+            this.offset = offset;
+            this.eventId = eventId;
+            this.payload = payload;
+        }
+
+        public long getOffset() { return offset; }
+        public long getEventId() { return eventId; }
+        public byte[] getPayload() { return payload; }
+    }
+}
@@ -7,6 +7,7 @@ import com.wallet.wallet_backend.repository.UserRepository;
 import com.wallet.wallet_backend.repository.WalletTransactionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,22 +15,44 @@ import java.util.stream.Collectors;
 public class WalletService {
     private final UserRepository userRepository;
     private final WalletTransactionRepository transactionRepository;
+    private final BalanceLedger balanceLedger;
+    private final TransactionAggregateService aggregateService;
+    private final OutboxService outboxService;
+    private final StatementService statementService;
+    private final SpendLimitService spendLimitService;
+    private final RiskScoringService riskScoringService;
     
     public WalletService(UserRepository userRepository, 
-                        WalletTransactionRepository transactionRepository) {
+                        WalletTransactionRepository transactionRepository,
+                        BalanceLedger balanceLedger,
+                        TransactionAggregateService aggregateService,
+                        OutboxService outboxService,
+                        StatementService statementService,
+                        SpendLimitService spendLimitService,
+                        RiskScoringService riskScoringService) {
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
+        this.balanceLedger = balanceLedger;
+        this.aggregateService = aggregateService;
+        this.outboxService = outboxService;
+        this.statementService = statementService;
+        this.spendLimitService = spendLimitService;
+        this.riskScoringService = riskScoringService;
     }
     
+    // Returns the posting's transaction id
     @Transactional
-public void credit(Long userId, Double amount, String reference) {
+public String credit(Long userId, long amount, String reference) {
     if (amount <= 0) throw new RuntimeException("Amount must be greater than zero");
     
+    if (balanceLedger.isEnabled()) {
+        return balanceLedger.credit(userId, amount, reference);
+    }
+    
     User user = userRepository.findByIdForUpdate(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
     
-    Double balanceBefore = user.getWalletBalance();
-    Double balanceAfter = balanceBefore + amount;
+    long balanceAfter = user.getWalletBalance() + amount;
     user.setWalletBalance(balanceAfter);
     
     WalletTransaction txn = WalletTransaction.builder()
@@ -38,16 +61,41 @@ public void credit(Long userId, Double amount, String reference) {
             .type("CREDIT")
             .reference(reference)
             .build();
-    txn.setBalanceAfter(balanceAfter);  // SET BALANCE AFTER
+    txn.setBalanceAfter(balanceAfter);
     
     userRepository.save(user);
     transactionRepository.save(txn);
+    aggregateService.record(userId, "CREDIT", amount, txn.getCreatedAt());
+    outboxService.recordPosting(new OutboxService.Posting(userId, true, amount, balanceAfter,
+            reference, null, txn.getCreatedAt()));
+    return txn.getTransactionId();
+}
+
+// User-initiated debit: risk-scored, then counted against the user's spend limits (released again if it rolls back)
+@Transactional
+public String debit(Long userId, long amount, String reference) {
+    if (amount <= 0) throw new RuntimeException("Amount must be greater than zero");
+    
+    RiskScoringService.Assessment assessment = riskScoringService.assess(userId, null, amount);
+    spendLimitService.reserve(userId, amount);
+    String transactionId = post(userId, amount, reference);
+    riskScoringService.record(assessment);
+    return transactionId;
 }
 
+// Admin adjustments are not the user's spending and bypass spend limits
 @Transactional
-public void debit(Long userId, Double amount, String reference) {
+public String adminDebit(Long userId, long amount, String reference) {
     if (amount <= 0) throw new RuntimeException("Amount must be greater than zero");
     
+    return post(userId, amount, reference);
+}
+
+private String post(Long userId, long amount, String reference) {
+    if (balanceLedger.isEnabled()) {
+        return balanceLedger.debit(userId, amount, reference);
+    }
+    
     User user = userRepository.findByIdForUpdate(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
     
@@ -59,8 +107,7 @@ public void debit(Long userId, Double amount, String reference) {
         throw new RuntimeException("Insufficient balance");
     }
     
-    Double balanceBefore = user.getWalletBalance();
-    Double balanceAfter = balanceBefore - amount;
+    long balanceAfter = user.getWalletBalance() - amount;
     user.setWalletBalance(balanceAfter);
     
     WalletTransaction txn = WalletTransaction.builder()
@@ -69,24 +116,53 @@ public void debit(Long userId, Double amount, String reference) {
             .type("DEBIT")
             .reference(reference)
             .build();
-    txn.setBalanceAfter(balanceAfter);  // SET BALANCE AFTER
+    txn.setBalanceAfter(balanceAfter);
     
     userRepository.save(user);
     transactionRepository.save(txn);
+    aggregateService.record(userId, "DEBIT", amount, txn.getCreatedAt());
+    outboxService.recordPosting(new OutboxService.Posting(userId, false, amount, balanceAfter,
+            reference, null, txn.getCreatedAt()));
+    return txn.getTransactionId();
 }
     
-    public List<WalletTransactionResponseDto> getStatement(Long userId) {
-        return transactionRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(txn -> {
+    // Live balance in paise; users.wallet_balance may lag behind while the ledger is enabled
+    public long getBalance(Long userId) {
+        if (balanceLedger.isEnabled()) {
+            return balanceLedger.getBalance(userId);
+        }
+        return userRepository.findById(userId)
+                .map(User::getWalletBalance)
+                .orElse(0L);
+    }
+    
+    /**
+     * Statement newest first: one month (yyyy-MM), a date range (inclusive dates), or
+     * the whole history when neither is given. Closed months come from StatementService segments.
+     */
+    public List<WalletTransactionResponseDto> getStatement(Long userId, String month, LocalDate from, LocalDate to) {
+        List<StatementSegment.Row> rows;
+        if (month != null) {
+            rows = statementService.getMonth(userId, month);
+        } else {
+            rows = statementService.getRange(userId,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null);
+        }
+        return rows.stream()
+                .map(row -> {
                     WalletTransactionResponseDto dto = new WalletTransactionResponseDto();
-                    dto.setId(txn.getId());
-                    dto.setAmount(txn.getAmount());
-                    dto.setType(txn.getType());
-                    dto.setReference(txn.getReference());
-                    dto.setCreatedAt(txn.getCreatedAt());
+                    dto.setId(row.getId());
+                    dto.setAmount(row.getAmount());
+                    dto.setType(row.getType());
+                    dto.setReference(row.getReference());
+                    dto.setCreatedAt(row.getCreatedAt());
                     return dto;
                 })
                 .collect(Collectors.toList());
     }
+    
+    public List<String> getStatementMonths(Long userId) {
+        return statementService.getMonths(userId);
+    }
 }
\ No newline at end of file
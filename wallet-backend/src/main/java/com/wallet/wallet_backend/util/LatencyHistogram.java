@@ -0,0 +1,151 @@
+package com.wallet.wallet_backend.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style latency histogram in microseconds: values below 32 get a bucket each, and
+ * every power of two above that is split into 16 linear buckets, so any recorded value
+ * is reported within about 6% of itself from 1us up to several hours.
+ *
+ * Recording is one getAndIncrement on an AtomicLongArray plus a CAS loop for the max;
+ * nothing is locked or allocated. snapshot() copies the non-empty buckets into a compact,
+ * immutable Snapshot, which can be merged with others and queried for percentiles.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 32;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 36;
+    private static final int BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF;
+    private static final long MAX_VALUE = bucketUpper(BUCKETS - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.getAndIncrement(bucketOf(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        int used = 0;
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            if (copy[i] > 0) {
+                used++;
+            }
+        }
+        int[] buckets = new int[used];
+        long[] bucketCounts = new long[used];
+        long total = 0;
+        for (int i = 0, j = 0; i < BUCKETS; i++) {
+            if (copy[i] > 0) {
+                buckets[j] = i;
+                bucketCounts[j++] = copy[i];
+                total += copy[i];
+            }
+        }
+        return new Snapshot(buckets, bucketCounts, total, max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long bucketLower(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int shift = offset / HALF + 1;
+        return (long) (offset % HALF + HALF) << shift;
+    }
+
+    static long bucketUpper(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF + 1;
+        return bucketLower(bucket) + (1L << shift) - 1;
+    }
+
+    /**
+     * Non-empty buckets of a histogram, in ascending bucket order.
+     */
+    public static final class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(new int[0], new long[0], 0, 0);
+
+        private final int[] buckets;
+        private final long[] counts;
+        private final long total;
+        private final long max;
+
+        private Snapshot(int[] buckets, long[] counts, long total, long max) {
+            this.buckets = buckets;
+            this.counts = counts;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() { return total; }
+        public long getMaxMicros() { return max; }
+
+        /**
+         * Value at the given percentile (0-100), as the midpoint of its bucket and never above the max.
+         */
+        public long percentileMicros(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long mid = (bucketLower(buckets[i]) + bucketUpper(buckets[i])) / 2;
+                    return Math.min(mid, max);
+                }
+            }
+            return max;
+        }
+
+        public Snapshot merge(Snapshot other) {
+            if (other.total == 0) {
+                return this;
+            }
+            if (total == 0) {
+                return other;
+            }
+            int[] mergedBuckets = new int[buckets.length + other.buckets.length];
+            long[] mergedCounts = new long[mergedBuckets.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < buckets.length || j < other.buckets.length) {
+                if (j >= other.buckets.length || (i < buckets.length && buckets[i] < other.buckets[j])) {
+                    mergedBuckets[n] = buckets[i];
+                    mergedCounts[n++] = counts[i++];
+                } else if (i >= buckets.length || other.buckets[j] < buckets[i]) {
+                    mergedBuckets[n] = other.buckets[j];
+                    mergedCounts[n++] = other.counts[j++];
+                } else {
+                    mergedBuckets[n] = buckets[i];
+                    mergedCounts[n++] = counts[i++] + other.counts[j++];
+                }
+            }
+            return new Snapshot(Arrays.copyOf(mergedBuckets, n), Arrays.copyOf(mergedCounts, n),
+                    total + other.total, Math.max(max, other.max));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.wallet.wallet_backend.util;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is held as a long number of paise everywhere in the ledger (entities, columns,
+ * journal, aggregates), so arithmetic is exact and allocation-free. Rupees only exist at
+ * the edges: JSON fields annotated with RupeeSerializer / RupeeDeserializer read and
+ * write decimal rupees (12.5 on the wire is 1250 paise), and rupees() converts values
+ * placed into untyped response maps.
+ */
+public final class Money {
+
+    public static final long PAISE_PER_RUPEE = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Exact paise for a rupee amount. Fractions of a paisa are rejected rather than rounded.
+     */
+    public static long paise(BigDecimal rupees) {
+        try {
+            return rupees.movePointRight(2).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Amount must have at most two decimal places");
+        }
+    }
+
+    public static long paise(String rupees) {
+        try {
+            return paise(new BigDecimal(rupees.trim()));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid amount: " + rupees);
+        }
+    }
+
+    // For legacy double rupee values (old journal records, migrated columns)
+    public static long paiseFromDouble(double rupees) {
+        return Math.round(rupees * PAISE_PER_RUPEE);
+    }
+
+    public static BigDecimal rupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    public static BigDecimal rupees(Long paise) {
+        return paise != null ? rupees(paise.longValue()) : null;
+    }
+
+    // Request amounts arrive boxed; a missing one is a client error, not an unboxing NPE
+    public static long required(Long paise) {
+        if (paise == null) {
+            throw new RuntimeException("Amount is required");
+        }
+        return paise;
+    }
+
+    public static String format(long paise) {
+        return "₹" + rupees(paise).toPlainString();
+    }
+
+    /**
+     * Writes a paise value as a decimal rupee number.
+     */
+    public static final class RupeeSerializer extends ValueSerializer<Long> {
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeNumber(rupees(value.longValue()));
+        }
+    }
+
+    /**
+     * Reads a rupee number or numeric string into paise.
+     */
+    public static final class RupeeDeserializer extends ValueDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return paise(p.getDecimalValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                String text = p.getString();
+                return text.isBlank() ? null : paise(text);
+            }
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+    }
+}
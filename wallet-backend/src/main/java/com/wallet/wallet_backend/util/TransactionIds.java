@@ -0,0 +1,87 @@
+package com.wallet.wallet_backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ids for every posting in main_transactions and for transfers.
+ *
+ * The numeric part packs 41 bits of milliseconds since 2024-01-01 UTC, a 10-bit node id
+ * and a 12-bit sequence. It is rendered as a three-letter source prefix followed by 19
+ * zero-padded digits (WLT0000123456789012345), so ids of one type sort by creation time
+ * as plain strings and the prefix says which store holds the row.
+ *
+ * Ids come from one lock-free CAS on (millis, sequence): a caller takes the larger of
+ * "now with sequence 0" and "last id + 1". A full sequence therefore borrows the next
+ * millisecond instead of spinning, and a clock that steps back keeps counting from the
+ * last id, so ids on a node never repeat and never go backwards. Distinct nodes must be
+ * configured with distinct node ids (wallet.id.node-id).
+ */
+public final class TransactionIds {
+
+    public static final String PAYMENT = "TXN";
+    public static final String WALLET = "WLT";
+    public static final String TRANSFER = "TRF";
+
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int PREFIX_LENGTH = 3;
+    private static final int DIGITS = 19;
+
+    // (millis since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+    private static volatile long nodeBits;
+
+    private TransactionIds() {
+    }
+
+    public static void configure(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public static String next(String type) {
+        String digits = Long.toString(nextLong());
+        StringBuilder id = new StringBuilder(PREFIX_LENGTH + DIGITS).append(type);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    public static long nextLong() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = LAST.get();
+            next = Math.max(now, last + 1);
+        } while (!LAST.compareAndSet(last, next));
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    /**
+     * True for ids produced by next(); legacy ids ("TXN" + millis, "WLT" + row id) are shorter.
+     */
+    public static boolean isGenerated(String id) {
+        if (id == null || id.length() != PREFIX_LENGTH + DIGITS) {
+            return false;
+        }
+        for (int i = PREFIX_LENGTH; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String typeOf(String id) {
+        return id != null && id.length() > PREFIX_LENGTH ? id.substring(0, PREFIX_LENGTH) : "";
+    }
+}
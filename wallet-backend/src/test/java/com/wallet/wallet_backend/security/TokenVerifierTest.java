@@ -0,0 +1,57 @@
+package com.wallet.wallet_backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenVerifierTest {
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromCache() {
+        TokenVerifier verifier = new TokenVerifier(100, 300);
+        String token = JwtUtil.generateToken(42L, "USER");
+
+        AuthPrincipal first = verifier.verify(token);
+        AuthPrincipal second = verifier.verify(token);
+
+        assertThat(first.getUserId()).isEqualTo(42L);
+        assertThat(first.getRole()).isEqualTo("USER");
+        assertThat(second).isSameAs(first);
+        assertThat(verifier.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidTokensWithoutCachingThem() {
+        TokenVerifier verifier = new TokenVerifier(100, 300);
+        String token = JwtUtil.generateToken(42L, "USER");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThatThrownBy(() -> verifier.verify(tampered)).hasMessage("Invalid token");
+        assertThatThrownBy(() -> verifier.verify("not-a-jwt")).hasMessage("Invalid token");
+        assertThat(verifier.size()).isZero();
+    }
+
+    @Test
+    void reverifiesOnceTheTtlHasPassed() {
+        TokenVerifier verifier = new TokenVerifier(100, 0);
+        String token = JwtUtil.generateToken(7L, "ADMIN");
+
+        AuthPrincipal first = verifier.verify(token);
+        AuthPrincipal second = verifier.verify(token);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getUserId()).isEqualTo(7L);
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        TokenVerifier verifier = new TokenVerifier(3, 300);
+
+        for (long userId = 1; userId <= 10; userId++) {
+            assertThat(verifier.verify(JwtUtil.generateToken(userId, "USER")).getUserId()).isEqualTo(userId);
+        }
+
+        assertThat(verifier.size()).isLessThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,96 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.dto.UserSummary;
+import com.wallet.wallet_backend.entity.WalletTransaction;
+import com.wallet.wallet_backend.repository.UserRepository;
+import com.wallet.wallet_backend.repository.WalletTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Counts user queries per admin page: a page of wallet transactions must cost one IN
+ * query for its users however many rows it has, and none once they are cached.
+ */
+class AdminWalletServiceQueryCountTest {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int DISTINCT_USERS = 20;
+
+    private UserRepository userRepository;
+    private WalletTransactionRepository walletTransactionRepository;
+    private UserSummaryResolver userSummaryResolver;
+    private AdminWalletService adminWalletService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        walletTransactionRepository = mock(WalletTransactionRepository.class);
+        userSummaryResolver = new UserSummaryResolver(userRepository, 10_000, 300);
+        adminWalletService = new AdminWalletService(userRepository, walletTransactionRepository,
+                mock(WalletService.class), mock(BalanceLedger.class), mock(MetricRollupService.class),
+                mock(BulkWalletJobService.class), mock(UserSearchIndex.class), userSummaryResolver);
+
+        List<WalletTransaction> page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(WalletTransaction.builder()
+                    .userId((long) (i % DISTINCT_USERS) + 1)
+                    .amount(100)
+                    .type("CREDIT")
+                    .reference("TEST")
+                    .build());
+        }
+        when(walletTransactionRepository.findAllByOrderByCreatedAtDesc(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(page));
+        when(userRepository.findSummariesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> new UserSummary(id, "User " + id, "user" + id + "@example.com", null))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void loadsAPageOfUsersWithOneQuery() {
+        List<Map<String, Object>> rows = adminWalletService.getRecentWalletTransactions(PAGE_SIZE);
+
+        assertThat(rows).hasSize(PAGE_SIZE);
+        assertThat(rows).allSatisfy(row -> assertThat(row.get("user")).isEqualTo("User " + row.get("userId")));
+        verify(userRepository, times(1)).findSummariesByIdIn(argThat(ids -> ids.size() == DISTINCT_USERS));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void servesARepeatedPageFromTheCache() {
+        adminWalletService.getRecentWalletTransactions(PAGE_SIZE);
+        clearInvocations(userRepository);
+
+        adminWalletService.getRecentWalletTransactions(PAGE_SIZE);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void reloadsOnlyInvalidatedUsers() {
+        adminWalletService.getRecentWalletTransactions(PAGE_SIZE);
+        clearInvocations(userRepository);
+
+        userSummaryResolver.invalidate(3L);
+        adminWalletService.getRecentWalletTransactions(PAGE_SIZE);
+
+        verify(userRepository, times(1)).findSummariesByIdIn(argThat(ids -> ids.size() == 1 && ids.contains(3L)));
+        verifyNoMoreInteractions(userRepository);
+    }
+}
@@ -0,0 +1,84 @@
+package com.wallet.wallet_backend.service;
+
+import com.wallet.wallet_backend.repository.UserTransactionAggregateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Request-path postings reach user_txn_aggregates coalesced per row: a burst of payments
+ * to one payee costs two upserts (ALL and the month), not two per payment.
+ */
+class TransactionAggregateServiceTest {
+
+    private static final int PAYERS = 200;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionAggregateService aggregateService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        aggregateService = new TransactionAggregateService(mock(UserTransactionAggregateRepository.class),
+                jdbcTemplate, mock(PlatformTransactionManager.class), 2000);
+    }
+
+    @Test
+    void coalescesABurstToOnePayeeIntoOneUpsertPerRow() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 15, 12, 0);
+        for (long payer = 1; payer <= PAYERS; payer++) {
+            aggregateService.recordAfterCommit(List.of(
+                    new TransactionAggregateService.Posting(payer, "DEBIT", 100, now),
+                    new TransactionAggregateService.Posting(0L, "CREDIT", 100, now)));
+        }
+
+        aggregateService.flush();
+
+        List<Object[]> rows = upsertedRows();
+        List<Object[]> payeeRows = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[0].equals(0L)) {
+                payeeRows.add(row);
+            }
+        }
+        assertThat(rows).hasSize(2 * PAYERS + 2);
+        assertThat(payeeRows).hasSize(2);
+        assertThat(payeeRows).allSatisfy(row -> {
+            assertThat(row[3]).isEqualTo(100L * PAYERS);
+            assertThat(row[4]).isEqualTo((long) PAYERS);
+        });
+        assertThat(aggregateService.getStats()).containsEntry("queuedPostings", 0L);
+    }
+
+    @Test
+    void requeuesPostingsWhenTheFlushFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Lock wait timeout"));
+        aggregateService.recordAfterCommit(List.of(
+                new TransactionAggregateService.Posting(7L, "CREDIT", 500, LocalDateTime.now())));
+
+        aggregateService.flush();
+
+        assertThat(aggregateService.getStats())
+                .containsEntry("queuedPostings", 1L)
+                .containsEntry("appliedPostings", 0L)
+                .containsEntry("failedFlushes", 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> upsertedRows() {
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        return args.getValue();
+    }
+}
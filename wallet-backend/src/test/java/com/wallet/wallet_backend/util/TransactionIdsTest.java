@@ -0,0 +1,96 @@
+package com.wallet.wallet_backend.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionIdsTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @AfterEach
+    void resetNode() {
+        TransactionIds.configure(0);
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = TransactionIds.nextLong();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<Long> seen = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (Future<long[]> result : results) {
+                long[] ids = result.get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < ids.length; i++) {
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                    assertThat(seen.add(ids[i])).as("duplicate id %d", ids[i]).isTrue();
+                }
+            }
+            assertThat(seen).hasSize(THREADS * IDS_PER_THREAD);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void renderedIdsSortAsStringsInCreationOrder() {
+        String previous = TransactionIds.next(TransactionIds.WALLET);
+        for (int i = 0; i < 10_000; i++) {
+            String id = TransactionIds.next(TransactionIds.WALLET);
+            assertThat(id).hasSize(22).startsWith("WLT");
+            assertThat(id.compareTo(previous)).isPositive();
+            previous = id;
+        }
+    }
+
+    @Test
+    void carriesTheConfiguredNodeId() {
+        TransactionIds.configure(517);
+
+        long id = TransactionIds.nextLong();
+
+        assertThat((id >>> 12) & TransactionIds.MAX_NODE_ID).isEqualTo(517);
+        assertThatThrownBy(() -> TransactionIds.configure(TransactionIds.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recognisesGeneratedAndLegacyIds() {
+        String generated = TransactionIds.next(TransactionIds.TRANSFER);
+
+        assertThat(TransactionIds.isGenerated(generated)).isTrue();
+        assertThat(TransactionIds.typeOf(generated)).isEqualTo(TransactionIds.TRANSFER);
+        assertThat(TransactionIds.isGenerated("WLT42")).isFalse();
+        assertThat(TransactionIds.isGenerated("TXN1712345678901")).isFalse();
+        assertThat(TransactionIds.typeOf("WLT42")).isEqualTo(TransactionIds.WALLET);
+        assertThat(TransactionIds.typeOf(null)).isEmpty();
+    }
+}
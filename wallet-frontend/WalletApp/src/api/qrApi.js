@@ -1,4 +1,6 @@
 import axiosInstance from './axiosConfig';
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import { STORAGE_KEYS } from '../utils/constants';
 
 const qrApi = {
   // Generate personal QR
@@ -11,6 +13,15 @@ const qrApi = {
     }
   },
 
+  // Image source for the user's static QR PNG; the endpoint needs the auth header
+  getStaticQRSource: async (userId) => {
+    const token = await AsyncStorage.getItem(STORAGE_KEYS.USER_TOKEN);
+    return {
+      uri: `${axiosInstance.defaults.baseURL}/qr/${userId}/image`,
+      headers: token ? { Authorization: `Bearer ${token.replace(/^"|"$/g, '')}` } : {},
+    };
+  },
+
   // Generate payment QR with amount
   generatePaymentQR: async (amount) => {
     try {
@@ -1,11 +1,12 @@
 import axiosInstance from './axiosConfig';
 
 const transactionApi = {
-  // Get transaction history from /transactions/history
-  getTransactionHistory: async (page = 0, size = 20) => {
-    console.log('📤 [API] Fetching transactions from /transactions/history:', { page, size });
+  // Get transaction history from /transactions/history; pass the previous nextCursor for the following page
+  getTransactionHistory: async (cursor = null, size = 20) => {
+    console.log('📤 [API] Fetching transactions from /transactions/history:', { cursor, size });
     try {
-      const response = await axiosInstance.get(`/transactions/history?page=${page}&size=${size}`);
+      const cursorParam = cursor ? `&cursor=${encodeURIComponent(cursor)}` : '';
+      const response = await axiosInstance.get(`/transactions/history?size=${size}${cursorParam}`);
       console.log('✅ [API] Transactions response:', response.data);
       
       // Remove duplicates based on amount, date, and type
@@ -15,9 +16,9 @@ const transactionApi = {
       
       return {
         transactions: uniqueTransactions,
-        totalPages: response.data.totalPages || 1,
+        hasMore: response.data.hasMore === true,
+        nextCursor: response.data.nextCursor || null,
         totalTransactions: uniqueTransactions.length, // Sirf unique transactions count karo
-        currentPage: response.data.currentPage || page,
         pageSize: size,
         stats: {
           totalReceived: calculateTotalReceived(uniqueTransactions),
@@ -16,6 +16,7 @@ import LoadingModal from "../../components/LoadingModal";
 import { useAuth } from "../../context/AuthContext";
 import { useTheme } from "../../context/ThemeContext";
 import walletApi from "../../api/walletApi";
+import qrApi from "../../api/qrApi";
 import { formatCurrency } from "../../utils/helpers";
 
 const DashboardScreen = ({ navigation }) => {
@@ -24,6 +25,7 @@ const DashboardScreen = ({ navigation }) => {
   const [dashboardData, setDashboardData] = useState(null);
   const [loading, setLoading] = useState(true);
   const [refreshing, setRefreshing] = useState(false);
+  const [qrSource, setQrSource] = useState(null);
 
   const getStyles = (colors, isDarkMode) =>
     StyleSheet.create({
@@ -225,6 +227,9 @@ const DashboardScreen = ({ navigation }) => {
     try {
       const data = await walletApi.getDashboard();
       setDashboardData(data);
+      if (data?.user?.qrCodeUrl) {
+        setQrSource(await qrApi.getStaticQRSource(data.user.id));
+      }
     } catch (error) {
       Alert.alert("Error", "Failed to load dashboard");
     } finally {
@@ -460,7 +465,7 @@ const DashboardScreen = ({ navigation }) => {
       </View>
 
       {/* QR Code */}
-      {user?.qrCodeData && (
+      {qrSource && (
         <View style={styles.qrSection}>
           <Text style={styles.sectionTitle}>Your QR Code</Text>
           <TouchableOpacity
@@ -468,7 +473,7 @@ const DashboardScreen = ({ navigation }) => {
             onPress={() => navigation.navigate("QR")}
           >
             <Image
-              source={{ uri: `data:image/png;base64,${user.qrCodeData}` }}
+              source={qrSource}
               style={styles.qrImage}
             />
             <Text style={styles.qrText}>Tap to view full QR</Text>
@@ -20,7 +20,7 @@ const PaymentsScreen = ({ navigation }) => {
 
   const loadRecentTransactions = async () => {
     try {
-      const response = await transactionApi.getTransactionHistory(0, 5);
+      const response = await transactionApi.getTransactionHistory(null, 5);
       setRecentTransactions(response.transactions || []);
     } catch (error) {
       // Silently fail — user can still use payment options
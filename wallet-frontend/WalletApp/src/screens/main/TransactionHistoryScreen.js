@@ -22,24 +22,25 @@ const TransactionHistoryScreen = ({ navigation }) => {
   const [transactions, setTransactions] = useState([]);
   const [loading, setLoading] = useState(false);
   const [refreshing, setRefreshing] = useState(false);
-  const [page, setPage] = useState(0);
-  const [totalPages, setTotalPages] = useState(1);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [hasMore, setHasMore] = useState(false);
   const [stats, setStats] = useState({
     totalReceived: 0,
     totalSent: 0,
     totalTransactions: 0,
   });
 
-  const loadTransactions = async (pageNum = 0, refresh = false) => {
+  const loadTransactions = async (cursor = null, refresh = false) => {
     try {
       setLoading(true);
-      const response = await transactionApi.getTransactionHistory(pageNum, 20);
+      const response = await transactionApi.getTransactionHistory(cursor, 20);
       setStats({
         totalReceived: response.stats?.totalReceived || 0,
         totalSent: response.stats?.totalSent || 0,
         totalTransactions: response.totalTransactions || 0,
       });
-      setTotalPages(response.totalPages || 1);
+      setNextCursor(response.nextCursor);
+      setHasMore(response.hasMore);
       if (refresh) {
         setTransactions(response.transactions || []);
       } else {
@@ -54,23 +55,19 @@ const TransactionHistoryScreen = ({ navigation }) => {
 
   useFocusEffect(
     useCallback(() => {
-      setPage(0);
-      loadTransactions(0, true);
+      loadTransactions(null, true);
     }, []),
   );
 
   const onRefresh = useCallback(async () => {
     setRefreshing(true);
-    setPage(0);
-    await loadTransactions(0, true);
+    await loadTransactions(null, true);
     setRefreshing(false);
   }, []);
 
   const loadMore = () => {
-    if (page < totalPages - 1 && !loading && !refreshing) {
-      const nextPage = page + 1;
-      setPage(nextPage);
-      loadTransactions(nextPage, false);
+    if (hasMore && nextCursor && !loading && !refreshing) {
+      loadTransactions(nextCursor, false);
     }
   };
 